@@ -14,13 +14,11 @@
 
 package com.btisystems.pronx.ems.core.model;
 
-import com.btisystems.pronx.ems.core.exception.FieldAccessMethodException;
-import com.btisystems.pronx.ems.core.exception.InvalidFieldNameException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.snmp4j.smi.OID;
 
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
 
 /**
  * Abstract class to be extended by the root entity for each device type.
@@ -32,6 +30,10 @@ public abstract class AbstractRootEntity extends DeviceEntity implements IObject
     @SuppressWarnings("unused")
     private int id;
     private String deviceAddress;
+    private transient EntityEventBus eventBus;
+
+    // False when this root has been deserialized rather than constructed.
+    private transient boolean constructed = true;
 
     /**
      * Gets id.
@@ -60,6 +62,26 @@ public abstract class AbstractRootEntity extends DeviceEntity implements IObject
         this.deviceAddress = deviceAddress;
     }
 
+    /**
+     * Gets the event bus on which all entities attached to this root publish their changes.
+     *
+     * @return the event bus
+     */
+    public synchronized EntityEventBus getEventBus() {
+        if (eventBus == null) {
+            eventBus = new EntityEventBus();
+            if (!constructed) {
+                // Entities deserialized with this root must be attached to the new bus.
+                for (final DeviceEntity root : getRoots()) {
+                    if (root != null) {
+                        root._setEventBus(eventBus);
+                    }
+                }
+            }
+        }
+        return eventBus;
+    }
+
     /**
      * Is entity supported boolean.
      *
@@ -67,14 +89,7 @@ public abstract class AbstractRootEntity extends DeviceEntity implements IObject
      * @return the boolean
      */
     public boolean isEntitySupported(final String fieldName) {
-        boolean result = true;
-        try {
-            this.getClass().getMethod(getGetterName(fieldName));
-        } catch (final NoSuchMethodException ex) {
-            log.trace("No such field on class {}: {}", this.getClass().getName(), fieldName, ex);
-            result = false;
-        }
-        return result;
+        return EntityAccessors.forClass(getClass()).hasGetter(this, fieldName);
     }
 
     /**
@@ -107,16 +122,11 @@ public abstract class AbstractRootEntity extends DeviceEntity implements IObject
      * @return the entity
      */
     public DeviceEntity getEntity(final String fieldName) {
+        final MethodHandle getter = EntityAccessors.forClass(getClass()).getGetter(this, fieldName);
         try {
-            final Method method = this.getClass().getMethod(getGetterName(fieldName));
-            return (DeviceEntity) method.invoke(this, (Object[]) null);
-        } catch (final NoSuchMethodException e) {
-            log.warn("Unrecognised field name:{}", fieldName);
-            log.trace("Exception:", e);
-            throw new InvalidFieldNameException(this, fieldName);
-        } catch (final Exception e) {
-            log.warn("Exception on get", e);
-            throw new FieldAccessMethodException(this, fieldName, e.getMessage());
+            return (DeviceEntity) getter.invoke(this);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, fieldName, e);
         }
     }
 
@@ -126,20 +136,15 @@ public abstract class AbstractRootEntity extends DeviceEntity implements IObject
     }    @SuppressWarnings({"rawtypes"})
     @Override
     public void setObject(final Class clazz, final Object childObject) {
-        String sn = null;
+        final MethodHandle setter = EntityAccessors.forClass(getClass()).getSetter(this, clazz);
         try {
-            sn = clazz.getSimpleName();
-            final Method method = this.getClass().getMethod(getSetterName(sn), clazz);
-            method.invoke(this, childObject);
-            if (childObject != null) {
-                ((DeviceEntity) childObject).set_ParentEntity(this);
-            }
-        } catch (final NoSuchMethodException e) {
-            log.warn("No such method in setObject. SimpleName:" + sn, e);
-            throw new InvalidFieldNameException(this, clazz.getSimpleName());
-        } catch (final Exception e) {
-            log.warn("Exception in setObject. SimpleName:" + sn, e);
-            throw new FieldAccessMethodException(this, sn, e.getMessage());
+            setter.invoke(this, childObject);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, clazz.getSimpleName(), e);
+        }
+        if (childObject != null) {
+            ((DeviceEntity) childObject).set_ParentEntity(this);
+            ((DeviceEntity) childObject)._setEventBus(getEventBus());
         }
     }
 
@@ -151,20 +156,15 @@ public abstract class AbstractRootEntity extends DeviceEntity implements IObject
      */
     @SuppressWarnings("rawtypes")
     public Object getObject(final Class clazz) {
-        String sn = null;
+        final MethodHandle getter = EntityAccessors.forClass(getClass()).getGetter(this, clazz);
         try {
-            sn = clazz.getSimpleName();
-            final Method method = this.getClass().getMethod(getGetterName(sn));
-            final Object obj = method.invoke(this);
-            return obj;
-        } catch (final NoSuchMethodException e) {
-            log.warn("No such method in getObject. SimpleName:" + clazz.getSimpleName(), e);
-            throw new InvalidFieldNameException(this, clazz.getSimpleName());
-        } catch (final Exception e) {
-            log.warn("Exception in setObject. SimpleName:" + sn, e);
-            throw new FieldAccessMethodException(this, sn, e.getMessage());
+            return getter.invoke(this);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, clazz.getSimpleName(), e);
         }
-    }    @Override
+    }
+
+    @Override
     public void setObject(final Object childObject) {
         setObject(childObject.getClass(), childObject);
     }
@@ -185,31 +185,17 @@ public abstract class AbstractRootEntity extends DeviceEntity implements IObject
 
     @SuppressWarnings("unchecked")
     private Class<? extends DeviceEntity> getEntityType(final String entityName) {
-        try {
-            return (Class<? extends DeviceEntity>) this.getClass().getMethod(getGetterName(entityName)).getReturnType();
-        } catch (final SecurityException e) {
-            log.warn("SecurityException on getEntityType", e);
-            throw new FieldAccessMethodException(this, entityName, e.getMessage());
-        } catch (final NoSuchMethodException e) {
-            log.warn("Exception on getEntityType", e);
-            throw new InvalidFieldNameException(this, entityName);
-        }
+        return (Class<? extends DeviceEntity>) EntityAccessors.forClass(getClass()).getGetter(this, entityName).type().returnType();
     }
 
     // Instantiates an object of a given class.
     private DeviceEntity instantiateObject(final Class<? extends DeviceEntity> clazz) {
         DeviceEntity object = null;
         try {
-            object = clazz.newInstance();
-        } catch (final InstantiationException e) {
+            object = DeviceEntityFactory.newInstance(clazz);
+        } catch (final ReflectiveOperationException e) {
             log.warn("Failed to instantiate object of type: " + clazz, e);
-        } catch (final IllegalAccessException e) {
-            log.warn("Failed to access object of type : " + clazz, e);
         }
         return object;
     }
-
-
-
-
 }
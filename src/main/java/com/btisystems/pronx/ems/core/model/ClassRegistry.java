@@ -15,18 +15,20 @@ package com.btisystems.pronx.ems.core.model;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.snmp4j.smi.OID;
 
 import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
-import com.btisystems.pronx.ems.core.snmp.OIDComparator;
 
 /**
  * Manages the creation and population of entities for a discovered device.
@@ -40,7 +42,11 @@ public class ClassRegistry implements IClassRegistry {
     private final Class<? extends AbstractRootEntity> rootEntityClass;
 
     private List<OID> excludedDiscoveryOids = new ArrayList<>();
+    private transient volatile List<OID> discoveryOids;
     private final Map<Class<? extends DeviceEntity>, OID> classToOidMap;
+    private final OidTrie oidTrie;
+    private final Map<OID, DeviceEntityDescription> oidToDescriptionMap = new HashMap<>();
+    private final Map<Class<? extends DeviceEntity>, DeviceEntityDescription> classToDescriptionMap = new HashMap<>();
 
     /**
      * Class constructor
@@ -55,6 +61,26 @@ public class ClassRegistry implements IClassRegistry {
         this.rootEntityClass = rootEntityClass;
         this.classToOidMap = createClassToOidMap(oidRegistry);
         this.nameToClassMap = createNameToClassMap(oidRegistry);
+        this.oidTrie = new OidTrie(oidRegistry);
+        createDescriptionMaps(oidRegistry);
+    }
+
+    // Read the description of each registered class once, from an instance of the class.
+    private void createDescriptionMaps(final TreeMap<OID, Class<? extends DeviceEntity>> oidRegistry) {
+        for (final Map.Entry<OID, Class<? extends DeviceEntity>> entry : oidRegistry.entrySet()) {
+            DeviceEntityDescription description = classToDescriptionMap.get(entry.getValue());
+            if (description == null) {
+                try {
+                    description = DeviceEntityFactory.newInstance(entry.getValue()).get_Description();
+                } catch (final Exception ex) {
+                    LOG.error("Error retrieving entity description : {}", entry.getKey(), ex);
+                }
+            }
+            if (description != null) {
+                oidToDescriptionMap.put(entry.getKey(), description);
+                classToDescriptionMap.put(entry.getValue(), description);
+            }
+        }
     }
 
     /**
@@ -73,6 +99,14 @@ public class ClassRegistry implements IClassRegistry {
         return oidToClassMap.get(oid);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OidClassMatch getLongestPrefixMatch(final int[] oid, final int length) {
+        return oidTrie.getLongestPrefixMatch(oid, length);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -91,18 +125,29 @@ public class ClassRegistry implements IClassRegistry {
 
     /**
      * {@inheritDoc}
+     * <p/>
+     * The list is built once for the current excluded oids and shared by all callers until
+     * the excluded oids change, so it is not modifiable.
      */
     @Override
     public List<OID> getDiscoveryOids() {
-        List<OID> oids = new ArrayList<>();
-        for (final Map.Entry<OID, Class<? extends DeviceEntity>> entry : oidToClassMap.entrySet()) {
-            if (!IIndexed.class.isAssignableFrom(entry.getValue())) {
-                oids.add(entry.getKey());
+        final List<OID> oids = discoveryOids;
+        return (oids != null) ? oids : createDiscoveryOids();
+    }
+
+    private synchronized List<OID> createDiscoveryOids() {
+        if (discoveryOids == null) {
+            final Set<OID> oids = new TreeSet<>();
+            for (final Map.Entry<OID, Class<? extends DeviceEntity>> entry : oidToClassMap.entrySet()) {
+                if (!IIndexed.class.isAssignableFrom(entry.getValue())) {
+                    oids.add(entry.getKey());
+                }
             }
+            processExcludedOIDs(oids);
+            discoveryOids = Collections.unmodifiableList(new ArrayList<>(oids));
+            LOG.trace("Returning discovery oids: {}", discoveryOids);
         }
-        oids = processExcludedOIDs(oids);
-        LOG.trace("Returning discovery oids: {}", oids);
-        return oids;
+        return discoveryOids;
     }
 
     @Override
@@ -111,72 +156,52 @@ public class ClassRegistry implements IClassRegistry {
     }
 
     /**
-     * Processes the oid list against the excluded oids set on this registry.
+     * Processes the oid set against the excluded oids set on this registry.
      * For each excluded oid:
-     *  - The oid is removed from the list.
+     *  - The oid, and any oid below it, is removed from the set.
      *  - The parent oid (ie the branch) is also removed to prevent sub-tree walk of excluded oid.
      *  - The sub-oids of the parent are added back in.
      *
      * This ensures the excluded oid won't be walked on its own, or as part of a sub-tree walk, but also that
      * sub-oids which aren't explicitely excluded are still walked.
      *
-     * @param oids
-     * @return the oid list.
+     * @param oids  the oid set, in OID order.
      */
-    private List<OID> processExcludedOIDs(final List<OID> oids) {
+    private void processExcludedOIDs(final Set<OID> oids) {
         LOG.debug("Excluding oids from discovery list: {}", excludedDiscoveryOids);
-        for (final OID excludedOid : excludedDiscoveryOids) {
-            final List<OID> oidsToRemove = new ArrayList<>();
-            final List<OID> oidsToAdd = new ArrayList<>();
-            for (final OID discoveryOid : oids) {
-                if (discoveryOid.toString().startsWith(excludedOid.toString())){
-                    oidsToRemove.add(discoveryOid);
-                }
-                final OID excludedBranch = new OID(excludedOid).trim();
-                if (discoveryOid.equals(excludedBranch)){
-                    oidsToRemove.add(discoveryOid);
-                    reAddScalars(excludedBranch, oidsToAdd);
-                }
-            }
+        if (excludedDiscoveryOids.isEmpty()) {
+            return;
+        }
 
-            for (final OID oid : oidsToAdd) {
-                if (!oids.contains(oid)){
-                    oids.add(oid);
-                }
+        final Set<OID> excludedBranches = new HashSet<>();
+        for (final OID excludedOid : excludedDiscoveryOids) {
+            final OID excludedBranch = new OID(excludedOid).trim();
+            if (oids.remove(excludedBranch)) {
+                excludedBranches.add(excludedBranch);
+                reAddScalars(excludedBranch, oids);
             }
-            oids.removeAll(oidsToRemove);
-
         }
-        sortOids(oids);
-        return oids;
-    }
 
-    private void sortOids(final List<OID> oids) {
-        Collections.sort(oids, new Comparator<OID>(){
-            private final OIDComparator alphaNumComparator = new OIDComparator();
-            @Override
-            public int compare(final OID o1, final OID o2) {
-                return alphaNumComparator.compare(o1.toString(), o2.toString());
+        final OidPrefixSet excludedPrefixes = new OidPrefixSet(excludedDiscoveryOids);
+        for (final Iterator<OID> iterator = oids.iterator(); iterator.hasNext();) {
+            final OID oid = iterator.next();
+            if (excludedBranches.contains(oid) || excludedPrefixes.covers(oid.getValue())) {
+                iterator.remove();
             }
-        });
+        }
     }
 
-    private void reAddScalars(final OID excludedBranch, final List<OID> oidsToAdd) {
-        final Class<? extends DeviceEntity> excludedClazz = oidToClassMap.get(excludedBranch);
-        try {
-            if (excludedClazz != null){
-                final DeviceEntity excludedEntity = excludedClazz.newInstance();
-                for (final FieldDescription fieldDescription : excludedEntity.get_Description().getFields()) {
-                    oidsToAdd.add(new OID(excludedEntity.get_Description().getOid()).append(fieldDescription.getId()));
-                }
+    private void reAddScalars(final OID excludedBranch, final Set<OID> oidsToAdd) {
+        final DeviceEntityDescription excludedDescription = oidToDescriptionMap.get(excludedBranch);
+        if (excludedDescription != null) {
+            for (final FieldDescription fieldDescription : excludedDescription.getFields()) {
+                oidsToAdd.add(new OID(excludedDescription.getOid()).append(fieldDescription.getId()));
             }
-        } catch (final Exception ex) {
-            LOG.error("Error adding scalar attributes back in for excluded branch: {}", excludedBranch, ex);
         }
     }
 
     @Override
-    public void setExcludedDiscoveryOids(final String oids) {
+    public synchronized void setExcludedDiscoveryOids(final String oids) {
         if (oids != null) {
             // Expect a comma-separated list of oids.
             final List<OID> oidList = new ArrayList<>();
@@ -184,6 +209,7 @@ public class ClassRegistry implements IClassRegistry {
                 oidList.add(new OID(oid));
             }
             excludedDiscoveryOids = oidList;
+            discoveryOids = null;
         }
     }
 
@@ -205,17 +231,12 @@ public class ClassRegistry implements IClassRegistry {
 
     @Override
     public DeviceEntityDescription getEntityDescription(final OID oid) {
-        final Class<? extends DeviceEntity> entityClazz = oidToClassMap.get(oid);
-        // TODO SJ Make autogen generate a static method to avoid instantiation.
-        try {
-            if (entityClazz != null) {
-                final DeviceEntity entity = entityClazz.newInstance();
-                return entity.get_Description();
-            }
-        } catch (final Exception ex) {
-            LOG.error("Error retrieving entity description : {}", oid, ex);
-        }
-        return null;
+        return oidToDescriptionMap.get(oid);
+    }
+
+    @Override
+    public DeviceEntityDescription getEntityDescription(final Class<? extends DeviceEntity> entityClass) {
+        return classToDescriptionMap.get(entityClass);
     }
 
 
@@ -0,0 +1,542 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the entries of a table column by column, as an alternative to an entity per entry.
+ * <p/>
+ * The columns are created from the fields of the entry's {@link DeviceEntityDescription}:
+ * numeric fields are held in <code>int[]</code> or <code>long[]</code> arrays, with unsigned
+ * 32-bit values read back without sign extension, and other
+ * scalar fields as codes into a dictionary of the distinct strings of the column. Entries
+ * are read through {@link Row} views, which are created on demand and hold no values.
+ * <p/>
+ * Each entry records the poll that last populated it, so that entries no longer seen
+ * by a poll can be removed, as the entries of entity tables are.
+ */
+public class ColumnarTable implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final DeviceEntityDescription description;
+    private final int[] entryOid;
+    private final Column[] columnsById;
+    private final Map<IndexKey, Integer> rowsByIndex = new HashMap<>();
+    private final List<IndexKey> indices = new ArrayList<>();
+    private long[] lastPolls = new long[0];
+
+    /**
+     * Class constructor
+     *
+     * @param description   the description of the table entry
+     */
+    public ColumnarTable(final DeviceEntityDescription description) {
+        this.description = description;
+        this.entryOid = description.getOid().getValue();
+
+        int maximumId = 0;
+        for (final FieldDescription field : description.getFields()) {
+            maximumId = Math.max(maximumId, field.getId());
+        }
+        columnsById = new Column[maximumId + 1];
+        for (final FieldDescription field : description.getFields()) {
+            columnsById[field.getId()] = createColumn(field);
+        }
+    }
+
+    private static Column createColumn(final FieldDescription field) {
+        switch (field.getType()) {
+            case INTEGER:
+            case FIXED_X10:
+            case FIXED_X100:
+            case FIXED_X1000:
+                return new IntColumn(false);
+            case UNSIGNED32:
+                return new IntColumn(true);
+            case UNSIGNED64:
+                return new LongColumn();
+            case STRING:
+            case IP_ADDRESS:
+            case BITS:
+            case OID:
+                return new StringColumn(false);
+            case DATE_AND_TIME:
+                return new StringColumn(true);
+            case ENTITY:
+            case TABLE:
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the description of the table entry.
+     *
+     * @return the description
+     */
+    public DeviceEntityDescription getDescription() {
+        return description;
+    }
+
+    /**
+     * Sets the value of a column of an entry, adding the entry if it is new.
+     *
+     * @param binding a variable binding whose OID is the entry OID followed by the
+     *                column id and the index of the entry
+     * @return true if the binding was added, or false if it does not hold a column of the table
+     */
+    public boolean addVariable(final VariableBinding binding) {
+        return addVariable(binding, 0);
+    }
+
+    /**
+     * Sets the value of a column of an entry during a poll, adding the entry if it is new.
+     *
+     * @param binding a variable binding whose OID is the entry OID followed by the
+     *                column id and the index of the entry
+     * @param poll    the generation of the poll
+     * @return true if the binding was added, or false if it does not hold a column of the table
+     */
+    boolean addVariable(final VariableBinding binding, final long poll) {
+        final int[] oid = binding.getOid().getValue();
+        final int indexOffset = entryOid.length + 1;
+        if (oid.length <= indexOffset || !startsWithEntryOid(oid)) {
+            return false;
+        }
+
+        final int columnId = oid[entryOid.length];
+        final Column column = getColumn(columnId);
+        if (column == null) {
+            return false;
+        }
+
+        final IndexKey index = new IndexKey(oid, indexOffset, oid.length - indexOffset);
+        Integer row = rowsByIndex.get(index);
+        if (row == null) {
+            row = indices.size();
+            rowsByIndex.put(index, row);
+            indices.add(index);
+            if (row >= lastPolls.length) {
+                lastPolls = Arrays.copyOf(lastPolls, Column.grow(lastPolls.length, row));
+            }
+        }
+        lastPolls[row] = poll;
+        column.set(row, binding.getVariable());
+        return true;
+    }
+
+    /**
+     * Removes the entries that were not populated by a poll. The remaining entries keep
+     * their order, and views of entries delivered before no longer apply.
+     *
+     * @param poll the generation of the poll
+     * @return the number of entries removed
+     */
+    int removeRowsNotPolled(final long poll) {
+        final int size = indices.size();
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (lastPolls[row] != poll) {
+                rowsByIndex.remove(indices.get(row));
+                continue;
+            }
+            if (kept != row) {
+                indices.set(kept, indices.get(row));
+                rowsByIndex.put(indices.get(kept), kept);
+                lastPolls[kept] = lastPolls[row];
+                for (final Column column : columnsById) {
+                    if (column != null) {
+                        column.move(row, kept);
+                    }
+                }
+            }
+            kept++;
+        }
+        if (kept == size) {
+            return 0;
+        }
+        indices.subList(kept, size).clear();
+        Arrays.fill(lastPolls, kept, size, 0);
+        for (final Column column : columnsById) {
+            if (column != null) {
+                column.truncate(kept);
+            }
+        }
+        return size - kept;
+    }
+
+    private boolean startsWithEntryOid(final int[] oid) {
+        for (int i = 0; i < entryOid.length; i++) {
+            if (oid[i] != entryOid[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Column getColumn(final int fieldId) {
+        return (fieldId >= 0 && fieldId < columnsById.length) ? columnsById[fieldId] : null;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the size
+     */
+    public int size() {
+        return indices.size();
+    }
+
+    /**
+     * Delivers a view of an entry.
+     *
+     * @param index the index of the entry
+     * @return the view, or <code>null</code> if there is no entry with the index
+     */
+    public Row getRow(final IndexKey index) {
+        final Integer row = rowsByIndex.get(index);
+        return (row == null) ? null : new Row(row);
+    }
+
+    /**
+     * Delivers views of all entries, in the order in which they were added. Each view
+     * is created when it is retrieved from the list.
+     *
+     * @return the rows
+     */
+    public List<Row> getRows() {
+        return new AbstractList<Row>() {
+            @Override
+            public Row get(final int row) {
+                if (row < 0 || row >= indices.size()) {
+                    throw new IndexOutOfBoundsException(Integer.toString(row));
+                }
+                return new Row(row);
+            }
+
+            @Override
+            public int size() {
+                return indices.size();
+            }
+        };
+    }
+
+    /**
+     * A view of one entry of the table.
+     */
+    public final class Row {
+
+        private final int row;
+
+        private Row(final int row) {
+            this.row = row;
+        }
+
+        /**
+         * Gets the index of the entry.
+         *
+         * @return the index
+         */
+        public IndexKey getIndex() {
+            return indices.get(row);
+        }
+
+        /**
+         * Indicates whether a value has been added for a field of the entry.
+         *
+         * @param fieldId the id of the field in the entry's description
+         * @return true if the field has a value
+         */
+        public boolean isSet(final int fieldId) {
+            final Column column = getColumn(fieldId);
+            return column != null && column.isSet(row);
+        }
+
+        /**
+         * Gets the value of a numeric field.
+         *
+         * @param fieldId the id of the field in the entry's description
+         * @return the value, or 0 if the field has no value
+         */
+        public int getInt(final int fieldId) {
+            return (int) checkColumn(fieldId).getLong(row);
+        }
+
+        /**
+         * Gets the value of a numeric field.
+         *
+         * @param fieldId the id of the field in the entry's description
+         * @return the value, or 0 if the field has no value
+         */
+        public long getLong(final int fieldId) {
+            return checkColumn(fieldId).getLong(row);
+        }
+
+        /**
+         * Gets the value of a field as a string.
+         *
+         * @param fieldId the id of the field in the entry's description
+         * @return the value, or <code>null</code> if the field has no value
+         */
+        public String getString(final int fieldId) {
+            return checkColumn(fieldId).getString(row);
+        }
+
+        /**
+         * Gets the value of a numeric field.
+         *
+         * @param fieldName the name of the field
+         * @return the value, or 0 if the field has no value
+         */
+        public int getInt(final String fieldName) {
+            return getInt(getFieldId(fieldName));
+        }
+
+        /**
+         * Gets the value of a numeric field.
+         *
+         * @param fieldName the name of the field
+         * @return the value, or 0 if the field has no value
+         */
+        public long getLong(final String fieldName) {
+            return getLong(getFieldId(fieldName));
+        }
+
+        /**
+         * Gets the value of a field as a string.
+         *
+         * @param fieldName the name of the field
+         * @return the value, or <code>null</code> if the field has no value
+         */
+        public String getString(final String fieldName) {
+            return getString(getFieldId(fieldName));
+        }
+
+        private int getFieldId(final String fieldName) {
+            final FieldDescription field = description.getFieldByName(fieldName);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field " + fieldName);
+            }
+            return field.getId();
+        }
+
+        private Column checkColumn(final int fieldId) {
+            final Column column = getColumn(fieldId);
+            if (column == null) {
+                throw new IllegalArgumentException("No column for field " + fieldId);
+            }
+            return column;
+        }
+
+        @Override
+        public String toString() {
+            return "Row{" + "index=" + getIndex() + '}';
+        }
+    }
+
+    /**
+     * The values of one field of all entries.
+     */
+    private abstract static class Column implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private final BitSet present = new BitSet();
+
+        void set(final int row, final Variable value) {
+            present.set(row);
+            setValue(row, value);
+        }
+
+        boolean isSet(final int row) {
+            return present.get(row);
+        }
+
+        void move(final int from, final int to) {
+            present.set(to, present.get(from));
+            moveValue(from, to);
+        }
+
+        void truncate(final int size) {
+            present.clear(size, Math.max(size, present.length()));
+            clearValues(size);
+        }
+
+        static int grow(final int capacity, final int row) {
+            return Math.max(row + 1, Math.max(INITIAL_CAPACITY, capacity * 2));
+        }
+
+        abstract void setValue(int row, Variable value);
+
+        abstract void moveValue(int from, int to);
+
+        abstract void clearValues(int from);
+
+        abstract long getLong(int row);
+
+        abstract String getString(int row);
+    }
+
+    private static final class IntColumn extends Column {
+
+        private static final long serialVersionUID = 1L;
+        private static final long UNSIGNED_MASK = 0xFFFFFFFFL;
+        private final boolean unsigned;
+        private int[] values = new int[0];
+
+        private IntColumn(final boolean unsigned) {
+            this.unsigned = unsigned;
+        }
+
+        @Override
+        void setValue(final int row, final Variable value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            values[row] = value.toInt();
+        }
+
+        @Override
+        void moveValue(final int from, final int to) {
+            if (to < values.length) {
+                values[to] = (from < values.length) ? values[from] : 0;
+            }
+        }
+
+        @Override
+        void clearValues(final int from) {
+            if (from < values.length) {
+                Arrays.fill(values, from, values.length, 0);
+            }
+        }
+
+        @Override
+        long getLong(final int row) {
+            if (row >= values.length) {
+                return 0;
+            }
+            return unsigned ? (values[row] & UNSIGNED_MASK) : values[row];
+        }
+
+        @Override
+        String getString(final int row) {
+            return isSet(row) ? Long.toString(getLong(row)) : null;
+        }
+    }
+
+    private static final class LongColumn extends Column {
+
+        private static final long serialVersionUID = 1L;
+        private long[] values = new long[0];
+
+        @Override
+        void setValue(final int row, final Variable value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            values[row] = value.toLong();
+        }
+
+        @Override
+        void moveValue(final int from, final int to) {
+            if (to < values.length) {
+                values[to] = (from < values.length) ? values[from] : 0;
+            }
+        }
+
+        @Override
+        void clearValues(final int from) {
+            if (from < values.length) {
+                Arrays.fill(values, from, values.length, 0);
+            }
+        }
+
+        @Override
+        long getLong(final int row) {
+            return (row < values.length) ? values[row] : 0;
+        }
+
+        @Override
+        String getString(final int row) {
+            return isSet(row) ? Long.toString(values[row]) : null;
+        }
+    }
+
+    private static final class StringColumn extends Column {
+
+        private static final long serialVersionUID = 1L;
+        private final boolean hex;
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int[] values = new int[0];
+
+        private StringColumn(final boolean hex) {
+            this.hex = hex;
+        }
+
+        @Override
+        void setValue(final int row, final Variable value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            final String text = (hex && value instanceof OctetString)
+                    ? ((OctetString) value).toHexString(':') : value.toString();
+            Integer code = codes.get(text);
+            if (code == null) {
+                code = dictionary.size();
+                codes.put(text, code);
+                dictionary.add(text);
+            }
+            values[row] = code;
+        }
+
+        @Override
+        void moveValue(final int from, final int to) {
+            if (to < values.length) {
+                values[to] = (from < values.length) ? values[from] : 0;
+            }
+        }
+
+        @Override
+        void clearValues(final int from) {
+            if (from < values.length) {
+                Arrays.fill(values, from, values.length, 0);
+            }
+        }
+
+        @Override
+        long getLong(final int row) {
+            throw new IllegalArgumentException("Not a numeric column");
+        }
+
+        @Override
+        String getString(final int row) {
+            return isSet(row) ? dictionary.get(values[row]) : null;
+        }
+    }
+}
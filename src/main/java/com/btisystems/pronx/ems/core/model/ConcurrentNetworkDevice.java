@@ -0,0 +1,244 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.VariableBinding;
+
+
+/**
+ * Manages the creation and population of entities for a discovered device, allowing
+ * variables to be added from several threads at the same time.
+ * <p/>
+ * Entities and table entries are each created exactly once, through atomic get-or-create
+ * operations on concurrent maps, and existing ones are found without locking. A table is
+ * locked only while an entry is added to it, and an entity only while a variable is set
+ * on it, so threads populating different entities do not contend.
+ */
+public class ConcurrentNetworkDevice implements INetworkDevice {
+
+    private static final long serialVersionUID = 1L;
+
+    private static Logger log = LoggerFactory.getLogger(ConcurrentNetworkDevice.class);
+
+    private final IClassRegistry oidRegistry;
+
+    private final ConcurrentMap<OID, DeviceEntity> simpleObjects = new ConcurrentHashMap<>();
+
+    // The entries of each table, by the OID of the table entry.
+    private final ConcurrentMap<OID, ConcurrentMap<IndexKey, DeviceEntity>> tableEntries = new ConcurrentHashMap<>();
+
+    private volatile AbstractRootEntity rootEntity;
+
+    private final String deviceAddress;
+
+    private transient volatile StringPool stringPool;
+
+    /**
+     * Class constructor
+     *
+     * @param oidRegistry   the registry used to map OIDs to entity classes
+     * @param deviceAddress the name of the device
+     */
+    public ConcurrentNetworkDevice(final IClassRegistry oidRegistry,
+                                   final String deviceAddress) {
+        this.oidRegistry = oidRegistry;
+        this.deviceAddress = deviceAddress;
+    }
+
+    /**
+     * Sets the pool through which the string values of entities are shared, which may be
+     * shared with other devices.
+     *
+     * @param stringPool the pool, or <code>null</code> if string values are not pooled
+     */
+    public void setStringPool(final StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addVariable(final VariableBinding binding) {
+        log.debug(">>> addVariable:{}", binding);
+
+        final int[] rawOid = binding.getOid().getValue();
+        final OidClassMatch containingClass = oidRegistry.getLongestPrefixMatch(rawOid, rawOid.length - 1);
+        if (containingClass == null) {
+            log.info("Ignoring oid {} from {}.", binding.getOid(), deviceAddress);
+            return false;
+        }
+
+        final int indexElementCount = rawOid.length - containingClass.getOidLength();
+        final DeviceEntity entity;
+        if (!containingClass.isIndexed()) {
+            // Scalars have the variable identifier and the final ".0".
+            if (indexElementCount != 2) {
+                log.debug("Unrecognised OID:" + binding.getOid());
+                return false;
+            }
+            entity = getObject(containingClass.getOid());
+        } else {
+            entity = getTableEntry(containingClass, binding.getOid(), indexElementCount - 1);
+        }
+
+        if (entity != null) {
+            setVariable(entity, binding);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AbstractRootEntity getRootObject() {
+        return getRootEntity();
+    }
+
+    // Deliver the table entry for the specified OID, creating it if necessary.
+    private DeviceEntity getTableEntry(final OidClassMatch entryClass,
+                                       final OID variableOid,
+                                       final int indexElementCount) {
+        ConcurrentMap<IndexKey, DeviceEntity> entries = tableEntries.get(entryClass.getOid());
+        if (entries == null) {
+            entries = tableEntries.computeIfAbsent(entryClass.getOid(), oid -> new ConcurrentHashMap<>());
+        }
+
+        final int[] rawOid = variableOid.getValue();
+        final IndexKey entryKey = new IndexKey(rawOid, rawOid.length - indexElementCount, indexElementCount);
+        final DeviceEntity entry = entries.get(entryKey);
+        if (entry != null) {
+            return entry;
+        }
+        return entries.computeIfAbsent(entryKey, key -> createTableEntry(entryClass, variableOid, key));
+    }
+
+    // Add a new entry to its table, unless the table already has one with the same index.
+    @SuppressWarnings("unchecked")
+    private DeviceEntity createTableEntry(final OidClassMatch entryClass,
+                                          final OID variableOid,
+                                          final IndexKey entryKey) {
+        final DeviceEntity table = getObject(entryClass.getParentOid());
+        if (table == null) {
+            log.debug("Failed to get table object for {}", entryClass);
+            return null;
+        }
+
+        synchronized (table) {
+            final DeviceEntity existingEntry = (table instanceof IKeyedTableAccess)
+                    ? ((IKeyedTableAccess<DeviceEntity>) table).getEntry(entryKey)
+                    : ((ITableAccess<DeviceEntity>) table).getEntry(entryKey.toString());
+            if (existingEntry != null) {
+                return existingEntry;
+            }
+
+            final DeviceEntity newEntry = instantiateObject(entryClass.getEntityClass());
+            if (newEntry != null) {
+                if (table instanceof IKeyedTableAccess) {
+                    ((IKeyedTableAccess<DeviceEntity>) table).setEntry(entryKey, newEntry);
+                } else {
+                    ((ITableAccess<DeviceEntity>) table).setEntry(entryKey.toString(), newEntry);
+                }
+                ((IIndexed) newEntry)._setIndex(variableOid);
+                newEntry._setNewEntityEventBus(getRootEntity().getEventBus());
+            }
+            return newEntry;
+        }
+    }
+
+    // Sets variable on a managed object.
+    private void setVariable(final DeviceEntity entity,
+                             final VariableBinding binding) {
+        log.debug(">>> setVariable oid:{} object:{}", binding.getOid(), entity.getClass().getName());
+        final StringPool pool = stringPool;
+        final VariableBinding value = (pool == null) ? binding : pool.pool(binding);
+        synchronized (entity) {
+            ((IVariableBindingSetter) entity).set(value);
+        }
+    }
+
+    // Gets the instance of the managed object identified by its OID, creating it if necessary.
+    private DeviceEntity getObject(final OID oid) {
+        final DeviceEntity object = simpleObjects.get(oid);
+        if (object != null) {
+            return object;
+        }
+        return simpleObjects.computeIfAbsent(oid, this::createNewEntity);
+    }
+
+    // Given the OID of a class, instantiates a new object and adds it to the root entity.
+    private DeviceEntity createNewEntity(final OID oid) {
+        final Class<? extends DeviceEntity> clazz = oidRegistry.getClass(oid);
+        if (clazz == null) {
+            log.debug("No class for oid:{}", oid);
+            return null;
+        }
+
+        final DeviceEntity object = instantiateObject(clazz);
+        if (object != null) {
+            final AbstractRootEntity root = getRootEntity();
+            synchronized (root) {
+                root.setObject(object);
+            }
+        }
+        return object;
+    }
+
+    // Deliver the root entity for the device, creating it if necessary.
+    private AbstractRootEntity getRootEntity() {
+        AbstractRootEntity root = rootEntity;
+        if (root == null) {
+            synchronized (this) {
+                root = rootEntity;
+                if (root == null) {
+                    root = createRootEntity();
+                    rootEntity = root;
+                }
+            }
+        }
+        return root;
+    }
+
+    private AbstractRootEntity createRootEntity() {
+        final Class<? extends AbstractRootEntity> rootEntityClass = oidRegistry.getRootEntityClass();
+        try {
+            log.debug("instantiating entity type:{}", rootEntityClass);
+            final AbstractRootEntity root = DeviceEntityFactory.newInstance(rootEntityClass);
+            root.setDeviceAddress(deviceAddress);
+            return root;
+        } catch (final Exception e) {
+            log.debug("Failed to create root entity:", e);
+            log.error("Failed to create root entity:{} {}", rootEntityClass, e.getMessage());
+            return null;
+        }
+    }
+
+    // Instantiates an object of a given class.
+    private DeviceEntity instantiateObject(final Class<? extends DeviceEntity> clazz) {
+        try {
+            return DeviceEntityFactory.newInstance(clazz);
+        } catch (final ReflectiveOperationException e) {
+            log.warn("Failed to instantiate object of type {} {}", clazz, e.getMessage());
+            log.debug("Failed to instantiate object of type {}:", clazz, e);
+            return null;
+        }
+    }
+}
@@ -13,7 +13,6 @@
  */
 package com.btisystems.pronx.ems.core.model;
 
-import com.btisystems.pronx.ems.core.exception.FieldAccessMethodException;
 import com.btisystems.pronx.ems.core.exception.InvalidFieldNameException;
 import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
 import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldType;
@@ -24,10 +23,12 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.IOException;
 import java.io.Serializable;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -51,11 +52,21 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
      */
     public static final String COLON = ":";
     private static final Logger LOG = LoggerFactory.getLogger(DeviceEntity.class);
-    private transient Set<PropertyChangeListener> changeListeners = new HashSet<>();
+    // Created when the first listener is added, and discarded when the last is removed.
+    private transient Set<PropertyChangeListener> changeListeners;
+
+    // The event bus of the root entity to which this entity is attached.
+    private transient EntityEventBus eventBus;
+
+    // The number of changes of value notified by this entity.
+    private transient long changeCount;
+
+    // The last poll in which this entity was populated, when it is a table entry.
+    private transient long lastPoll;
 
     private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
-        changeListeners = new HashSet<>();
+        changeListeners = null;
     }
     
     /**
@@ -93,7 +104,7 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
     }
 
     private void addEntity(final FieldDescription field, final Collection<DeviceEntity> children) {
-        final Object obj = invokeGetter(field.getName());
+        final Object obj = invokeGetter(getAccessors().getGetter(this, field.getName()), field.getName());
         if (obj instanceof DeviceEntity) {
             children.add((DeviceEntity) obj);
         }
@@ -105,7 +116,10 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
      * @param child the child
      */
     protected void addChild(final IDeviceEntity child) {
-        for (final PropertyChangeListener listener : changeListeners) {
+        if (eventBus != null && child instanceof DeviceEntity) {
+            ((DeviceEntity) child)._setEventBus(eventBus);
+        }
+        for (final PropertyChangeListener listener : _getChangeListeners()) {
             child.addPropertyChangeListener(listener);
         }
     }
@@ -116,7 +130,7 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
      * @param child the child
      */
     protected void removeChild(final DeviceEntity child) {
-        for (final PropertyChangeListener listener : changeListeners) {
+        for (final PropertyChangeListener listener : _getChangeListeners()) {
             child.removePropertyChangeListener(listener);
         }
     }
@@ -138,15 +152,43 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
     }
 
     /**
-     * Notify change.
+     * Notify change. The change is published on the event bus of the root entity, if
+     * it has subscribers, and delivered to the listeners of this entity. An
+     * {@link IFieldChangeListener} is told of the field id directly, and only
+     * if the value has changed; other listeners share a single event.
      *
      * @param fieldId  the field id
      * @param oldValue the old value
      * @param newValue the new value
      */
     protected void notifyChange(final int fieldId, final Object oldValue, final Object newValue) {
-        for (final PropertyChangeListener listener : changeListeners) {
-            listener.propertyChange(new PropertyChangeEvent(this, EMPTY_STRING + Integer.toString(fieldId), oldValue, newValue));
+        final boolean changed = !Objects.equals(oldValue, newValue);
+        if (changed) {
+            changeCount++;
+        }
+
+        final EntityEventBus bus = eventBus;
+        if (bus != null && bus.hasSubscribers()) {
+            bus.publish(this, fieldId, oldValue, newValue);
+        }
+
+        final Set<PropertyChangeListener> listeners = changeListeners;
+        if (listeners == null) {
+            return;
+        }
+
+        PropertyChangeEvent event = null;
+        for (final PropertyChangeListener listener : listeners) {
+            if (listener instanceof IFieldChangeListener) {
+                if (changed) {
+                    ((IFieldChangeListener) listener).fieldChanged(this, fieldId);
+                }
+            } else {
+                if (event == null) {
+                    event = new PropertyChangeEvent(this, Integer.toString(fieldId), oldValue, newValue);
+                }
+                listener.propertyChange(event);
+            }
         }
     }
 
@@ -203,7 +245,7 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
 
     @Override
     public String toString() {
-        return "DeviceEntity{" + "changeListeners=" + changeListeners + ", get_Description()=" + get_Description() + '}';
+        return "DeviceEntity{" + "changeListeners=" + _getChangeListeners() + ", get_Description()=" + get_Description() + '}';
     }
 
     @Override
@@ -211,36 +253,149 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
 
     @Override
     public String getString(final String fieldName) {
-        return (String) invokeGetter(fieldName);
+        return (String) invokeGetter(getAccessors().getGetter(this, fieldName), fieldName);
     }
 
     @Override
     public int getInt(final String fieldName) {
-        return (Integer) invokeGetter(fieldName);
+        final MethodHandle getter = getAccessors().getGetter(this, fieldName);
+        try {
+            return (int) getter.invoke(this);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, fieldName, e);
+        }
     }
 
     @Override
     public long getLong(final String fieldName) {
-        return (Long) invokeGetter(fieldName);
+        final MethodHandle getter = getAccessors().getGetter(this, fieldName);
+        try {
+            return (long) getter.invoke(this);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, fieldName, e);
+        }
     }
 
     @Override
     public void set(final String fieldName, final String value) {
-        invokeSetter(fieldName, value, String.class);
+        final MethodHandle setter = getAccessors().getSetter(this, fieldName, String.class);
+        try {
+            setter.invoke(this, value);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, fieldName, e);
+        }
     }
 
     @Override
     public void set(final String fieldName, final int value) {
-        invokeSetter(fieldName, value, int.class);
+        final MethodHandle setter = getAccessors().getSetter(this, fieldName, int.class);
+        try {
+            setter.invoke(this, value);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, fieldName, e);
+        }
     }
 
     @Override
     public void set(final String fieldName, final long value) {
-        invokeSetter(fieldName, value, long.class);
+        final MethodHandle setter = getAccessors().getSetter(this, fieldName, long.class);
+        try {
+            setter.invoke(this, value);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, fieldName, e);
+        }
+    }
+
+    /**
+     * Gets the value of a string field.
+     *
+     * @param fieldId the id of the field in the entity's description
+     * @return the value
+     */
+    public String getString(final int fieldId) {
+        return (String) invokeGetter(getAccessors().getGetter(this, fieldId), Integer.toString(fieldId));
+    }
+
+    /**
+     * Gets the value of an int field.
+     *
+     * @param fieldId the id of the field in the entity's description
+     * @return the value
+     */
+    public int getInt(final int fieldId) {
+        final MethodHandle getter = getAccessors().getGetter(this, fieldId);
+        try {
+            return (int) getter.invoke(this);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, Integer.toString(fieldId), e);
+        }
+    }
+
+    /**
+     * Gets the value of a long field.
+     *
+     * @param fieldId the id of the field in the entity's description
+     * @return the value
+     */
+    public long getLong(final int fieldId) {
+        final MethodHandle getter = getAccessors().getGetter(this, fieldId);
+        try {
+            return (long) getter.invoke(this);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, Integer.toString(fieldId), e);
+        }
+    }
+
+    /**
+     * Sets the value of a string field.
+     *
+     * @param fieldId the id of the field in the entity's description
+     * @param value   the value
+     */
+    public void set(final int fieldId, final String value) {
+        final MethodHandle setter = getAccessors().getSetter(this, fieldId, String.class);
+        try {
+            setter.invoke(this, value);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, Integer.toString(fieldId), e);
+        }
+    }
+
+    /**
+     * Sets the value of an int field.
+     *
+     * @param fieldId the id of the field in the entity's description
+     * @param value   the value
+     */
+    public void set(final int fieldId, final int value) {
+        final MethodHandle setter = getAccessors().getSetter(this, fieldId, int.class);
+        try {
+            setter.invoke(this, value);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, Integer.toString(fieldId), e);
+        }
+    }
+
+    /**
+     * Sets the value of a long field.
+     *
+     * @param fieldId the id of the field in the entity's description
+     * @param value   the value
+     */
+    public void set(final int fieldId, final long value) {
+        final MethodHandle setter = getAccessors().getSetter(this, fieldId, long.class);
+        try {
+            setter.invoke(this, value);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, Integer.toString(fieldId), e);
+        }
     }
 
     @Override
     public void addPropertyChangeListener(final PropertyChangeListener listener) {
+        if (changeListeners == null) {
+            changeListeners = new HashSet<>();
+        }
         changeListeners.add(listener);
         for (final DeviceEntity child : getChildren()) {
             child.addPropertyChangeListener(listener);
@@ -249,7 +404,12 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
 
     @Override
     public void removePropertyChangeListener(final PropertyChangeListener listener) {
-        changeListeners.remove(listener);
+        if (changeListeners != null) {
+            changeListeners.remove(listener);
+            if (changeListeners.isEmpty()) {
+                changeListeners = null;
+            }
+        }
         for (final DeviceEntity child : getChildren()) {
             child.removePropertyChangeListener(listener);
         }
@@ -257,7 +417,7 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
 
     @Override
     public void clearPropertyChangeListeners() {
-        changeListeners.clear();
+        changeListeners = null;
         for (final DeviceEntity child : getChildren()) {
             child.clearPropertyChangeListeners();
         }
@@ -274,17 +434,15 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
         return description.getFieldByName(fieldName) != null;
     }
 
-    @SuppressWarnings("unchecked")
-    private void invokeSetter(final String fieldName, final Object value, final Class type) {
+    private EntityAccessors getAccessors() {
+        return EntityAccessors.forClass(getClass());
+    }
+
+    private Object invokeGetter(final MethodHandle getter, final String fieldName) {
         try {
-            final Method method = this.getClass().getMethod(getSetterName(fieldName), type);
-            method.invoke(this, value);
-        } catch (final NoSuchMethodException e) {
-            LOG.warn("Exception on getMethod", e);
-            throw new InvalidFieldNameException(this, fieldName);
-        } catch (final Exception e) {
-            LOG.warn("Exception on set", e);
-            throw new FieldAccessMethodException(this, fieldName, e.getMessage());
+            return getter.invoke(this);
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(this, fieldName, e);
         }
     }
 
@@ -299,19 +457,6 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
         return "set" + capitalizeFirstCharacter(field);
     }
 
-    private Object invokeGetter(final String fieldName) {
-        try {
-            final Method method = this.getClass().getMethod(getGetterName(fieldName));
-            return method.invoke(this, (Object[]) null);
-        } catch (final NoSuchMethodException e) {
-            LOG.warn("Exception on getMethod", e);
-            throw new InvalidFieldNameException(this, fieldName);
-        } catch (final Exception e) {
-            LOG.warn("Exception on get", e);
-            throw new FieldAccessMethodException(this, fieldName, e.getMessage());
-        }
-    }
-
     /**
      * Gets getter name.
      *
@@ -331,13 +476,74 @@ public abstract class DeviceEntity implements IDeviceEntity, Serializable {
         return sb.toString();
     }
 
+    /**
+     * Sets the event bus on which this entity and its children publish their changes.
+     *
+     * @param bus the event bus of the root entity
+     */
+    void _setEventBus(final EntityEventBus bus) {
+        if (eventBus != bus) {
+            eventBus = bus;
+            for (final DeviceEntity child : getChildren()) {
+                child._setEventBus(bus);
+            }
+        }
+    }
+
+    /**
+     * Sets the event bus of a newly created entity, such as a table entry added by a poll,
+     * without visiting its children; a new entity has none yet.
+     *
+     * @param bus the event bus of the root entity
+     */
+    void _setNewEntityEventBus(final EntityEventBus bus) {
+        eventBus = bus;
+    }
+
+    /**
+     * Gets the event bus on which this entity publishes its changes.
+     *
+     * @return the event bus, or <code>null</code> if the entity is not attached to a root entity
+     */
+    EntityEventBus _getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Gets the number of changes of value notified by this entity, which serves as a
+     * version of its fields.
+     *
+     * @return the change count
+     */
+    long _getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Gets the last poll in which this entity was populated.
+     *
+     * @return the number of the poll
+     */
+    long _getLastPoll() {
+        return lastPoll;
+    }
+
+    /**
+     * Records the poll in which this entity was populated.
+     *
+     * @param poll the number of the poll
+     */
+    void _setLastPoll(final long poll) {
+        lastPoll = poll;
+    }
+
     /**
      * Get change listeners set.
      *
      * @return the set
      */
     Set<PropertyChangeListener> _getChangeListeners() {
-        return changeListeners;
+        return (changeListeners == null) ? Collections.<PropertyChangeListener>emptySet() : changeListeners;
     }
     
     
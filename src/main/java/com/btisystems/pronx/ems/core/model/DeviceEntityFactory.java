@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Instantiates entities through their public no-argument constructors.
+ * <p/>
+ * The constructor of each class is resolved to a {@link MethodHandle} the first time the
+ * class is instantiated and cached against the class, so that later instantiations pay
+ * neither the reflective lookup nor the access checks of {@link Class#newInstance()}.
+ */
+final class DeviceEntityFactory {
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(void.class);
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class);
+
+    private static final ClassValue<Constructor> CONSTRUCTORS = new ClassValue<Constructor>() {
+        @Override
+        protected Constructor computeValue(final Class<?> type) {
+            return new Constructor(type);
+        }
+    };
+
+    private DeviceEntityFactory() {
+    }
+
+    /**
+     * Instantiates an object of a given class.
+     *
+     * @param <T>   the type of the object
+     * @param clazz the class of the object, which must have a public no-argument constructor
+     * @return the new object
+     * @throws ReflectiveOperationException if the class cannot be instantiated, or its constructor fails
+     */
+    static <T> T newInstance(final Class<T> clazz) throws ReflectiveOperationException {
+        return clazz.cast(CONSTRUCTORS.get(clazz).newInstance());
+    }
+
+    /**
+     * The cached constructor of a class, or the reason it cannot be used.
+     */
+    private static final class Constructor {
+
+        private final Class<?> type;
+        private final MethodHandle handle;
+        private final ReflectiveOperationException failure;
+
+        private Constructor(final Class<?> type) {
+            this.type = type;
+            MethodHandle constructor = null;
+            ReflectiveOperationException reason = null;
+            try {
+                constructor = MethodHandles.lookup().findConstructor(type, CONSTRUCTOR_TYPE).asType(FACTORY_TYPE);
+            } catch (final NoSuchMethodException | IllegalAccessException e) {
+                reason = e;
+            }
+            this.handle = constructor;
+            this.failure = reason;
+        }
+
+        private Object newInstance() throws ReflectiveOperationException {
+            if (handle == null) {
+                final InstantiationException e = new InstantiationException(type.getName());
+                e.initCause(failure);
+                throw e;
+            }
+            try {
+                return (Object) handle.invokeExact();
+            } catch (final RuntimeException | Error e) {
+                throw e;
+            } catch (final Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable version of the entities of a device, published by a {@link SnapshotPublisher}.
+ * <p/>
+ * The entities of a snapshot are copies of the live entities, which are read through
+ * {@link EntityView}s and never handed out, so nothing can change them once published.
+ * Entities that did not change between two snapshots are shared by both.
+ */
+public final class DeviceSnapshot {
+
+    private final AbstractRootEntity rootEntity;
+    private final long generation;
+    private final long timestamp;
+
+    /**
+     * Instantiates a new device snapshot.
+     *
+     * @param rootEntity the copy of the root entity
+     * @param generation the number of the snapshot, starting from 1 for the first one published
+     * @param timestamp  the time at which the snapshot was published, in milliseconds
+     */
+    DeviceSnapshot(final AbstractRootEntity rootEntity, final long generation, final long timestamp) {
+        this.rootEntity = rootEntity;
+        this.generation = generation;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets root entity.
+     *
+     * @return the copy of the root entity, which must not be changed
+     */
+    AbstractRootEntity getRootEntity() {
+        return rootEntity;
+    }
+
+    /**
+     * Gets device address.
+     *
+     * @return the address of the device
+     */
+    public String getDeviceAddress() {
+        return rootEntity.getDeviceAddress();
+    }
+
+    /**
+     * Gets roots.
+     *
+     * @return views of the entities held by the root entity, which cannot be changed
+     */
+    public List<EntityView> getRoots() {
+        final List<EntityView> roots = new ArrayList<>();
+        for (final DeviceEntity root : rootEntity.getRoots()) {
+            if (root != null) {
+                roots.add(new EntityView(root));
+            }
+        }
+        return Collections.unmodifiableList(roots);
+    }
+
+    /**
+     * Gets the entity of a class held by the root entity.
+     *
+     * @param type the class of the entity
+     * @return a view of the entity, or <code>null</code> if there is none
+     */
+    public EntityView getRoot(final Class<? extends DeviceEntity> type) {
+        for (final DeviceEntity root : rootEntity.getRoots()) {
+            if (type.isInstance(root)) {
+                return new EntityView(root);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets generation.
+     *
+     * @return the number of the snapshot, starting from 1 for the first one published
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets timestamp.
+     *
+     * @return the time at which the snapshot was published, in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceSnapshot{generation=" + generation + ", timestamp=" + timestamp + '}';
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import com.btisystems.pronx.ems.core.exception.FieldAccessMethodException;
+import com.btisystems.pronx.ems.core.exception.InvalidFieldNameException;
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * The accessor methods of an entity class, resolved to {@link MethodHandle}s.
+ * <p/>
+ * Each accessor is resolved the first time it is used, through the accessor names delivered
+ * by the entity, and is then held against both the field name and the field id of the
+ * {@link DeviceEntityDescription}, so that later accesses need neither build the method
+ * name nor look the method up. Field names with no accessor are remembered too.
+ */
+final class EntityAccessors {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EntityAccessors.class);
+
+    // Marks a field name for which there is no accessor.
+    private static final MethodHandle MISSING = MethodHandles.identity(Object.class);
+
+    // Field ids are OID sub-identifiers, and are normally small enough to index an array.
+    private static final int MAXIMUM_INDEXED_ID = 1024;
+
+    private static final ClassValue<EntityAccessors> ACCESSORS = new ClassValue<EntityAccessors>() {
+        @Override
+        protected EntityAccessors computeValue(final Class<?> type) {
+            return new EntityAccessors(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final ConcurrentMap<String, MethodHandle> gettersByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ConcurrentMap<String, MethodHandle>> settersByName = new ConcurrentHashMap<>();
+    private final HandlesById gettersById = new HandlesById();
+    private final ConcurrentMap<Class<?>, HandlesById> settersById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, MethodHandle> gettersByEntityClass = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, MethodHandle> settersByEntityClass = new ConcurrentHashMap<>();
+
+    private EntityAccessors(final Class<?> type) {
+        this.type = type;
+    }
+
+    /**
+     * Delivers the accessors of an entity class.
+     *
+     * @param type the entity class
+     * @return the accessors of the class
+     */
+    static EntityAccessors forClass(final Class<?> type) {
+        return ACCESSORS.get(type);
+    }
+
+    /**
+     * Gets the getter of a field.
+     *
+     * @param entity    the entity, used to name the getter
+     * @param fieldName the field name
+     * @return the getter, taking the entity as its only argument
+     * @throws InvalidFieldNameException  if the entity has no getter for the field
+     * @throws FieldAccessMethodException if the getter cannot be resolved
+     */
+    MethodHandle getGetter(final DeviceEntity entity, final String fieldName) {
+        MethodHandle getter = gettersByName.get(fieldName);
+        if (getter == null) {
+            getter = findGetter(entity, fieldName);
+            gettersByName.putIfAbsent(fieldName, getter);
+        }
+        return checkFound(getter, entity, fieldName);
+    }
+
+    /**
+     * Indicates whether there is a getter for a field.
+     *
+     * @param entity    the entity, used to name the getter
+     * @param fieldName the field name
+     * @return true if the entity has a getter for the field
+     */
+    boolean hasGetter(final DeviceEntity entity, final String fieldName) {
+        MethodHandle getter = gettersByName.get(fieldName);
+        if (getter == null) {
+            getter = findGetter(entity, fieldName);
+            gettersByName.putIfAbsent(fieldName, getter);
+        }
+        return getter != MISSING;
+    }
+
+    /**
+     * Gets the getter of a field holding a child entity, which is named after the
+     * simple name of the child's class.
+     *
+     * @param entity      the entity, used to name the getter
+     * @param entityClass the class of the child entity
+     * @return the getter, taking the entity as its only argument
+     * @throws InvalidFieldNameException  if the entity has no getter for the child
+     * @throws FieldAccessMethodException if the getter cannot be resolved
+     */
+    MethodHandle getGetter(final DeviceEntity entity, final Class<?> entityClass) {
+        MethodHandle getter = gettersByEntityClass.get(entityClass);
+        if (getter == null) {
+            getter = getGetter(entity, entityClass.getSimpleName());
+            gettersByEntityClass.putIfAbsent(entityClass, getter);
+        }
+        return getter;
+    }
+
+    /**
+     * Gets the setter of a field holding a child entity, which is named after the
+     * simple name of the child's class and takes the child's class as its parameter.
+     *
+     * @param entity      the entity, used to name the setter
+     * @param entityClass the class of the child entity
+     * @return the setter, taking the entity and the child as its arguments
+     * @throws InvalidFieldNameException  if the entity has no setter for the child
+     * @throws FieldAccessMethodException if the setter cannot be resolved
+     */
+    MethodHandle getSetter(final DeviceEntity entity, final Class<?> entityClass) {
+        MethodHandle setter = settersByEntityClass.get(entityClass);
+        if (setter == null) {
+            setter = getSetter(entity, entityClass.getSimpleName(), entityClass);
+            settersByEntityClass.putIfAbsent(entityClass, setter);
+        }
+        return setter;
+    }
+
+    /**
+     * Gets the getter of a field.
+     *
+     * @param entity  the entity, used to name the getter
+     * @param fieldId the id of the field in the entity's description
+     * @return the getter, taking the entity as its only argument
+     * @throws InvalidFieldNameException  if the entity has no such field, or no getter for it
+     * @throws FieldAccessMethodException if the getter cannot be resolved
+     */
+    MethodHandle getGetter(final DeviceEntity entity, final int fieldId) {
+        MethodHandle getter = gettersById.get(fieldId);
+        if (getter == null) {
+            getter = getGetter(entity, getFieldName(entity, fieldId));
+            gettersById.put(fieldId, getter);
+        }
+        return getter;
+    }
+
+    /**
+     * Gets the setter of a field.
+     *
+     * @param entity    the entity, used to name the setter
+     * @param fieldName the field name
+     * @param valueType the type of the setter's parameter
+     * @return the setter, taking the entity and the value as its arguments
+     * @throws InvalidFieldNameException  if the entity has no setter for the field
+     * @throws FieldAccessMethodException if the setter cannot be resolved
+     */
+    MethodHandle getSetter(final DeviceEntity entity, final String fieldName, final Class<?> valueType) {
+        ConcurrentMap<String, MethodHandle> setters = settersByName.get(valueType);
+        if (setters == null) {
+            settersByName.putIfAbsent(valueType, new ConcurrentHashMap<String, MethodHandle>());
+            setters = settersByName.get(valueType);
+        }
+
+        MethodHandle setter = setters.get(fieldName);
+        if (setter == null) {
+            setter = findSetter(entity, fieldName, valueType);
+            setters.putIfAbsent(fieldName, setter);
+        }
+        return checkFound(setter, entity, fieldName);
+    }
+
+    /**
+     * Gets the setter of a field.
+     *
+     * @param entity    the entity, used to name the setter
+     * @param fieldId   the id of the field in the entity's description
+     * @param valueType the type of the setter's parameter
+     * @return the setter, taking the entity and the value as its arguments
+     * @throws InvalidFieldNameException  if the entity has no such field, or no setter for it
+     * @throws FieldAccessMethodException if the setter cannot be resolved
+     */
+    MethodHandle getSetter(final DeviceEntity entity, final int fieldId, final Class<?> valueType) {
+        HandlesById setters = settersById.get(valueType);
+        if (setters == null) {
+            settersById.putIfAbsent(valueType, new HandlesById());
+            setters = settersById.get(valueType);
+        }
+
+        MethodHandle setter = setters.get(fieldId);
+        if (setter == null) {
+            setter = getSetter(entity, getFieldName(entity, fieldId), valueType);
+            setters.put(fieldId, setter);
+        }
+        return setter;
+    }
+
+    private MethodHandle findGetter(final DeviceEntity entity, final String fieldName) {
+        try {
+            return MethodHandles.lookup().unreflect(type.getMethod(entity.getGetterName(fieldName)));
+        } catch (final NoSuchMethodException e) {
+            LOG.warn("Exception on getMethod", e);
+            return MISSING;
+        } catch (final Exception e) {
+            LOG.warn("Exception on get", e);
+            throw new FieldAccessMethodException(entity, fieldName, e.getMessage());
+        }
+    }
+
+    private MethodHandle findSetter(final DeviceEntity entity, final String fieldName, final Class<?> valueType) {
+        try {
+            return MethodHandles.lookup().unreflect(type.getMethod(entity.getSetterName(fieldName), valueType));
+        } catch (final NoSuchMethodException e) {
+            LOG.warn("Exception on getMethod", e);
+            return MISSING;
+        } catch (final Exception e) {
+            LOG.warn("Exception on set", e);
+            throw new FieldAccessMethodException(entity, fieldName, e.getMessage());
+        }
+    }
+
+    private static MethodHandle checkFound(final MethodHandle accessor, final DeviceEntity entity, final String fieldName) {
+        if (accessor == MISSING) {
+            throw new InvalidFieldNameException(entity, fieldName);
+        }
+        return accessor;
+    }
+
+    private static String getFieldName(final DeviceEntity entity, final int fieldId) {
+        final DeviceEntityDescription description = entity.get_Description();
+        final FieldDescription field = (description == null) ? null : description.getFieldById(fieldId);
+        if (field == null) {
+            throw new InvalidFieldNameException(entity, Integer.toString(fieldId));
+        }
+        return field.getName();
+    }
+
+    /**
+     * Delivers the exception to be thrown when an accessor fails, rethrowing errors.
+     *
+     * @param entity    the entity accessed
+     * @param fieldName the name or id of the field accessed
+     * @param e         the failure
+     * @return the exception
+     */
+    static FieldAccessMethodException accessFailure(final DeviceEntity entity, final String fieldName, final Throwable e) {
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e instanceof FieldAccessMethodException) {
+            return (FieldAccessMethodException) e;
+        }
+        LOG.warn("Exception on access to {} of {}", fieldName, entity.getClass().getName(), e);
+        return new FieldAccessMethodException(entity, fieldName, e.getMessage());
+    }
+
+    /**
+     * How the entities of a class are handled, built from the description of the first
+     * entity of the class that needs it, since descriptions are delivered by instances.
+     */
+    abstract static class EntityPlan {
+
+        private volatile boolean resolved;
+
+        final void resolve(final DeviceEntity entity) {
+            if (resolved) {
+                return;
+            }
+            synchronized (this) {
+                if (!resolved) {
+                    build(entity);
+                    resolved = true;
+                }
+            }
+        }
+
+        /**
+         * Builds the plan.
+         *
+         * @param entity the first entity of the class
+         */
+        abstract void build(DeviceEntity entity);
+    }
+
+    /**
+     * The plans of one kind for each entity class.
+     *
+     * @param <P> the type of plan
+     */
+    static final class EntityPlans<P extends EntityPlan> {
+
+        private final ClassValue<P> plans;
+
+        /**
+         * Instantiates new plans.
+         *
+         * @param factory creates the plan of a class, which is built when first used
+         */
+        EntityPlans(final Supplier<P> factory) {
+            plans = new ClassValue<P>() {
+                @Override
+                protected P computeValue(final Class<?> type) {
+                    return factory.get();
+                }
+            };
+        }
+
+        /**
+         * Gets the plan of the class of an entity.
+         *
+         * @param entity the entity
+         * @return the plan, built from the entity if it is the first of its class
+         */
+        P get(final DeviceEntity entity) {
+            final P plan = plans.get(entity.getClass());
+            plan.resolve(entity);
+            return plan;
+        }
+    }
+
+    /**
+     * Accessors indexed by field id, copied on write so that reads need no locking.
+     */
+    private static final class HandlesById {
+
+        private volatile MethodHandle[] handles = new MethodHandle[0];
+
+        private MethodHandle get(final int id) {
+            final MethodHandle[] current = handles;
+            return (id >= 0 && id < current.length) ? current[id] : null;
+        }
+
+        private synchronized void put(final int id, final MethodHandle handle) {
+            if (id < 0 || id >= MAXIMUM_INDEXED_ID) {
+                return;
+            }
+            final MethodHandle[] updated = Arrays.copyOf(handles, Math.max(handles.length, id + 1));
+            updated[id] = handle;
+            handles = updated;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects the changes to a tree of entities and delivers them in batches, as one
+ * {@link EntityChangeEvent} per changed entity.
+ * <p/>
+ * The collector is attached like any other listener, with
+ * {@link DeviceEntity#addPropertyChangeListener(PropertyChangeListener)}, which also
+ * attaches it to the children of the entity. Entities tell the collector of each changed
+ * field id directly, without creating a {@link PropertyChangeEvent}. The changes are
+ * delivered to the {@link IEntityChangeListener}s when the collector is flushed, typically
+ * when a walk of the device completes. The collector may instead subscribe to the
+ * {@link EntityEventBus} of the root entity.
+ */
+public class EntityChangeCollector implements IFieldChangeListener, IEntityEventListener {
+
+    private final List<IEntityChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<DeviceEntity, BitSet> changes = new IdentityHashMap<>();
+    private final List<DeviceEntity> changedEntities = new ArrayList<>();
+
+    /**
+     * Add entity change listener.
+     *
+     * @param listener the listener
+     */
+    public void addEntityChangeListener(final IEntityChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove entity change listener.
+     *
+     * @param listener the listener
+     */
+    public void removeEntityChangeListener(final IEntityChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Records a change to a field of an entity.
+     *
+     * @param entity  the entity
+     * @param fieldId the id of the field
+     */
+    @Override
+    public synchronized void fieldChanged(final DeviceEntity entity, final int fieldId) {
+        BitSet fields = changes.get(entity);
+        if (fields == null) {
+            fields = new BitSet();
+            changes.put(entity, fields);
+            changedEntities.add(entity);
+        }
+        fields.set(fieldId);
+    }
+
+    /**
+     * Records a change notified by an event, whose property name is the field id.
+     *
+     * @param evt the event
+     */
+    @Override
+    public void propertyChange(final PropertyChangeEvent evt) {
+        if (evt.getSource() instanceof DeviceEntity) {
+            try {
+                fieldChanged((DeviceEntity) evt.getSource(), Integer.parseInt(evt.getPropertyName()));
+            } catch (final NumberFormatException e) {
+                // Not a field change.
+            }
+        }
+    }
+
+    /**
+     * Records a change published on an {@link EntityEventBus}, if the value has changed.
+     *
+     * @param entity   the entity
+     * @param fieldId  the id of the field
+     * @param oldValue the old value
+     * @param newValue the new value
+     */
+    @Override
+    public void entityChanged(final DeviceEntity entity, final int fieldId, final Object oldValue, final Object newValue) {
+        if (!Objects.equals(oldValue, newValue)) {
+            fieldChanged(entity, fieldId);
+        }
+    }
+
+    /**
+     * Indicates whether changes have been recorded since the last flush.
+     *
+     * @return true if there are no changes
+     */
+    public synchronized boolean isEmpty() {
+        return changedEntities.isEmpty();
+    }
+
+    /**
+     * Delivers the changes recorded since the last flush to the listeners, in the order
+     * in which the entities first changed, and forgets them.
+     *
+     * @return the delivered events
+     */
+    public List<EntityChangeEvent> flush() {
+        final List<EntityChangeEvent> events;
+        synchronized (this) {
+            events = new ArrayList<>(changedEntities.size());
+            for (final DeviceEntity entity : changedEntities) {
+                events.add(new EntityChangeEvent(entity, changes.get(entity).stream().toArray()));
+            }
+            changes.clear();
+            changedEntities.clear();
+        }
+
+        for (final EntityChangeEvent event : events) {
+            for (final IEntityChangeListener listener : listeners) {
+                listener.entityChanged(event);
+            }
+        }
+        return events;
+    }
+}
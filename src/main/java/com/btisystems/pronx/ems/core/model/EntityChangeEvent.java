@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.util.Arrays;
+
+/**
+ * The fields of an entity that changed during a batch of updates.
+ */
+public class EntityChangeEvent {
+
+    private final DeviceEntity entity;
+    private final int[] fieldIds;
+
+    /**
+     * Instantiates a new entity change event.
+     *
+     * @param entity   the entity that changed
+     * @param fieldIds the ids of the fields that changed, in ascending order
+     */
+    public EntityChangeEvent(final DeviceEntity entity, final int[] fieldIds) {
+        this.entity = entity;
+        this.fieldIds = fieldIds;
+    }
+
+    /**
+     * Gets entity.
+     *
+     * @return the entity that changed
+     */
+    public DeviceEntity getEntity() {
+        return entity;
+    }
+
+    /**
+     * Gets field ids.
+     *
+     * @return the ids of the fields that changed, in ascending order
+     */
+    public int[] getFieldIds() {
+        return fieldIds.clone();
+    }
+
+    /**
+     * Indicates whether a field changed.
+     *
+     * @param fieldId the id of the field
+     * @return true if the field changed
+     */
+    public boolean isChanged(final int fieldId) {
+        return Arrays.binarySearch(fieldIds, fieldId) >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityChangeEvent{" + "entity=" + entity.getClass().getSimpleName()
+                + ", fieldIds=" + Arrays.toString(fieldIds) + '}';
+    }
+}
@@ -0,0 +1,719 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldType;
+import com.btisystems.pronx.ems.core.model.EntityAccessors.EntityPlan;
+import com.btisystems.pronx.ems.core.model.EntityAccessors.EntityPlans;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.snmp4j.smi.OID;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the entities of a device in a compact binary form, driven by the fields of
+ * each entity's {@link DeviceEntityDescription}, as a faster and smaller alternative to
+ * Java serialization.
+ * <p/>
+ * Each entity is written as the reference of its class and then each field with a value,
+ * tagged by its field id and its wire type: integers as zig-zag varints, strings as a
+ * varint length and UTF-8 bytes, and child entities as nested records. Integers that are
+ * zero and strings and entities that are null are omitted, and a zero tag ends the fields.
+ * The fields are followed by the number of table entries, zero for an entity that is not a
+ * table, each entry with its index. A class name is written only the first time the class
+ * appears in a stream, and the class is loaded only when an entity of the class is decoded.
+ * Fields the decoder does not know, such as those of a newer version of the entity class,
+ * are skipped, along with any entities they hold, whether or not their classes are known.
+ * <p/>
+ * Lengths read are checked before anything is allocated for them. A string may be no longer
+ * than {@link #MAX_BYTES_PER_OCTET} bytes for each octet of the maximum length of its field,
+ * and no string may be longer than the longest SNMP octet string would give.
+ * <p/>
+ * Decoding reads no further than the end of the encoded root entity, so several may be
+ * written to the same stream. The streams should be buffered.
+ */
+public final class EntityCodec {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EntityCodec.class);
+
+    private static final int MAGIC = 0xEC;
+    private static final int VERSION = 2;
+
+    /**
+     * The greatest number of encoded bytes for each octet of an SNMP octet string, which
+     * is given as three characters when the string is shown in hexadecimal.
+     */
+    static final int MAX_BYTES_PER_OCTET = 3;
+
+    private static final int MAX_STRING_LENGTH = MAX_BYTES_PER_OCTET * 65535;
+    private static final int MAX_INDEX_LENGTH = 128;
+
+    private static final int END_OF_FIELDS = 0;
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_BYTES = 1;
+    private static final int WIRE_ENTITY = 2;
+    private static final int WIRE_BITS = 2;
+
+    private static final int KEY_STRING = 0;
+    private static final int KEY_INDEX = 1;
+
+    private static final EntityPlans<CodecPlan> CODEC_PLANS = new EntityPlans<>(CodecPlan::new);
+
+    private EntityCodec() {
+    }
+
+    /**
+     * Encodes a root entity and all entities attached to it.
+     *
+     * @param rootEntity the root entity
+     * @param out        the stream to which the entities are written
+     * @throws IOException if the stream cannot be written
+     */
+    public static void encode(final AbstractRootEntity rootEntity, final OutputStream out) throws IOException {
+        final Encoder encoder = new Encoder(out);
+        encoder.writeHeader();
+        encoder.writeClass(rootEntity.getClass());
+        encoder.writeNullableString(rootEntity.getDeviceAddress());
+        final List<DeviceEntity> roots = new ArrayList<>();
+        for (final DeviceEntity root : rootEntity.getRoots()) {
+            if (root != null) {
+                roots.add(root);
+            }
+        }
+        encoder.writeVarint(roots.size());
+        for (final DeviceEntity root : roots) {
+            encoder.writeEntity(root);
+        }
+        encoder.flush();
+    }
+
+    /**
+     * Encodes an entity and all entities it contains.
+     *
+     * @param entity the entity
+     * @param out    the stream to which the entities are written
+     * @throws IOException if the stream cannot be written
+     */
+    public static void encode(final DeviceEntity entity, final OutputStream out) throws IOException {
+        final Encoder encoder = new Encoder(out);
+        encoder.writeHeader();
+        encoder.writeEntity(entity);
+        encoder.flush();
+    }
+
+    /**
+     * Decodes a root entity, with the classes of the entities loaded through the
+     * context class loader of the current thread.
+     *
+     * @param in the stream from which the entities are read
+     * @return the root entity
+     * @throws IOException if the stream cannot be read, or does not hold a root entity
+     */
+    public static AbstractRootEntity decodeRoot(final InputStream in) throws IOException {
+        return decodeRoot(in, getDefaultClassLoader());
+    }
+
+    /**
+     * Decodes a root entity.
+     *
+     * @param in          the stream from which the entities are read
+     * @param classLoader the class loader of the entity classes
+     * @return the root entity
+     * @throws IOException if the stream cannot be read, or does not hold a root entity
+     */
+    public static AbstractRootEntity decodeRoot(final InputStream in, final ClassLoader classLoader) throws IOException {
+        final Decoder decoder = new Decoder(in, classLoader);
+        decoder.readHeader();
+        final AbstractRootEntity rootEntity = decoder.newInstance(decoder.readClass(), AbstractRootEntity.class);
+        rootEntity.setDeviceAddress(decoder.readNullableString());
+        final int count = decoder.readLength();
+        for (int i = 0; i < count; i++) {
+            rootEntity.setObject(decoder.readEntity());
+        }
+        return rootEntity;
+    }
+
+    /**
+     * Decodes an entity, with the classes of the entities loaded through the context
+     * class loader of the current thread.
+     *
+     * @param in the stream from which the entities are read
+     * @return the entity
+     * @throws IOException if the stream cannot be read, or does not hold an entity
+     */
+    public static DeviceEntity decodeEntity(final InputStream in) throws IOException {
+        return decodeEntity(in, getDefaultClassLoader());
+    }
+
+    /**
+     * Decodes an entity.
+     *
+     * @param in          the stream from which the entities are read
+     * @param classLoader the class loader of the entity classes
+     * @return the entity
+     * @throws IOException if the stream cannot be read, or does not hold an entity
+     */
+    public static DeviceEntity decodeEntity(final InputStream in, final ClassLoader classLoader) throws IOException {
+        final Decoder decoder = new Decoder(in, classLoader);
+        decoder.readHeader();
+        return decoder.readEntity();
+    }
+
+    private static ClassLoader getDefaultClassLoader() {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return (classLoader == null) ? EntityCodec.class.getClassLoader() : classLoader;
+    }
+
+    /**
+     * Writes entities to a stream, through a buffer.
+     */
+    private static final class Encoder {
+
+        private final OutputStream out;
+        private final Map<Class<?>, Integer> classes = new HashMap<>();
+        private final byte[] buffer = new byte[8192];
+        private int position;
+
+        private Encoder(final OutputStream out) {
+            this.out = out;
+        }
+
+        private void writeHeader() throws IOException {
+            writeByte(MAGIC);
+            writeByte(VERSION);
+        }
+
+        private void writeClass(final Class<?> type) throws IOException {
+            final Integer reference = classes.get(type);
+            if (reference != null) {
+                writeVarint(reference);
+            } else {
+                writeVarint(classes.size());
+                classes.put(type, classes.size());
+                writeString(type.getName());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void writeEntity(final DeviceEntity entity) throws IOException {
+            final CodecPlan plan = CODEC_PLANS.get(entity);
+            writeClass(entity.getClass());
+
+            for (int i = 0; i < plan.fieldIds.length; i++) {
+                writeField(plan, entity, i);
+            }
+            writeVarint(END_OF_FIELDS);
+
+            if (plan.keyedTable) {
+                final Map<IndexKey, DeviceEntity> entries = ((IKeyedTableAccess<DeviceEntity>) entity).getKeyedEntries();
+                writeVarint(entries.size());
+                for (final Map.Entry<IndexKey, DeviceEntity> entry : entries.entrySet()) {
+                    writeIndexKey(entry.getKey());
+                    writeEntity(entry.getValue());
+                }
+            } else if (plan.table) {
+                final Map<String, DeviceEntity> entries = ((ITableAccess<DeviceEntity>) entity).getEntries();
+                writeVarint(entries.size());
+                for (final Map.Entry<String, DeviceEntity> entry : entries.entrySet()) {
+                    writeByte(KEY_STRING);
+                    writeString(entry.getKey());
+                    writeEntity(entry.getValue());
+                }
+            } else {
+                writeVarint(0);
+            }
+        }
+
+        private void writeField(final CodecPlan plan, final DeviceEntity entity, final int i) throws IOException {
+            final int fieldId = plan.fieldIds[i];
+            final MethodHandle getter = plan.getters[i];
+            try {
+                switch (plan.kinds[i]) {
+                    case INT:
+                        final int intValue = (int) getter.invokeExact(entity);
+                        if (intValue != 0) {
+                            writeTag(fieldId, WIRE_VARINT);
+                            writeVarlong(zigZag(intValue));
+                        }
+                        break;
+                    case LONG:
+                        final long longValue = (long) getter.invokeExact(entity);
+                        if (longValue != 0) {
+                            writeTag(fieldId, WIRE_VARINT);
+                            writeVarlong(zigZag(longValue));
+                        }
+                        break;
+                    case STRING:
+                        final String stringValue = (String) (Object) getter.invokeExact(entity);
+                        if (stringValue != null) {
+                            writeTag(fieldId, WIRE_BYTES);
+                            writeString(stringValue);
+                        }
+                        break;
+                    default:
+                        final DeviceEntity child = (DeviceEntity) (Object) getter.invokeExact(entity);
+                        if (child != null) {
+                            writeTag(fieldId, WIRE_ENTITY);
+                            writeEntity(child);
+                        }
+                        break;
+                }
+            } catch (final IOException e) {
+                throw e;
+            } catch (final Throwable e) {
+                throw EntityAccessors.accessFailure(entity, Integer.toString(fieldId), e);
+            }
+        }
+
+        private void writeTag(final int fieldId, final int wireType) throws IOException {
+            writeVarlong(((fieldId + 1L) << WIRE_BITS) | wireType);
+        }
+
+        private void writeIndexKey(final IndexKey key) throws IOException {
+            writeByte(KEY_INDEX);
+            writeVarint(key.size());
+            for (int i = 0; i < key.size(); i++) {
+                writeVarlong(key.get(i) & 0xFFFFFFFFL);
+            }
+        }
+
+        private void writeNullableString(final String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length + 1);
+                writeBytes(bytes);
+            }
+        }
+
+        private void writeString(final String value) throws IOException {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        }
+
+        private void writeVarint(final int value) throws IOException {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarlong(final long value) throws IOException {
+            if (position + 10 > buffer.length) {
+                drain();
+            }
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            buffer[position++] = (byte) remaining;
+        }
+
+        private void writeByte(final int value) throws IOException {
+            if (position == buffer.length) {
+                drain();
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(final byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                drain();
+                if (bytes.length > buffer.length) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void drain() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+
+        private void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+
+        private static long zigZag(final long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    /**
+     * Reads entities from a stream.
+     */
+    private static final class Decoder {
+
+        private final InputStream in;
+        private final ClassLoader classLoader;
+        private final List<String> classNames = new ArrayList<>();
+        private final List<Class<?>> classes = new ArrayList<>();
+
+        private Decoder(final InputStream in, final ClassLoader classLoader) {
+            this.in = in;
+            this.classLoader = classLoader;
+        }
+
+        private void readHeader() throws IOException {
+            if (readByte() != MAGIC) {
+                throw new StreamCorruptedException("Not an encoded entity");
+            }
+            final int version = readByte();
+            if (version != VERSION) {
+                throw new StreamCorruptedException("Unsupported entity encoding version: " + version);
+            }
+        }
+
+        private Class<?> readClass() throws IOException {
+            final int reference = readClassReference();
+            final Class<?> known = classes.get(reference);
+            if (known != null) {
+                return known;
+            }
+
+            final String name = classNames.get(reference);
+            try {
+                final Class<?> type = Class.forName(name, false, classLoader);
+                classes.set(reference, type);
+                return type;
+            } catch (final ClassNotFoundException e) {
+                throw new IOException("Unknown entity class: " + name, e);
+            }
+        }
+
+        // Read a class reference, recording the name of a class appearing for the first time.
+        private int readClassReference() throws IOException {
+            final int reference = readLength();
+            if (reference < classNames.size()) {
+                return reference;
+            }
+            if (reference != classNames.size()) {
+                throw new StreamCorruptedException("Invalid class reference: " + reference);
+            }
+            classNames.add(readString(MAX_STRING_LENGTH));
+            classes.add(null);
+            return reference;
+        }
+
+        private <T> T newInstance(final Class<?> type, final Class<T> expectedType) throws IOException {
+            if (!expectedType.isAssignableFrom(type)) {
+                throw new StreamCorruptedException("Unexpected entity class: " + type.getName());
+            }
+            try {
+                return expectedType.cast(DeviceEntityFactory.newInstance(type));
+            } catch (final ReflectiveOperationException e) {
+                throw new IOException("Failed to instantiate " + type.getName(), e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private DeviceEntity readEntity() throws IOException {
+            final DeviceEntity entity = newInstance(readClass(), DeviceEntity.class);
+            final CodecPlan plan = CODEC_PLANS.get(entity);
+
+            long tag = readVarlong();
+            while (tag != END_OF_FIELDS) {
+                readField(plan, entity, tag);
+                tag = readVarlong();
+            }
+
+            final int entryCount = readLength();
+            if (entryCount > 0 && !plan.table) {
+                throw new StreamCorruptedException("Table entries for " + entity.getClass().getName());
+            }
+            if (plan.table) {
+                for (int i = 0; i < entryCount; i++) {
+                    final Object key = readKey();
+                    final DeviceEntity entry = readEntity();
+                    if (entry instanceof IIndexed) {
+                        setIndex((IIndexed) entry, key);
+                    }
+                    if (plan.keyedTable) {
+                        final IndexKey indexKey = (key instanceof IndexKey) ? (IndexKey) key : IndexKey.parse((String) key);
+                        ((IKeyedTableAccess<DeviceEntity>) entity).setEntry(indexKey, entry);
+                    } else {
+                        ((ITableAccess<DeviceEntity>) entity).setEntry(key.toString(), entry);
+                    }
+                }
+            }
+            return entity;
+        }
+
+        // Skip an entity without loading its class, which the decoder may not have.
+        private void skipEntity() throws IOException {
+            readClassReference();
+            long tag = readVarlong();
+            while (tag != END_OF_FIELDS) {
+                skip((int) (tag & ((1 << WIRE_BITS) - 1)));
+                tag = readVarlong();
+            }
+            final int entryCount = readLength();
+            for (int i = 0; i < entryCount; i++) {
+                readKey();
+                skipEntity();
+            }
+        }
+
+        private Object readKey() throws IOException {
+            final int keyType = readByte();
+            return (keyType == KEY_INDEX) ? readIndexKey() : readString(MAX_STRING_LENGTH);
+        }
+
+        private void setIndex(final IIndexed entry, final Object key) {
+            try {
+                entry._setIndex((key instanceof IndexKey) ? new OID(((IndexKey) key).toIntArray()) : new OID((String) key));
+            } catch (final RuntimeException e) {
+                LOG.debug("Index {} of {} not set: {}", key, entry.getClass().getName(), e.getMessage());
+            }
+        }
+
+        private void readField(final CodecPlan plan, final DeviceEntity entity, final long tag) throws IOException {
+            final int fieldId = (int) ((tag >>> WIRE_BITS) - 1);
+            final int wireType = (int) (tag & ((1 << WIRE_BITS) - 1));
+            final int i = Arrays.binarySearch(plan.fieldIds, fieldId);
+            if (i < 0) {
+                skip(wireType);
+                return;
+            }
+
+            final MethodHandle setter = plan.setters[i];
+            try {
+                switch (plan.kinds[i]) {
+                    case INT:
+                        checkWireType(wireType, WIRE_VARINT, fieldId);
+                        setter.invokeExact(entity, (int) unZigZag(readVarlong()));
+                        break;
+                    case LONG:
+                        checkWireType(wireType, WIRE_VARINT, fieldId);
+                        setter.invokeExact(entity, unZigZag(readVarlong()));
+                        break;
+                    case STRING:
+                        checkWireType(wireType, WIRE_BYTES, fieldId);
+                        setter.invokeExact(entity, (Object) readString(plan.maximumLengths[i]));
+                        break;
+                    default:
+                        checkWireType(wireType, WIRE_ENTITY, fieldId);
+                        setter.invokeExact(entity, (Object) readEntity());
+                        break;
+                }
+            } catch (final IOException e) {
+                throw e;
+            } catch (final Throwable e) {
+                throw EntityAccessors.accessFailure(entity, Integer.toString(fieldId), e);
+            }
+        }
+
+        private static void checkWireType(final int wireType, final int expected, final int fieldId) throws IOException {
+            if (wireType != expected) {
+                throw new StreamCorruptedException("Unexpected wire type " + wireType + " for field " + fieldId);
+            }
+        }
+
+        private void skip(final int wireType) throws IOException {
+            if (wireType == WIRE_VARINT) {
+                readVarlong();
+            } else if (wireType == WIRE_BYTES) {
+                readBytes(readLength(), MAX_STRING_LENGTH);
+            } else if (wireType == WIRE_ENTITY) {
+                skipEntity();
+            } else {
+                throw new StreamCorruptedException("Unknown wire type " + wireType);
+            }
+        }
+
+        private IndexKey readIndexKey() throws IOException {
+            final int length = readLength();
+            if (length > MAX_INDEX_LENGTH) {
+                throw new StreamCorruptedException("Index length " + length + " exceeds " + MAX_INDEX_LENGTH);
+            }
+            final int[] values = new int[length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (int) readVarlong();
+            }
+            return new IndexKey(values, 0, values.length);
+        }
+
+        private String readNullableString() throws IOException {
+            final int length = readLength();
+            return (length == 0) ? null : new String(readBytes(length - 1, MAX_STRING_LENGTH), StandardCharsets.UTF_8);
+        }
+
+        private String readString(final int maximumLength) throws IOException {
+            return new String(readBytes(readLength(), maximumLength), StandardCharsets.UTF_8);
+        }
+
+        private byte[] readBytes(final int length, final int maximumLength) throws IOException {
+            if (length > maximumLength) {
+                throw new StreamCorruptedException("Length " + length + " exceeds " + maximumLength);
+            }
+            final byte[] bytes = new byte[length];
+            int read = 0;
+            while (read < length) {
+                final int count = in.read(bytes, read, length - read);
+                if (count < 0) {
+                    throw new EOFException();
+                }
+                read += count;
+            }
+            return bytes;
+        }
+
+        private int readLength() throws IOException {
+            final long value = readVarlong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new StreamCorruptedException("Invalid length: " + value);
+            }
+            return (int) value;
+        }
+
+        private long readVarlong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed varint");
+        }
+
+        private int readByte() throws IOException {
+            final int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            return b;
+        }
+
+        private static long unZigZag(final long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    /**
+     * The kinds of field value that can be encoded.
+     */
+    private enum Kind {
+        INT, LONG, STRING, ENTITY
+    }
+
+    /**
+     * The fields of the entities of a class that are encoded, in ascending order of
+     * field id, with their accessors, resolved from the entity's description the first
+     * time an entity of the class is encoded or decoded.
+     */
+    private static final class CodecPlan extends EntityPlan {
+
+        private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, DeviceEntity.class);
+
+        private boolean table;
+        private boolean keyedTable;
+        private int[] fieldIds;
+        private int[] maximumLengths;
+        private Kind[] kinds;
+        private MethodHandle[] getters;
+        private MethodHandle[] setters;
+
+        @Override
+        void build(final DeviceEntity entity) {
+            keyedTable = entity instanceof IKeyedTableAccess;
+            table = keyedTable || entity instanceof ITableAccess;
+
+            final List<FieldDescription> fields = new ArrayList<>();
+            final DeviceEntityDescription description = entity.get_Description();
+            if (description != null) {
+                fields.addAll(description.getFields());
+            }
+            fields.sort(Comparator.comparingInt(FieldDescription::getId));
+
+            final EntityAccessors accessors = EntityAccessors.forClass(entity.getClass());
+            final List<Integer> ids = new ArrayList<>();
+            final List<Integer> lengths = new ArrayList<>();
+            final List<Kind> fieldKinds = new ArrayList<>();
+            final List<MethodHandle> fieldGetters = new ArrayList<>();
+            final List<MethodHandle> fieldSetters = new ArrayList<>();
+            for (final FieldDescription field : fields) {
+                if (field.getType() == FieldType.TABLE || !accessors.hasGetter(entity, field.getName())) {
+                    continue;
+                }
+                final MethodHandle getter = accessors.getGetter(entity, field.getName());
+                final Class<?> type = getter.type().returnType();
+                final Kind kind = getKind(type);
+                if (kind == null) {
+                    LOG.debug("{} field {} of type {} is not encoded", entity.getClass().getName(), field.getName(), type);
+                    continue;
+                }
+
+                final MethodHandle setter;
+                try {
+                    setter = accessors.getSetter(entity, field.getName(), type);
+                } catch (final RuntimeException e) {
+                    LOG.debug("{} field {} has no setter, and is not encoded", entity.getClass().getName(), field.getName());
+                    continue;
+                }
+                final Class<?> valueType = (kind == Kind.INT) ? int.class : (kind == Kind.LONG) ? long.class : Object.class;
+                ids.add(field.getId());
+                lengths.add((field.getMaximumLength() > 0)
+                        ? Math.min(MAX_STRING_LENGTH, MAX_BYTES_PER_OCTET * field.getMaximumLength()) : MAX_STRING_LENGTH);
+                fieldKinds.add(kind);
+                fieldGetters.add(getter.asType(MethodType.methodType(valueType, DeviceEntity.class)));
+                fieldSetters.add(setter.asType(MethodType.methodType(void.class, DeviceEntity.class, valueType)));
+            }
+
+            fieldIds = new int[ids.size()];
+            maximumLengths = new int[ids.size()];
+            for (int i = 0; i < fieldIds.length; i++) {
+                fieldIds[i] = ids.get(i);
+                maximumLengths[i] = lengths.get(i);
+            }
+            kinds = fieldKinds.toArray(new Kind[fieldKinds.size()]);
+            getters = fieldGetters.toArray(new MethodHandle[fieldGetters.size()]);
+            setters = fieldSetters.toArray(new MethodHandle[fieldSetters.size()]);
+        }
+
+        private static Kind getKind(final Class<?> type) {
+            if (type == int.class) {
+                return Kind.INT;
+            } else if (type == long.class) {
+                return Kind.LONG;
+            } else if (type == String.class) {
+                return Kind.STRING;
+            } else if (DeviceEntity.class.isAssignableFrom(type)) {
+                return Kind.ENTITY;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.util.Arrays;
+
+/**
+ * A difference between two versions of the entities of a device: an entity or table
+ * entry that was added or removed, or an entity whose fields changed.
+ */
+public final class EntityDifference {
+
+    private static final int[] NO_FIELDS = new int[0];
+
+    /**
+     * The kind of a difference.
+     */
+    public enum Kind {
+        /**
+         * The entity is only in the later version.
+         */
+        ADDED, /**
+         * The entity is only in the earlier version.
+         */
+        REMOVED, /**
+         * The entity is in both versions, with different values of some fields.
+         */
+        CHANGED
+    }
+
+    private final Kind kind;
+    private final DeviceEntity before;
+    private final DeviceEntity after;
+    private final String index;
+    private final int[] fieldIds;
+
+    private EntityDifference(final Kind kind,
+                             final DeviceEntity before,
+                             final DeviceEntity after,
+                             final String index,
+                             final int[] fieldIds) {
+        this.kind = kind;
+        this.before = before;
+        this.after = after;
+        this.index = index;
+        this.fieldIds = fieldIds;
+    }
+
+    static EntityDifference added(final DeviceEntity after, final String index) {
+        return new EntityDifference(Kind.ADDED, null, after, index, NO_FIELDS);
+    }
+
+    static EntityDifference removed(final DeviceEntity before, final String index) {
+        return new EntityDifference(Kind.REMOVED, before, null, index, NO_FIELDS);
+    }
+
+    static EntityDifference changed(final DeviceEntity before,
+                                    final DeviceEntity after,
+                                    final String index,
+                                    final int[] fieldIds) {
+        return new EntityDifference(Kind.CHANGED, before, after, index, fieldIds);
+    }
+
+    /**
+     * Gets kind.
+     *
+     * @return the kind of the difference
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets before.
+     *
+     * @return a view of the earlier version of the entity, or <code>null</code> if it was added
+     */
+    public EntityView getBefore() {
+        return EntityView.of(before);
+    }
+
+    /**
+     * Gets after.
+     *
+     * @return a view of the later version of the entity, or <code>null</code> if it was removed
+     */
+    public EntityView getAfter() {
+        return EntityView.of(after);
+    }
+
+    /**
+     * Gets the entity, which is the later version unless it was removed.
+     *
+     * @return a view of the entity
+     */
+    public EntityView getEntity() {
+        return EntityView.of((after == null) ? before : after);
+    }
+
+    /**
+     * Gets index.
+     *
+     * @return the index of the entity in its table, or <code>null</code> if it is not a table entry
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets field ids.
+     *
+     * @return the ids of the fields that changed, in ascending order;
+     * empty unless the entity changed
+     */
+    public int[] getFieldIds() {
+        return fieldIds.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "EntityDifference{" + kind + ' ' + getEntity().getEntityClass().getSimpleName()
+                + ((index == null) ? "" : '[' + index + ']')
+                + ((fieldIds.length == 0) ? "" : " fields=" + Arrays.toString(fieldIds)) + '}';
+    }
+}
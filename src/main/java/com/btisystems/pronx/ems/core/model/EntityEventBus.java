@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import org.snmp4j.smi.OID;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Delivers the changes to the entities of a device to subscribers.
+ * <p/>
+ * There is a single bus for each {@link AbstractRootEntity}, and each entity attached
+ * to the root holds a reference to it, so subscribing is a constant-time operation
+ * whatever the number of entities. Subscribers may receive all changes, or only the
+ * changes to entities of a given class or with a given OID. Entities publish nothing
+ * while there are no subscribers.
+ */
+public class EntityEventBus {
+
+    private final List<IEntityEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<Class<?>, List<IEntityEventListener>> listenersByClass = new ConcurrentHashMap<>();
+    private final ConcurrentMap<OID, List<IEntityEventListener>> listenersByOid = new ConcurrentHashMap<>();
+    private volatile boolean subscribed;
+    private volatile boolean subscribedByOid;
+
+    /**
+     * Subscribes to the changes to all entities.
+     *
+     * @param listener the listener
+     */
+    public void subscribe(final IEntityEventListener listener) {
+        listeners.add(listener);
+        updateSubscribed();
+    }
+
+    /**
+     * Subscribes to the changes to the entities of a class.
+     *
+     * @param entityClass the class of the entities
+     * @param listener    the listener
+     */
+    public void subscribe(final Class<? extends DeviceEntity> entityClass, final IEntityEventListener listener) {
+        listenersByClass.computeIfAbsent(entityClass, k -> new CopyOnWriteArrayList<>()).add(listener);
+        updateSubscribed();
+    }
+
+    /**
+     * Subscribes to the changes to the entities described by an OID. For table entries
+     * this is the OID of the entry.
+     *
+     * @param oid      the OID of the entities' description
+     * @param listener the listener
+     */
+    public void subscribe(final OID oid, final IEntityEventListener listener) {
+        listenersByOid.computeIfAbsent(oid, k -> new CopyOnWriteArrayList<>()).add(listener);
+        updateSubscribed();
+    }
+
+    /**
+     * Cancels all subscriptions of a listener.
+     *
+     * @param listener the listener
+     */
+    public void unsubscribe(final IEntityEventListener listener) {
+        listeners.remove(listener);
+        for (final List<IEntityEventListener> classListeners : listenersByClass.values()) {
+            classListeners.remove(listener);
+        }
+        for (final List<IEntityEventListener> oidListeners : listenersByOid.values()) {
+            oidListeners.remove(listener);
+        }
+        updateSubscribed();
+    }
+
+    /**
+     * Indicates whether there are any subscribers.
+     *
+     * @return true if changes are to be published
+     */
+    public boolean hasSubscribers() {
+        return subscribed;
+    }
+
+    /**
+     * Publishes a change to the subscribers interested in the entity.
+     *
+     * @param entity   the entity
+     * @param fieldId  the id of the field in the entity's description
+     * @param oldValue the old value
+     * @param newValue the new value
+     */
+    public void publish(final DeviceEntity entity, final int fieldId, final Object oldValue, final Object newValue) {
+        for (final IEntityEventListener listener : listeners) {
+            listener.entityChanged(entity, fieldId, oldValue, newValue);
+        }
+        publish(listenersByClass.get(entity.getClass()), entity, fieldId, oldValue, newValue);
+        if (subscribedByOid) {
+            final DeviceEntityDescription description = entity.get_Description();
+            if (description != null) {
+                publish(listenersByOid.get(description.getOid()), entity, fieldId, oldValue, newValue);
+            }
+        }
+    }
+
+    private static void publish(final List<IEntityEventListener> subscribers, final DeviceEntity entity,
+                                final int fieldId, final Object oldValue, final Object newValue) {
+        if (subscribers != null) {
+            for (final IEntityEventListener listener : subscribers) {
+                listener.entityChanged(entity, fieldId, oldValue, newValue);
+            }
+        }
+    }
+
+    private synchronized void updateSubscribed() {
+        boolean byOid = false;
+        for (final List<IEntityEventListener> oidListeners : listenersByOid.values()) {
+            byOid |= !oidListeners.isEmpty();
+        }
+        boolean byClass = false;
+        for (final List<IEntityEventListener> classListeners : listenersByClass.values()) {
+            byClass |= !classListeners.isEmpty();
+        }
+        subscribedByOid = byOid;
+        subscribed = byOid || byClass || !listeners.isEmpty();
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A read-only view of an entity, through which the entities of a {@link DeviceSnapshot}
+ * are read. The entity itself is never handed out, so a view cannot be used to change it.
+ * <p/>
+ * Two views are equal if they are views of the same entity, as the views of an entity
+ * shared by two snapshots are.
+ */
+public final class EntityView {
+
+    private final DeviceEntity entity;
+
+    /**
+     * Instantiates a new view.
+     *
+     * @param entity the entity
+     */
+    EntityView(final DeviceEntity entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * Gets a view of an entity.
+     *
+     * @param entity the entity, which may be <code>null</code>
+     * @return the view, or <code>null</code> if there is no entity
+     */
+    static EntityView of(final DeviceEntity entity) {
+        return (entity == null) ? null : new EntityView(entity);
+    }
+
+    /**
+     * Gets entity class.
+     *
+     * @return the class of the entity
+     */
+    public Class<? extends DeviceEntity> getEntityClass() {
+        return entity.getClass();
+    }
+
+    /**
+     * Gets description.
+     *
+     * @return the description of the entity
+     */
+    public DeviceEntityDescription getDescription() {
+        return entity.get_Description();
+    }
+
+    /**
+     * Gets the value of a string field.
+     *
+     * @param fieldName the field name
+     * @return the value
+     */
+    public String getString(final String fieldName) {
+        return entity.getString(fieldName);
+    }
+
+    /**
+     * Gets the value of a string field.
+     *
+     * @param fieldId the id of the field in the entity's description
+     * @return the value
+     */
+    public String getString(final int fieldId) {
+        return entity.getString(fieldId);
+    }
+
+    /**
+     * Gets the value of an int field.
+     *
+     * @param fieldName the field name
+     * @return the value
+     */
+    public int getInt(final String fieldName) {
+        return entity.getInt(fieldName);
+    }
+
+    /**
+     * Gets the value of an int field.
+     *
+     * @param fieldId the id of the field in the entity's description
+     * @return the value
+     */
+    public int getInt(final int fieldId) {
+        return entity.getInt(fieldId);
+    }
+
+    /**
+     * Gets the value of a long field.
+     *
+     * @param fieldName the field name
+     * @return the value
+     */
+    public long getLong(final String fieldName) {
+        return entity.getLong(fieldName);
+    }
+
+    /**
+     * Gets the value of a long field.
+     *
+     * @param fieldId the id of the field in the entity's description
+     * @return the value
+     */
+    public long getLong(final int fieldId) {
+        return entity.getLong(fieldId);
+    }
+
+    /**
+     * Gets a child entity.
+     *
+     * @param fieldName the name of the entity field
+     * @return a view of the child, or <code>null</code> if there is none
+     */
+    public EntityView getEntity(final String fieldName) {
+        final MethodHandle getter = EntityAccessors.forClass(entity.getClass()).getGetter(entity, fieldName);
+        try {
+            return of((DeviceEntity) getter.invoke(entity));
+        } catch (final Throwable e) {
+            throw EntityAccessors.accessFailure(entity, fieldName, e);
+        }
+    }
+
+    /**
+     * Indicates whether the entity is a table.
+     *
+     * @return true if the entity has entries
+     */
+    public boolean isTable() {
+        return entity instanceof ITableAccess;
+    }
+
+    /**
+     * Gets the indexes of the entries of a table.
+     *
+     * @return the indexes, which cannot be changed, or an empty set if the entity is not a table
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> getEntryIndexes() {
+        if (entity instanceof ITableAccess) {
+            return Collections.unmodifiableSet(((ITableAccess<DeviceEntity>) entity).getEntries().keySet());
+        }
+        return Collections.emptySet();
+    }
+
+    /**
+     * Gets the index keys of the entries of a keyed table.
+     *
+     * @return the index keys, which cannot be changed, or an empty set if the entity is not a keyed table
+     */
+    @SuppressWarnings("unchecked")
+    public Set<IndexKey> getEntryKeys() {
+        if (entity instanceof IKeyedTableAccess) {
+            return Collections.unmodifiableSet(((IKeyedTableAccess<DeviceEntity>) entity).getKeyedEntries().keySet());
+        }
+        return Collections.emptySet();
+    }
+
+    /**
+     * Gets an entry of a table.
+     *
+     * @param index the index of the entry
+     * @return a view of the entry, or <code>null</code> if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public EntityView getEntry(final String index) {
+        return (entity instanceof ITableAccess) ? of(((ITableAccess<DeviceEntity>) entity).getEntry(index)) : null;
+    }
+
+    /**
+     * Gets an entry of a keyed table.
+     *
+     * @param key the index key of the entry
+     * @return a view of the entry, or <code>null</code> if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public EntityView getEntry(final IndexKey key) {
+        return (entity instanceof IKeyedTableAccess) ? of(((IKeyedTableAccess<DeviceEntity>) entity).getEntry(key)) : null;
+    }
+
+    /**
+     * Gets the number of entries of a table.
+     *
+     * @return the number of entries, or 0 if the entity is not a table
+     */
+    @SuppressWarnings("unchecked")
+    public int getEntryCount() {
+        if (entity instanceof IKeyedTableAccess) {
+            return ((IKeyedTableAccess<DeviceEntity>) entity).getKeyedEntries().size();
+        }
+        return (entity instanceof ITableAccess) ? ((ITableAccess<DeviceEntity>) entity).getEntries().size() : 0;
+    }
+
+    /**
+     * Gets the entity viewed.
+     *
+     * @return the entity
+     */
+    DeviceEntity _getEntity() {
+        return entity;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return (obj instanceof EntityView) && ((EntityView) obj).entity == entity;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(entity);
+    }
+
+    @Override
+    public String toString() {
+        return "EntityView{" + entity + '}';
+    }
+}
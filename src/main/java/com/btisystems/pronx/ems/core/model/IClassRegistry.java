@@ -36,6 +36,29 @@ public interface IClassRegistry extends Serializable {
      */
     Class<? extends DeviceEntity> getClass(OID oid);
 
+    /**
+     * Delivers the registered class whose OID is the longest prefix of the first
+     * <code>length</code> sub-identifiers of an OID, without allocating.
+     * <p/>
+     * The default implementation looks up each prefix with {@link #getClass(OID)}, from
+     * the longest down, allocating an OID for each; registries should override it.
+     *
+     * @param oid       the raw value of the OID to be matched
+     * @param length    the number of sub-identifiers of <code>oid</code> to be considered
+     * @return          the {@link OidClassMatch} holding the containing class, its OID and
+     *                  whether it is a table entry, or <code>null</code> if there is no entry.
+     */
+    default OidClassMatch getLongestPrefixMatch(final int[] oid, final int length) {
+        for (int prefixLength = length; prefixLength > 0; prefixLength--) {
+            final OID prefix = new OID(oid, 0, prefixLength);
+            final Class<? extends DeviceEntity> entityClass = getClass(prefix);
+            if (entityClass != null) {
+                return new OidClassMatch(prefix, entityClass);
+            }
+        }
+        return null;
+    }
+
     /**
      * Delivers the class associated with a name.
      *
@@ -57,6 +80,10 @@ public interface IClassRegistry extends Serializable {
     List<OID> getOids();
 
     /**
+     * Delivers the OIDs walked to discover a device. The list may be shared between
+     * callers, so neither the list nor its OIDs may be modified; callers needing to
+     * change the list must copy it.
+     *
      * @return  list of OIDs for tables and scalars (no entries), in OID order.
      */
     List<OID> getDiscoveryOids();
@@ -76,6 +103,20 @@ public interface IClassRegistry extends Serializable {
      */
     DeviceEntityDescription getEntityDescription(OID oid);
 
+    /**
+     * Delivers the {@link DeviceEntityDescription} for a registered entity class.
+     * <p/>
+     * The default implementation looks up the OID of the class in {@link #getClassToOidMap()}.
+     *
+     * @param entityClass   the class for which the corresponding description is to be returned
+     * @return      the {@link DeviceEntityDescription} for the entity class, or <code>null</code>
+     *              if the class is not registered.
+     */
+    default DeviceEntityDescription getEntityDescription(final Class<? extends DeviceEntity> entityClass) {
+        final OID oid = getClassToOidMap().get(entityClass);
+        return (oid == null) ? null : getEntityDescription(oid);
+    }
+
     /**
      * Deliver the class of the database entity that contains an element with
      * a specified oid value
@@ -0,0 +1,30 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+/**
+ * Subscriber to the changes published on an {@link EntityEventBus}.
+ */
+public interface IEntityEventListener {
+
+    /**
+     * Called when a field of an entity is set.
+     *
+     * @param entity   the entity
+     * @param fieldId  the id of the field in the entity's description
+     * @param oldValue the old value
+     * @param newValue the new value
+     */
+    void entityChanged(DeviceEntity entity, int fieldId, Object oldValue, Object newValue);
+}
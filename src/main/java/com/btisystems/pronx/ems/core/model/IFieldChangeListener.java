@@ -0,0 +1,33 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+/**
+ * Property change listener that is told by an entity only the id of each changed field,
+ * without a {@link PropertyChangeEvent} being created.
+ */
+public interface IFieldChangeListener extends PropertyChangeListener {
+
+    /**
+     * Called when the value of a field of an entity changes, instead of
+     * {@link #propertyChange(PropertyChangeEvent)}.
+     *
+     * @param entity  the entity
+     * @param fieldId the id of the field in the entity's description
+     */
+    void fieldChanged(DeviceEntity entity, int fieldId);
+}
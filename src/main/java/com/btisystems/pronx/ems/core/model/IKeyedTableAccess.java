@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.util.Map;
+
+/**
+ * Interface supported by tables whose entries are held against {@link IndexKey}s,
+ * which allows the table to be populated without building index strings.
+ * <p/>
+ * The string-keyed methods of {@link ITableAccess} remain available, and address the
+ * same entries through the string form of their keys.
+ *
+ * @param <T> the type parameter
+ */
+public interface IKeyedTableAccess<T extends IDeviceEntity> extends ITableAccess<T> {
+
+    /**
+     * Deliver table entry with the specified index
+     *
+     * @param index the index of the entry whose value is to be returned
+     * @return the value to which the specified index is mapped, or null if this table
+     *         contains no mapping for the key
+     */
+    T getEntry(IndexKey index);
+
+    /**
+     * Associates the specified entry with the specified index in the table.
+     * If the table previously contained a mapping for the index, the old entry is replaced.
+     *
+     * @param index the index with which the specified entry is to be associated
+     * @param entry entry to be associated with the specified index
+     */
+    void setEntry(IndexKey index, T entry);
+
+    /**
+     * Gets keyed entries.
+     *
+     * @return the map used to contain the table entries
+     */
+    Map<IndexKey, T> getKeyedEntries();
+}
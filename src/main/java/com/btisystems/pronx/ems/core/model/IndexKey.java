@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The index of a table entry, held as the sub-identifiers that follow the column
+ * in the OIDs of the entry's variables.
+ * <p/>
+ * The hash code is computed once, when the key is created, and keys are compared
+ * sub-identifier by sub-identifier, so that keys can be used to populate and look up
+ * tables without building the dotted string form of the index.
+ */
+public final class IndexKey implements Comparable<IndexKey>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final int[] value;
+    private final int hash;
+
+    /**
+     * Class constructor
+     *
+     * @param oid       the raw value of an OID ending with the index
+     * @param offset    the position of the first index sub-identifier in <code>oid</code>
+     * @param length    the number of index sub-identifiers
+     */
+    public IndexKey(final int[] oid, final int offset, final int length) {
+        this.value = Arrays.copyOfRange(oid, offset, offset + length);
+        this.hash = Arrays.hashCode(value);
+    }
+
+    /**
+     * Delivers the key for the string form of an index.
+     *
+     * @param index an index of the form "n1.n2....nn"
+     * @return the key
+     */
+    public static IndexKey parse(final String index) {
+        if (index.isEmpty()) {
+            return new IndexKey(new int[0], 0, 0);
+        }
+        final String[] parts = index.split("\\.");
+        final int[] subIdentifiers = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            subIdentifiers[i] = (int) Long.parseLong(parts[i]);
+        }
+        return new IndexKey(subIdentifiers, 0, subIdentifiers.length);
+    }
+
+    /**
+     * Gets the number of sub-identifiers in the index.
+     *
+     * @return the size
+     */
+    public int size() {
+        return value.length;
+    }
+
+    /**
+     * Gets a sub-identifier of the index.
+     *
+     * @param position the position of the sub-identifier
+     * @return the sub-identifier
+     */
+    public int get(final int position) {
+        return value[position];
+    }
+
+    /**
+     * Gets a copy of the sub-identifiers of the index.
+     *
+     * @return the sub-identifiers
+     */
+    public int[] toIntArray() {
+        return value.clone();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof IndexKey)) {
+            return false;
+        }
+        final IndexKey other = (IndexKey) obj;
+        return hash == other.hash && Arrays.equals(value, other.value);
+    }
+
+    /**
+     * Compares keys in the same order as the OIDs of the entries.
+     *
+     * @param other the key to be compared
+     * @return a negative integer, zero, or a positive integer as this key is less than,
+     *         equal to, or greater than the other key
+     */
+    @Override
+    public int compareTo(final IndexKey other) {
+        final int length = Math.min(value.length, other.value.length);
+        for (int i = 0; i < length; i++) {
+            if (value[i] != other.value[i]) {
+                return ((value[i] & 0xFFFFFFFFL) < (other.value[i] & 0xFFFFFFFFL)) ? -1 : 1;
+            }
+        }
+        return value.length - other.value.length;
+    }
+
+    /**
+     * Delivers the string form of the index, as used by {@link ITableAccess}.
+     *
+     * @return a string of the form "n1.n2....nn"
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < value.length; i++) {
+            if (i > 0) {
+                sb.append('.');
+            }
+            sb.append(value[i] & 0xFFFFFFFFL);
+        }
+        return sb.toString();
+    }
+}
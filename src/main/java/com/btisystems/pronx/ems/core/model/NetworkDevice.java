@@ -13,8 +13,11 @@
  */
 package com.btisystems.pronx.ems.core.model;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,20 +27,36 @@ import org.snmp4j.smi.VariableBinding;
 
 /**
  * Manages the creation and population of entities for a discovered device.
+ * <p/>
+ * The same device may be used for successive polls, between {@link #startPoll()} and
+ * {@link #finishPoll()}, in which case its entities and table entries are updated in
+ * place, and only the table entries that were not seen by a poll are discarded.
  */
 
 public class NetworkDevice implements INetworkDevice {
 
     private static Logger log = LoggerFactory.getLogger(NetworkDevice.class);
 
+    // The generation of each poll, unique among all devices, since a device may adopt
+    // entities populated by the polls of another device.
+    private static final AtomicLong POLL_GENERATIONS = new AtomicLong();
+
     private final IClassRegistry oidRegistry;
 
     private final Map<OID, DeviceEntity> simpleObjects = new HashMap<OID, DeviceEntity>();
 
+    private final Map<Class<? extends DeviceEntity>, ColumnarTable> columnarTables =
+            new HashMap<Class<? extends DeviceEntity>, ColumnarTable>();
+
     private AbstractRootEntity rootEntity;
 
     private final String deviceAddress;
 
+    // The generation of the current poll.
+    private long poll;
+
+    private transient StringPool stringPool;
+
     /**
      * Class constructor
      *
@@ -51,6 +70,87 @@ public class NetworkDevice implements INetworkDevice {
         this.deviceAddress = deviceAddress;
     }
 
+    /**
+     * Class constructor for a device whose entities already exist, for example from a
+     * previous poll, and are to be updated in place.
+     *
+     * @param oidRegistry   the registry used to map OIDs to entity classes
+     * @param rootEntity    the root entity of the existing entities
+     */
+    public NetworkDevice(final IClassRegistry oidRegistry,
+                         final AbstractRootEntity rootEntity) {
+        this(oidRegistry, rootEntity.getDeviceAddress());
+        this.rootEntity = rootEntity;
+        final Map<Class<? extends DeviceEntity>, OID> classToOidMap = oidRegistry.getClassToOidMap();
+        for (final DeviceEntity root : rootEntity.getRoots()) {
+            final OID oid = (root == null) ? null : classToOidMap.get(root.getClass());
+            if (oid != null) {
+                simpleObjects.put(oid, root);
+            }
+        }
+    }
+
+    /**
+     * Sets the pool through which the string values of entities are shared, which may be
+     * shared with other devices.
+     *
+     * @param stringPool the pool, or <code>null</code> if string values are not pooled
+     */
+    public void setStringPool(final StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+
+    /**
+     * Starts a poll of the device. Variables added until {@link #finishPoll()} update the
+     * existing entities and table entries, and the table entries they populate are
+     * recorded as seen.
+     */
+    public void startPoll() {
+        poll = POLL_GENERATIONS.incrementAndGet();
+        log.debug("Starting poll {} of {}", poll, deviceAddress);
+    }
+
+    /**
+     * Finishes a poll of the device, removing from their tables all entries that were
+     * not populated since {@link #startPoll()}, including the entries of tables held in
+     * columns. This should be called only when the poll
+     * walked all the tables of the device successfully.
+     *
+     * @return the number of table entries removed
+     */
+    @SuppressWarnings("unchecked")
+    public int finishPoll() {
+        int removed = 0;
+        for (final DeviceEntity entity : simpleObjects.values()) {
+            if (entity instanceof IKeyedTableAccess) {
+                removed += sweep(entity, ((IKeyedTableAccess<DeviceEntity>) entity).getKeyedEntries().values());
+            } else if (entity instanceof ITableAccess) {
+                removed += sweep(entity, ((ITableAccess<DeviceEntity>) entity).getEntries().values());
+            }
+        }
+        for (final ColumnarTable table : columnarTables.values()) {
+            removed += table.removeRowsNotPolled(poll);
+        }
+        log.debug("Finished poll {} of {}, {} table entries removed", poll, deviceAddress, removed);
+        return removed;
+    }
+
+    // Remove the entries of a table that were not populated by the current poll.
+    private int sweep(final DeviceEntity table, final Collection<DeviceEntity> entries) {
+        int removed = 0;
+        final Iterator<DeviceEntity> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            final DeviceEntity entry = iterator.next();
+            if (entry._getLastPoll() != poll) {
+                iterator.remove();
+                table.removeChild(entry);
+                entry._setEventBus(null);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -58,33 +158,30 @@ public class NetworkDevice implements INetworkDevice {
     public boolean addVariable(final VariableBinding binding) {
         log.debug(">>> addVariable:{}", binding);
 
-        final OID containingOid = getContainingClassOid(binding.getOid());
-        if (containingOid != null) {
+        final OidClassMatch containingClass = getContainingClass(binding.getOid());
+        if (containingClass != null) {
 
             // Determine the number of index elements in the OID for the variable.
             // This is difference in the length of its OID and the containing object's OID.
-            final int indexElementCount = binding.getOid().size() - containingOid.size();
+            final int indexElementCount = binding.getOid().size() - containingClass.getOidLength();
             log.trace("indexElementCount:{}", indexElementCount);
 
             // We have got a class that can potentially contain the variable.
-            // See if that class is a table entry (i.e. it has an index).
-            final Class<? extends DeviceEntity> containingClass = oidRegistry.getClass(containingOid);
-
             // If there is no entry index, we must be dealing with a scalar variable.
-            if (!IIndexed.class.isAssignableFrom(containingClass)) {
+            if (!containingClass.isIndexed()) {
 
                 // Check that the OID of the containing object is the same as the
                 // variable, without the variable identifier and the final ".0".
                 if (indexElementCount == 2) {
                     // Set the variable on the containing object
-                    addScalarVariable(binding, containingOid);
+                    addScalarVariable(binding, containingClass.getOid());
                 } else {
                     log.debug("Unrecognised OID:" + binding.getOid());
                     return false;
                 }
             } else {
                 // This must be a variable in a table element.
-                addTableColumn(binding, containingOid, indexElementCount - 1);
+                addTableColumn(binding, containingClass, indexElementCount - 1);
             }
             return true;
         } else {
@@ -93,6 +190,39 @@ public class NetworkDevice implements INetworkDevice {
         }
     }
 
+    /**
+     * Holds the entries of a table in a {@link ColumnarTable} rather than as entities.
+     * Variables for the table that are added subsequently are set on the columnar table,
+     * and no entities are created for its entries.
+     *
+     * @param entryClass    the class of the table entry
+     * @return the columnar table, or <code>null</code> if the class is not registered
+     */
+    public ColumnarTable enableColumnarStorage(final Class<? extends DeviceEntity> entryClass) {
+        ColumnarTable table = columnarTables.get(entryClass);
+        if (table == null) {
+            final OID entryOid = oidRegistry.getClassToOidMap().get(entryClass);
+            final DeviceEntityDescription description = (entryOid == null) ? null : oidRegistry.getEntityDescription(entryOid);
+            if (description == null) {
+                log.warn("Cannot hold unregistered table entry {} in columns", entryClass);
+                return null;
+            }
+            table = new ColumnarTable(description);
+            columnarTables.put(entryClass, table);
+        }
+        return table;
+    }
+
+    /**
+     * Gets the columnar table holding the entries of a table.
+     *
+     * @param entryClass    the class of the table entry
+     * @return the columnar table, or <code>null</code> if columnar storage is not enabled for the table
+     */
+    public ColumnarTable getColumnarTable(final Class<? extends DeviceEntity> entryClass) {
+        return columnarTables.get(entryClass);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -119,15 +249,20 @@ public class NetworkDevice implements INetworkDevice {
 
     // Add table column to table entry
     private void addTableColumn(final VariableBinding binding,
-                                final OID entryOid,
+                                final OidClassMatch entryClass,
                                 final int indexElementCount) {
-        log.debug(">>> addTableColumn:{} {}", binding, entryOid);
+        log.debug(">>> addTableColumn:{} {}", binding, entryClass);
 
-        final String entryIdentifier = getTableEntryIdentifier(binding.getOid(), indexElementCount);
-        log.debug("entryIdentifier:{}", entryIdentifier);
+        if (!columnarTables.isEmpty()) {
+            final ColumnarTable columnarTable = columnarTables.get(entryClass.getEntityClass());
+            if (columnarTable != null) {
+                columnarTable.addVariable(binding, poll);
+                return;
+            }
+        }
 
         // Determine whether this table entry already exists.
-        final Object tableEntry = getTableEntry(entryOid, binding.getOid(), entryIdentifier);
+        final Object tableEntry = getTableEntry(entryClass, binding.getOid(), indexElementCount);
 
         if (tableEntry != null) {
             // Set the variable on the table entry
@@ -136,45 +271,72 @@ public class NetworkDevice implements INetworkDevice {
         log.debug("<<< addTableColumn");
     }
 
-    // Deliver the table entry for the specified OID and entryIdentifier
+    // Deliver the table entry for the specified OID and number of index elements
     @SuppressWarnings("unchecked")
-    private Object getTableEntry(final OID entryOid,
+    private Object getTableEntry(final OidClassMatch entryClass,
                                  final OID variableOid,
-                                 final String entryIdentifier) {
-
-        // Check we recognise the table entry.
-        final Class<? extends DeviceEntity> clazz = oidRegistry.getClass(entryOid);
-        if (clazz == null) {
-            log.debug("Unrecognized table entry:{}", entryOid);
-            return null;
-        }
+                                 final int indexElementCount) {
 
         // Get the table to which the entry is to be added
-        final DeviceEntity entity = getObject(getParentOid(entryOid));
+        final DeviceEntity entity = getObject(entryClass.getParentOid());
         assert entity != null : "Failed to get table object";
+        if (entity instanceof IKeyedTableAccess) {
+            return getKeyedTableEntry((IKeyedTableAccess<DeviceEntity>) entity, entryClass, variableOid, indexElementCount);
+        }
         final ITableAccess<DeviceEntity> table = (ITableAccess<DeviceEntity>) entity;
 
+        final String entryIdentifier = getTableEntryIdentifier(variableOid, indexElementCount);
+        log.debug("entryIdentifier:{}", entryIdentifier);
+
         // See if the specific entry already exists for the table.
-        final Object entryObject = table.getEntry(entryIdentifier);
+        final DeviceEntity entryObject = table.getEntry(entryIdentifier);
         if (entryObject != null) {
+            entryObject._setLastPoll(poll);
             return entryObject;
         }
 
         // Need to create a new table entry.
-        final Object newEntryObject = instantiateObject(clazz);
+        final DeviceEntity newEntryObject = instantiateObject(entryClass.getEntityClass());
         if (newEntryObject != null) {
-            table.setEntry(entryIdentifier, (DeviceEntity) newEntryObject);
+            newEntryObject._setLastPoll(poll);
+            table.setEntry(entryIdentifier, newEntryObject);
             ((IIndexed) newEntryObject)._setIndex(variableOid);
-            return newEntryObject;
+            newEntryObject._setNewEntityEventBus(getRootEntity().getEventBus());
         }
-        return null;
+        return newEntryObject;
+    }
+
+    // Deliver the table entry for the specified OID from a table keyed by IndexKey
+    private Object getKeyedTableEntry(final IKeyedTableAccess<DeviceEntity> table,
+                                      final OidClassMatch entryClass,
+                                      final OID variableOid,
+                                      final int indexElementCount) {
+        final int[] rawOid = variableOid.getValue();
+        final IndexKey entryKey = new IndexKey(rawOid, rawOid.length - indexElementCount, indexElementCount);
+
+        // See if the specific entry already exists for the table.
+        final DeviceEntity entryObject = table.getEntry(entryKey);
+        if (entryObject != null) {
+            entryObject._setLastPoll(poll);
+            return entryObject;
+        }
+
+        // Need to create a new table entry.
+        final DeviceEntity newEntryObject = instantiateObject(entryClass.getEntityClass());
+        if (newEntryObject != null) {
+            newEntryObject._setLastPoll(poll);
+            table.setEntry(entryKey, newEntryObject);
+            ((IIndexed) newEntryObject)._setIndex(variableOid);
+            newEntryObject._setNewEntityEventBus(getRootEntity().getEventBus());
+        }
+        return newEntryObject;
     }
 
     // Sets variable on a managed object.
     private void setVariable(final Object parentObject,
                              final VariableBinding binding) {
         log.debug(">>> setVariable oid:{} object:{}", binding.getOid(), parentObject.getClass().getName());
-        ((IVariableBindingSetter) parentObject).set(binding);
+        ((IVariableBindingSetter) parentObject).set((stringPool == null) ? binding : stringPool.pool(binding));
     }
 
     // Gets the instance of the managed object identified by its OID.
@@ -220,7 +382,7 @@ public class NetworkDevice implements INetworkDevice {
             final Class<? extends AbstractRootEntity> rootEntityClass = oidRegistry.getRootEntityClass();
             try {
                 log.debug("instantiating entity type:{}", rootEntityClass);
-                rootEntity = rootEntityClass.newInstance();
+                rootEntity = DeviceEntityFactory.newInstance(rootEntityClass);
                 log.debug("set device address:{}", deviceAddress);
                 rootEntity.setDeviceAddress(deviceAddress);
             } catch (final Exception e) {
@@ -235,13 +397,10 @@ public class NetworkDevice implements INetworkDevice {
     private DeviceEntity instantiateObject(final Class<? extends DeviceEntity> clazz) {
         DeviceEntity object = null;
         try {
-            object = clazz.newInstance();
-        } catch (final InstantiationException e) {
-            log.warn("Failed to instantiate object of type a {} {}", clazz, e.getMessage());
-            log.debug("Failed to instantiate object of type a {}:", clazz, e);
-        } catch (final IllegalAccessException e) {
-            log.warn("Failed to instantiate object of type b {} {}", clazz, e.getMessage());
-            log.debug("Failed to instantiate object of type b {}:", clazz, e);
+            object = DeviceEntityFactory.newInstance(clazz);
+        } catch (final ReflectiveOperationException e) {
+            log.warn("Failed to instantiate object of type {} {}", clazz, e.getMessage());
+            log.debug("Failed to instantiate object of type {}:", clazz, e);
         }
         return object;
     }
@@ -256,35 +415,16 @@ public class NetworkDevice implements INetworkDevice {
             if (i > startIndex) {
                 sb.append('.');
             }
-            sb.append(rawOid[i]);
+            sb.append(rawOid[i] & 0xFFFFFFFFL);
         }
         return sb.toString();
     }
 
-    // Returns the parent OID of an OID.
-    private OID getParentOid(final OID oid) {
-        return getAncestorOid(oid, 1);
-    }
-
-    private OID getAncestorOid(final OID oid, final int generationCount) {
+    // Determine the registered class that contains the variable with the OID
+    private OidClassMatch getContainingClass(final OID oid) {
         final int[] rawOid = oid.getValue();
-        final int levels = oid.size();
-        if (levels <= generationCount) {
-            log.debug("Unexpected OID Ancestor {} {}", oid, generationCount);
-            return null;
-        }
-
-        return new OID(rawOid, 0, levels - generationCount);
-    }
-
-    // Determine the OID of the class that contains the variable with the OID
-    private OID getContainingClassOid(final OID oid) {
-        // Keep trying parent Ids until we get a match in the registry
-        OID parentOid = getParentOid(oid);
-        while (parentOid != null && oidRegistry.getClass(parentOid) == null) {
-            parentOid = getParentOid(parentOid);
-        }
-        log.trace("<<< getContainingClassOid {}", parentOid);
-        return parentOid;
+        final OidClassMatch containingClass = oidRegistry.getLongestPrefixMatch(rawOid, rawOid.length - 1);
+        log.trace("<<< getContainingClass {}", containingClass);
+        return containingClass;
     }
 }
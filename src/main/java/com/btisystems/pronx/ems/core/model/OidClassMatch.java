@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.io.Serializable;
+
+import org.snmp4j.smi.OID;
+
+/**
+ * An entity class registered against an OID, as delivered by a longest-prefix lookup
+ * on the {@link IClassRegistry}. Instances are created once, when the registry is built,
+ * so that the lookup itself allocates nothing.
+ */
+public final class OidClassMatch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private final OID oid;
+    private final OID parentOid;
+    private final Class<? extends DeviceEntity> entityClass;
+    private final boolean indexed;
+
+    /**
+     * Class constructor
+     *
+     * @param oid           the OID against which the class is registered
+     * @param entityClass   the registered entity class
+     */
+    public OidClassMatch(final OID oid, final Class<? extends DeviceEntity> entityClass) {
+        this.oid = oid;
+        this.parentOid = (oid.size() > 1) ? new OID(oid.getValue(), 0, oid.size() - 1) : null;
+        this.entityClass = entityClass;
+        this.indexed = IIndexed.class.isAssignableFrom(entityClass);
+    }
+
+    /**
+     * Gets the registered OID. The OID is shared and must not be modified.
+     *
+     * @return the OID against which the class is registered
+     */
+    public OID getOid() {
+        return oid;
+    }
+
+    /**
+     * Gets the parent of the registered OID, which for a table entry is the OID of its
+     * table. The OID is shared and must not be modified.
+     *
+     * @return the parent OID, or <code>null</code> if the registered OID has a single sub-identifier
+     */
+    public OID getParentOid() {
+        return parentOid;
+    }
+
+    /**
+     * Gets the number of sub-identifiers in the registered OID.
+     *
+     * @return the OID length
+     */
+    public int getOidLength() {
+        return oid.size();
+    }
+
+    /**
+     * Gets the entity class.
+     *
+     * @return the registered entity class
+     */
+    public Class<? extends DeviceEntity> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Indicates whether the entity class is a table entry.
+     *
+     * @return true if the entity class implements {@link IIndexed}
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    @Override
+    public String toString() {
+        return oid + "=" + entityClass.getSimpleName();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.snmp4j.smi.OID;
+
+/**
+ * A set of OIDs held as a trie keyed by sub-identifier, answering whether any member
+ * of the set is a prefix of a given OID.
+ * <p/>
+ * Prefixes are compared on the raw value of the OIDs, so that 1.3.6.1.2.1.1 covers
+ * 1.3.6.1.2.1.1.5 but not 1.3.6.1.2.1.10.
+ */
+final class OidPrefixSet {
+
+    private static final int[] NO_KEYS = new int[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+
+    /**
+     * Class constructor
+     *
+     * @param oids  the members of the set
+     */
+    OidPrefixSet(final Collection<OID> oids) {
+        for (final OID oid : oids) {
+            Node node = root;
+            for (final int subIdentifier : oid.getValue()) {
+                node = node.getOrAddChild(subIdentifier);
+            }
+            node.member = true;
+        }
+    }
+
+    /**
+     * Returns true if a member of the set is equal to, or a prefix of, <code>oid</code>.
+     *
+     * @param oid   the raw value of the OID to be matched
+     * @return      whether the OID is covered by the set
+     */
+    boolean covers(final int[] oid) {
+        Node node = root;
+        for (final int subIdentifier : oid) {
+            node = node.getChild(subIdentifier);
+            if (node == null) {
+                return false;
+            }
+            if (node.member) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Node {
+
+        private int[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private boolean member;
+
+        private Node getChild(final int key) {
+            final int position = Arrays.binarySearch(keys, key);
+            return (position >= 0) ? children[position] : null;
+        }
+
+        private Node getOrAddChild(final int key) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position >= 0) {
+                return children[position];
+            }
+
+            position = -position - 1;
+            final int[] newKeys = new int[keys.length + 1];
+            final Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+            System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+            newKeys[position] = key;
+            newChildren[position] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[position];
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.snmp4j.smi.OID;
+
+/**
+ * A trie of registered OIDs, keyed by sub-identifier, supporting longest-prefix lookup
+ * directly on the raw value of an OID.
+ * <p/>
+ * The children of each node are held in a sorted int array searched by bisection, so
+ * that a lookup visits each sub-identifier once and allocates nothing.
+ */
+final class OidTrie implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int[] NO_KEYS = new int[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+
+    /**
+     * Class constructor
+     *
+     * @param oidRegistry   the registry used to map OIDs to entity classes
+     */
+    OidTrie(final Map<OID, Class<? extends DeviceEntity>> oidRegistry) {
+        for (final Map.Entry<OID, Class<? extends DeviceEntity>> entry : oidRegistry.entrySet()) {
+            Node node = root;
+            for (final int subIdentifier : entry.getKey().getValue()) {
+                node = node.getOrAddChild(subIdentifier);
+            }
+            node.match = new OidClassMatch(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Delivers the registered entry with the longest OID that is a prefix of the first
+     * <code>length</code> sub-identifiers of <code>oid</code>.
+     *
+     * @param oid       the raw value of the OID to be matched
+     * @param length    the number of sub-identifiers of <code>oid</code> to be considered
+     * @return          the longest match, or <code>null</code> if no registered OID matches
+     */
+    OidClassMatch getLongestPrefixMatch(final int[] oid, final int length) {
+        OidClassMatch match = null;
+        Node node = root;
+        final int limit = Math.min(length, oid.length);
+        for (int i = 0; i < limit; i++) {
+            node = node.getChild(oid[i]);
+            if (node == null) {
+                break;
+            }
+            if (node.match != null) {
+                match = node.match;
+            }
+        }
+        return match;
+    }
+
+    private static final class Node implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private int[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        private OidClassMatch match;
+
+        private Node getChild(final int key) {
+            final int position = Arrays.binarySearch(keys, key);
+            return (position >= 0) ? children[position] : null;
+        }
+
+        private Node getOrAddChild(final int key) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position >= 0) {
+                return children[position];
+            }
+
+            position = -position - 1;
+            final int[] newKeys = new int[keys.length + 1];
+            final Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+            System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+            newKeys[position] = key;
+            newChildren[position] = new Node();
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[position];
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldType;
+import com.btisystems.pronx.ems.core.model.EntityAccessors.EntityPlan;
+import com.btisystems.pronx.ems.core.model.EntityAccessors.EntityPlans;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compares two versions of the entities of a device, such as two {@link DeviceSnapshot}s,
+ * and lists the entities and table entries added and removed, and the fields changed.
+ * <p/>
+ * Fields are compared by the ids of their descriptions, through accessors resolved once
+ * per class, and table entries are matched by their index. Entities shared by both
+ * versions, as unchanged entities are by successive snapshots, are not compared at all.
+ */
+public final class SnapshotDiff {
+
+    private static final EntityPlans<ComparePlan> COMPARE_PLANS = new EntityPlans<>(ComparePlan::new);
+
+    private final List<EntityDifference> differences = new ArrayList<>();
+
+    private SnapshotDiff() {
+    }
+
+    /**
+     * Compares two snapshots of a device.
+     *
+     * @param before the earlier snapshot
+     * @param after  the later snapshot
+     * @return the differences, parents before their children
+     */
+    public static List<EntityDifference> compare(final DeviceSnapshot before, final DeviceSnapshot after) {
+        return compare(before.getRootEntity(), after.getRootEntity());
+    }
+
+    /**
+     * Compares two versions of the root entity of a device. The root entities themselves
+     * have no fields to compare; entities of the same class are compared.
+     *
+     * @param before the earlier root entity
+     * @param after  the later root entity
+     * @return the differences, parents before their children
+     */
+    public static List<EntityDifference> compare(final AbstractRootEntity before, final AbstractRootEntity after) {
+        final SnapshotDiff diff = new SnapshotDiff();
+        if (before != after) {
+            diff.compareRoots(before.getRoots(), after.getRoots());
+        }
+        return diff.differences;
+    }
+
+    /**
+     * Compares two versions of an entity and of the entities it contains.
+     *
+     * @param before the earlier version of the entity
+     * @param after  the later version of the entity
+     * @return the differences, parents before their children
+     */
+    public static List<EntityDifference> compare(final DeviceEntity before, final DeviceEntity after) {
+        final SnapshotDiff diff = new SnapshotDiff();
+        diff.compareEntities(before, after, null);
+        return diff.differences;
+    }
+
+    private void compareRoots(final DeviceEntity[] before, final DeviceEntity[] after) {
+        final Map<Class<?>, DeviceEntity> earlierRoots = new HashMap<>();
+        for (final DeviceEntity root : before) {
+            if (root != null) {
+                earlierRoots.put(root.getClass(), root);
+            }
+        }
+        for (final DeviceEntity root : after) {
+            if (root != null) {
+                compareEntities(earlierRoots.remove(root.getClass()), root, null);
+            }
+        }
+        for (final DeviceEntity root : earlierRoots.values()) {
+            differences.add(EntityDifference.removed(root, null));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void compareEntities(final DeviceEntity before, final DeviceEntity after, final String index) {
+        if (before == after) {
+            return;
+        }
+        if (before == null) {
+            differences.add(EntityDifference.added(after, index));
+            return;
+        }
+        if (after == null) {
+            differences.add(EntityDifference.removed(before, index));
+            return;
+        }
+
+        final ComparePlan plan = COMPARE_PLANS.get(after);
+        final int[] changed = plan.compareFields(before, after);
+        if (changed.length > 0) {
+            differences.add(EntityDifference.changed(before, after, index, changed));
+        }
+        for (int i = 0; i < plan.entityGetters.length; i++) {
+            compareEntities(ComparePlan.getObject(before, plan.entityGetters[i], plan.entityIds[i]),
+                    ComparePlan.getObject(after, plan.entityGetters[i], plan.entityIds[i]), null);
+        }
+        if (plan.keyedTable) {
+            compareTables(((IKeyedTableAccess<DeviceEntity>) before).getKeyedEntries(), ((IKeyedTableAccess<DeviceEntity>) after).getKeyedEntries());
+        } else if (plan.table) {
+            compareTables(((ITableAccess<DeviceEntity>) before).getEntries(), ((ITableAccess<DeviceEntity>) after).getEntries());
+        }
+    }
+
+    private void compareTables(final Map<?, ? extends DeviceEntity> before, final Map<?, ? extends DeviceEntity> after) {
+        for (final Map.Entry<?, ? extends DeviceEntity> entry : after.entrySet()) {
+            final DeviceEntity earlierEntry = before.get(entry.getKey());
+            if (earlierEntry == null) {
+                differences.add(EntityDifference.added(entry.getValue(), entry.getKey().toString()));
+            } else {
+                compareEntities(earlierEntry, entry.getValue(), entry.getKey().toString());
+            }
+        }
+        for (final Map.Entry<?, ? extends DeviceEntity> entry : before.entrySet()) {
+            if (!after.containsKey(entry.getKey())) {
+                differences.add(EntityDifference.removed(entry.getValue(), entry.getKey().toString()));
+            }
+        }
+    }
+
+    /**
+     * The accessors through which the fields of the entities of a class are compared,
+     * resolved from the entity's description the first time an entity is compared.
+     * Getters of <code>int</code> and <code>long</code> fields are compared without boxing.
+     */
+    private static final class ComparePlan extends EntityPlan {
+
+        private static final MethodType INT_GETTER = MethodType.methodType(int.class, DeviceEntity.class);
+        private static final MethodType LONG_GETTER = MethodType.methodType(long.class, DeviceEntity.class);
+        private static final MethodType OBJECT_GETTER = MethodType.methodType(Object.class, DeviceEntity.class);
+
+        private static final Comparator<FieldDescription> BY_ID = Comparator.comparingInt(FieldDescription::getId);
+
+        private boolean table;
+        private boolean keyedTable;
+        private int[] fieldIds;
+        private MethodHandle[] getters;
+        private int[] entityIds;
+        private MethodHandle[] entityGetters;
+
+        @Override
+        void build(final DeviceEntity entity) {
+            keyedTable = entity instanceof IKeyedTableAccess;
+            table = keyedTable || entity instanceof ITableAccess;
+
+            final List<FieldDescription> fields = new ArrayList<>();
+            final List<FieldDescription> entities = new ArrayList<>();
+            final DeviceEntityDescription description = entity.get_Description();
+            final EntityAccessors accessors = EntityAccessors.forClass(entity.getClass());
+            if (description != null) {
+                for (final FieldDescription field : description.getFields()) {
+                    if (field.getType() != FieldType.TABLE && accessors.hasGetter(entity, field.getName())) {
+                        (field.getType() == FieldType.ENTITY ? entities : fields).add(field);
+                    }
+                }
+            }
+
+            fields.sort(BY_ID);
+            entities.sort(BY_ID);
+            fieldIds = new int[fields.size()];
+            getters = new MethodHandle[fields.size()];
+            for (int i = 0; i < fieldIds.length; i++) {
+                fieldIds[i] = fields.get(i).getId();
+                getters[i] = adapt(accessors.getGetter(entity, fieldIds[i]));
+            }
+            entityIds = new int[entities.size()];
+            entityGetters = new MethodHandle[entities.size()];
+            for (int i = 0; i < entityIds.length; i++) {
+                entityIds[i] = entities.get(i).getId();
+                entityGetters[i] = accessors.getGetter(entity, entityIds[i]).asType(OBJECT_GETTER);
+            }
+        }
+
+        private static MethodHandle adapt(final MethodHandle getter) {
+            final Class<?> type = getter.type().returnType();
+            if (type == int.class) {
+                return getter.asType(INT_GETTER);
+            } else if (type == long.class) {
+                return getter.asType(LONG_GETTER);
+            }
+            return getter.asType(OBJECT_GETTER);
+        }
+
+        private int[] compareFields(final DeviceEntity before, final DeviceEntity after) {
+            int[] changed = null;
+            int count = 0;
+            for (int i = 0; i < getters.length; i++) {
+                if (!isEqual(getters[i], before, after, fieldIds[i])) {
+                    if (changed == null) {
+                        changed = new int[getters.length - i];
+                    }
+                    changed[count++] = fieldIds[i];
+                }
+            }
+            return (changed == null) ? new int[0] : Arrays.copyOf(changed, count);
+        }
+
+        private static boolean isEqual(final MethodHandle getter,
+                                       final DeviceEntity before,
+                                       final DeviceEntity after,
+                                       final int fieldId) {
+            try {
+                final MethodType type = getter.type();
+                if (type == INT_GETTER) {
+                    return (int) getter.invokeExact(before) == (int) getter.invokeExact(after);
+                } else if (type == LONG_GETTER) {
+                    return (long) getter.invokeExact(before) == (long) getter.invokeExact(after);
+                }
+                return Objects.equals((Object) getter.invokeExact(before), (Object) getter.invokeExact(after));
+            } catch (final Throwable e) {
+                throw EntityAccessors.accessFailure(after, Integer.toString(fieldId), e);
+            }
+        }
+
+        private static DeviceEntity getObject(final DeviceEntity entity, final MethodHandle getter, final int fieldId) {
+            try {
+                return (DeviceEntity) (Object) getter.invokeExact(entity);
+            } catch (final Throwable e) {
+                throw EntityAccessors.accessFailure(entity, Integer.toString(fieldId), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import com.btisystems.pronx.ems.core.exception.FieldAccessMethodException;
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldType;
+import com.btisystems.pronx.ems.core.model.EntityAccessors.EntityPlan;
+import com.btisystems.pronx.ems.core.model.EntityAccessors.EntityPlans;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes immutable snapshots of the entities of a device, so that readers need neither
+ * lock nor copy the entities while they are updated by a walk.
+ * <p/>
+ * A snapshot is normally published when a walk completes, for example with
+ * <code>session.walkDevice(device, oids).thenRun(() -&gt; publisher.publish(device.getRootObject()))</code>,
+ * and replaces the previous snapshot with an atomic swap. Only the entities whose fields
+ * changed, or whose child entities or table entries changed, since the previous snapshot
+ * are copied; all others are shared with the previous snapshot. Changes of fields are
+ * detected through the notifications sent by the entities' setters.
+ * <p/>
+ * The copies are never handed out: readers see them only through the {@link EntityView}s
+ * of the snapshot, so that no setter can reach them once they are published.
+ */
+public class SnapshotPublisher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotPublisher.class);
+
+    private static final EntityPlans<CopyPlan> COPY_PLANS = new EntityPlans<>(CopyPlan::new);
+
+    private static final DeviceEntity[] NO_ENTITIES = new DeviceEntity[0];
+
+    private final AtomicReference<DeviceSnapshot> snapshot = new AtomicReference<>();
+
+    // The copy of each live entity in the last snapshot published.
+    private Map<DeviceEntity, Copy> copies = new IdentityHashMap<>();
+
+    private long generation;
+
+    /**
+     * Gets the last snapshot published.
+     *
+     * @return the snapshot, or <code>null</code> if none has been published
+     */
+    public DeviceSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Publishes a snapshot of the entities of a device. The entities must not be changed
+     * while the snapshot is taken.
+     *
+     * @param rootEntity the live root entity of the device
+     * @return the snapshot published
+     */
+    public synchronized DeviceSnapshot publish(final AbstractRootEntity rootEntity) {
+        final Map<DeviceEntity, Copy> previous = copies;
+        final Map<DeviceEntity, Copy> current = new IdentityHashMap<>(previous.size());
+        final AbstractRootEntity rootCopy = copyRoot(rootEntity, previous, current);
+
+        final DeviceSnapshot published = new DeviceSnapshot(rootCopy, ++generation, System.currentTimeMillis());
+        copies = current;
+        snapshot.set(published);
+        LOG.debug("Published snapshot {} of {}, {} entities", generation, rootEntity.getDeviceAddress(), current.size());
+        return published;
+    }
+
+    private AbstractRootEntity copyRoot(final AbstractRootEntity live,
+                                        final Map<DeviceEntity, Copy> previous,
+                                        final Map<DeviceEntity, Copy> current) {
+        final List<DeviceEntity> roots = new ArrayList<>();
+        for (final DeviceEntity root : live.getRoots()) {
+            if (root != null) {
+                roots.add(root);
+            }
+        }
+        final DeviceEntity[] rootCopies = copyAll(roots, previous, current);
+
+        final Copy previousCopy = previous.get(live);
+        if (previousCopy != null && sameEntities(previousCopy.children, rootCopies)
+                && Objects.equals(((AbstractRootEntity) previousCopy.entity).getDeviceAddress(), live.getDeviceAddress())) {
+            current.put(live, previousCopy);
+            return (AbstractRootEntity) previousCopy.entity;
+        }
+
+        final AbstractRootEntity copy = newInstance(live);
+        copy.setDeviceAddress(live.getDeviceAddress());
+        final EntityAccessors accessors = EntityAccessors.forClass(copy.getClass());
+        for (final DeviceEntity rootCopy : rootCopies) {
+            try {
+                accessors.getSetter(copy, rootCopy.getClass()).invoke(copy, rootCopy);
+            } catch (final Throwable e) {
+                throw EntityAccessors.accessFailure(copy, rootCopy.getClass().getSimpleName(), e);
+            }
+        }
+        current.put(live, new Copy(copy, 0, rootCopies));
+        return copy;
+    }
+
+    private DeviceEntity copyEntity(final DeviceEntity live,
+                                    final Map<DeviceEntity, Copy> previous,
+                                    final Map<DeviceEntity, Copy> current) {
+        if (live == null) {
+            return null;
+        }
+        final Copy alreadyCopied = current.get(live);
+        if (alreadyCopied != null) {
+            return alreadyCopied.entity;
+        }
+
+        final CopyPlan plan = COPY_PLANS.get(live);
+        final List<Object> keys = new ArrayList<>();
+        final List<DeviceEntity> children = new ArrayList<>();
+        plan.addChildren(live, keys, children);
+        final DeviceEntity[] childCopies = copyAll(children, previous, current);
+
+        final Copy previousCopy = previous.get(live);
+        final Copy copy;
+        if (previousCopy != null && previousCopy.changeCount == live._getChangeCount()
+                && sameEntities(previousCopy.children, childCopies)) {
+            copy = previousCopy;
+        } else {
+            final DeviceEntity entity = plan.copy(live, keys, childCopies);
+            copy = new Copy(entity, live._getChangeCount(), childCopies);
+        }
+        current.put(live, copy);
+        return copy.entity;
+    }
+
+    private DeviceEntity[] copyAll(final List<DeviceEntity> entities,
+                                   final Map<DeviceEntity, Copy> previous,
+                                   final Map<DeviceEntity, Copy> current) {
+        if (entities.isEmpty()) {
+            return NO_ENTITIES;
+        }
+        final DeviceEntity[] result = new DeviceEntity[entities.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = copyEntity(entities.get(i), previous, current);
+        }
+        return result;
+    }
+
+    private static boolean sameEntities(final DeviceEntity[] first, final DeviceEntity[] second) {
+        if (first.length != second.length) {
+            return false;
+        }
+        for (int i = 0; i < first.length; i++) {
+            if (first[i] != second[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends DeviceEntity> T newInstance(final T entity) {
+        try {
+            return (T) DeviceEntityFactory.newInstance(entity.getClass());
+        } catch (final ReflectiveOperationException e) {
+            throw new FieldAccessMethodException(entity, "<init>", e.getMessage());
+        }
+    }
+
+    /**
+     * The copy of a live entity, with the copies of its children when it was made.
+     */
+    private static final class Copy {
+
+        private final DeviceEntity entity;
+        private final long changeCount;
+        private final DeviceEntity[] children;
+
+        private Copy(final DeviceEntity entity, final long changeCount, final DeviceEntity[] children) {
+            this.entity = entity;
+            this.changeCount = changeCount;
+            this.children = children;
+        }
+    }
+
+    /**
+     * How the entities of a class are copied: through the entity's own clone, if it has
+     * one, or otherwise through the accessors of the fields of its description. Child
+     * entities and table entries are always replaced by their copies, and tables are
+     * never cloned, since a clone may share the map of entries.
+     */
+    private static final class CopyPlan extends EntityPlan {
+
+        private boolean table;
+        private boolean keyedTable;
+        private boolean cloneable;
+        private final List<String> fieldNames = new ArrayList<>();
+        private final List<MethodHandle> getters = new ArrayList<>();
+        private final List<MethodHandle> setters = new ArrayList<>();
+        private final List<String> entityNames = new ArrayList<>();
+        private final List<MethodHandle> entityGetters = new ArrayList<>();
+        private final List<MethodHandle> entitySetters = new ArrayList<>();
+
+        @Override
+        void build(final DeviceEntity entity) {
+            keyedTable = entity instanceof IKeyedTableAccess;
+            table = keyedTable || entity instanceof ITableAccess;
+            cloneable = !table && hasOwnClone(entity.getClass());
+
+            final DeviceEntityDescription description = entity.get_Description();
+            if (description != null) {
+                final EntityAccessors accessors = EntityAccessors.forClass(entity.getClass());
+                for (final FieldDescription field : description.getFields()) {
+                    addField(entity, accessors, field);
+                }
+            }
+        }
+
+        private static boolean hasOwnClone(final Class<?> type) {
+            try {
+                return type.getMethod("clone").getDeclaringClass() != DeviceEntity.class;
+            } catch (final NoSuchMethodException e) {
+                return false;
+            }
+        }
+
+        private void addField(final DeviceEntity entity, final EntityAccessors accessors, final FieldDescription field) {
+            if (field.getType() == FieldType.TABLE || !accessors.hasGetter(entity, field.getName())) {
+                return;
+            }
+            final boolean isEntity = field.getType() == FieldType.ENTITY;
+            if (cloneable && !isEntity) {
+                return;
+            }
+
+            final MethodHandle getter = accessors.getGetter(entity, field.getName());
+            final MethodHandle setter;
+            try {
+                setter = accessors.getSetter(entity, field.getName(), getter.type().returnType());
+            } catch (final RuntimeException e) {
+                LOG.debug("{} field {} has no setter, and is not copied", entity.getClass().getName(), field.getName());
+                return;
+            }
+
+            (isEntity ? entityNames : fieldNames).add(field.getName());
+            (isEntity ? entityGetters : getters).add(getter);
+            (isEntity ? entitySetters : setters).add(setter);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void addChildren(final DeviceEntity live, final List<Object> keys, final List<DeviceEntity> children) {
+            for (int i = 0; i < entityGetters.size(); i++) {
+                keys.add(entityNames.get(i));
+                children.add((DeviceEntity) get(live, entityNames.get(i), entityGetters.get(i)));
+            }
+            if (keyedTable) {
+                for (final Map.Entry<IndexKey, ? extends DeviceEntity> entry
+                        : ((IKeyedTableAccess<DeviceEntity>) live).getKeyedEntries().entrySet()) {
+                    keys.add(entry.getKey());
+                    children.add(entry.getValue());
+                }
+            } else if (table) {
+                for (final Map.Entry<String, ? extends DeviceEntity> entry
+                        : ((ITableAccess<DeviceEntity>) live).getEntries().entrySet()) {
+                    keys.add(entry.getKey());
+                    children.add(entry.getValue());
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private DeviceEntity copy(final DeviceEntity live, final List<Object> keys, final DeviceEntity[] childCopies) {
+            DeviceEntity copy = cloneable ? (DeviceEntity) live.clone() : null;
+            if (copy == null || copy == live) {
+                copy = newInstance(live);
+                for (int i = 0; i < getters.size(); i++) {
+                    set(copy, fieldNames.get(i), setters.get(i), get(live, fieldNames.get(i), getters.get(i)));
+                }
+            }
+
+            final int entityCount = entitySetters.size();
+            for (int i = 0; i < entityCount; i++) {
+                set(copy, entityNames.get(i), entitySetters.get(i), childCopies[i]);
+            }
+            for (int i = entityCount; i < childCopies.length; i++) {
+                if (keyedTable) {
+                    ((IKeyedTableAccess<DeviceEntity>) copy).setEntry((IndexKey) keys.get(i), childCopies[i]);
+                } else {
+                    ((ITableAccess<DeviceEntity>) copy).setEntry((String) keys.get(i), childCopies[i]);
+                }
+            }
+            return copy;
+        }
+
+        private static Object get(final DeviceEntity entity, final String fieldName, final MethodHandle getter) {
+            try {
+                return getter.invoke(entity);
+            } catch (final Throwable e) {
+                throw EntityAccessors.accessFailure(entity, fieldName, e);
+            }
+        }
+
+        private static void set(final DeviceEntity entity, final String fieldName, final MethodHandle setter, final Object value) {
+            try {
+                setter.invoke(entity, value);
+            } catch (final Throwable e) {
+                throw EntityAccessors.accessFailure(entity, fieldName, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded pool of strings, through which equal string values of many entities, and of
+ * many devices, share a single instance.
+ * <p/>
+ * The pool is divided into segments, each locked separately and holding at most its share
+ * of the capacity; when a segment is full, its least recently used string is evicted. A
+ * single pool may be given to the {@link NetworkDevice}s of a whole fleet, so that values
+ * such as interface descriptions and software versions are held once.
+ */
+public class StringPool {
+
+    /**
+     * The default number of strings held by a pool.
+     */
+    public static final int DEFAULT_CAPACITY = 65536;
+
+    /**
+     * The default length of the longest string held by a pool.
+     */
+    public static final int DEFAULT_MAXIMUM_LENGTH = 1024;
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+    private final int maximumLength;
+
+    /**
+     * Instantiates a new string pool with the default capacity.
+     */
+    public StringPool() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAXIMUM_LENGTH);
+    }
+
+    /**
+     * Instantiates a new string pool.
+     *
+     * @param capacity      the greatest number of strings held by the pool
+     * @param maximumLength the length of the longest string held by the pool; longer strings are not pooled
+     */
+    public StringPool(final int capacity, final int maximumLength) {
+        this.maximumLength = maximumLength;
+        final int segmentCapacity = Math.max(1, capacity / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Delivers the pooled instance of a string, adding the string to the pool if it holds
+     * no equal string.
+     *
+     * @param value the string
+     * @return the pooled string equal to the value, or the value itself if it is not pooled
+     */
+    public String intern(final String value) {
+        if (value == null || value.length() > maximumLength) {
+            return value;
+        }
+        final int hash = value.hashCode();
+        final Segment segment = segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+        synchronized (segment) {
+            final String pooled = segment.get(value);
+            if (pooled != null) {
+                return pooled;
+            }
+            segment.put(value, value);
+            return value;
+        }
+    }
+
+    /**
+     * Gets the number of strings held by the pool.
+     *
+     * @return the number of strings
+     */
+    public int size() {
+        int size = 0;
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Delivers a binding whose octet string value is converted to a pooled string, so that
+     * an entity setting a field from the string form of the value holds the pooled string.
+     *
+     * @param binding the binding
+     * @return a binding with the same OID and value, or the binding itself if its value is not an octet string
+     */
+    public VariableBinding pool(final VariableBinding binding) {
+        final Variable variable = binding.getVariable();
+        if (variable == null || variable.getClass() != OctetString.class) {
+            return binding;
+        }
+        return new VariableBinding(binding.getOid(), new PooledOctetString((OctetString) variable, this));
+    }
+
+    /**
+     * The strings of a segment of the pool, in order of use.
+     */
+    private static final class Segment extends LinkedHashMap<String, String> {
+
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        private Segment(final int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * An octet string, sharing the bytes of another, whose string form is pooled. It is
+     * never modified, so it is its own clone.
+     */
+    private static final class PooledOctetString extends OctetString {
+
+        private static final long serialVersionUID = 1L;
+        private final transient StringPool pool;
+
+        private PooledOctetString(final OctetString value, final StringPool pool) {
+            this.pool = pool;
+            setValue(value.getValue());
+        }
+
+        @Override
+        public String toString() {
+            final String value = super.toString();
+            return (pool == null) ? value : pool.intern(value);
+        }
+
+        @Override
+        public Object clone() {
+            return this;
+        }
+    }
+}
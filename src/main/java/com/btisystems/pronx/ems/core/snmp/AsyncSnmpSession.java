@@ -0,0 +1,230 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.snmp4j.PDU;
+import org.snmp4j.Session;
+import org.snmp4j.Target;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.event.ResponseListener;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.IpAddress;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+import org.snmp4j.util.DefaultPDUFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link IAsyncSnmpSession}.
+ * <p/>
+ * Shares the snmp4j {@link Session} with any number of other sessions; a small
+ * dispatcher pool is therefore sufficient to keep many requests in flight.
+ */
+public class AsyncSnmpSession extends DefaultPDUFactory implements IAsyncSnmpSession {
+
+    /**
+     * Main logger for asynchronous SNMP session.
+     */
+    protected static final Logger LOG = LoggerFactory.getLogger(AsyncSnmpSession.class);
+
+    private static final ScheduledExecutorService WALK_TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "snmp-walk-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ISnmpConfiguration snmpConfiguration;
+    private final Target target;
+    private final Address address;
+    private final Session snmpInterface;
+    private final MaxRepetitionsController repetitionsController;
+
+    /**
+     * Class constructor.
+     *
+     * @param snmpConfiguration the configuration to be used for the session
+     * @param snmp              session to be wrapped
+     * @param target            snmp4j's remote SNMP entity reference
+     * @param address           address of the device associated with the session
+     */
+    public AsyncSnmpSession(final ISnmpConfiguration snmpConfiguration,
+                            final Session snmp,
+                            final Target target,
+                            final Address address) {
+        this(snmpConfiguration, snmp, target, address, null);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param snmpConfiguration     the configuration to be used for the session
+     * @param snmp                  session to be wrapped
+     * @param target                snmp4j's remote SNMP entity reference
+     * @param address               address of the device associated with the session
+     * @param repetitionsController controller of the max repetitions used for the device,
+     *                              or null if the configured max repetitions are to be used
+     */
+    public AsyncSnmpSession(final ISnmpConfiguration snmpConfiguration,
+                            final Session snmp,
+                            final Target target,
+                            final Address address,
+                            final MaxRepetitionsController repetitionsController) {
+        this.snmpConfiguration = snmpConfiguration;
+        this.snmpInterface = snmp;
+        this.target = target;
+        this.address = address;
+        this.repetitionsController = repetitionsController;
+    }
+
+    @Override
+    public CompletableFuture<String> identifyDevice() {
+        LOG.debug(">>> identifyDevice address:{}", getHostAddress());
+        return getVariable(new OID(SnmpSession.SYSTEM_OBJECT_ID_OID)).thenApply(Variable::toString);
+    }
+
+    @Override
+    public CompletableFuture<Variable> getVariable(final OID oid) {
+        LOG.debug(">>> getVariable oid:{}, address:{}", oid, getHostAddress());
+        final PDU request = snmpConfiguration.createPDU(PDU.GET);
+        request.add(new VariableBinding(oid));
+        return send(request).thenApply(response -> response.get(0).getVariable());
+    }
+
+    @Override
+    public CompletableFuture<Map<OID, Variable>> getVariables(final List<OID> oids) {
+        LOG.debug(">>> getVariables oids:{}, address:{}", oids, getHostAddress());
+        return new PackedGetRequest(snmpConfiguration, snmpInterface, target, getHostAddress(), oids).execute();
+    }
+
+    @Override
+    public CompletableFuture<WalkResponse> walkDevice(final IVariableBindingHandler networkDevice,
+                                                      final List<OID> oids) {
+        LOG.debug(">>> walkDevice address:{}", getHostAddress());
+
+        final SubtreeWalker subtreeWalker = new SubtreeWalker(snmpInterface, target, this,
+                snmpConfiguration.getMaxRepetitions(), repetitionsController);
+        final IDeviceWalk treeListener = SnmpSession.createDeviceWalk(snmpConfiguration, getHostAddress(),
+                networkDevice, oids, subtreeWalker);
+        final CompletableFuture<WalkResponse> future = treeListener.getFuture();
+
+        final ScheduledFuture<?> timeout = WALK_TIMER.schedule(() -> {
+            treeListener.stopWalk();
+            if (future.complete(new WalkResponse(new WalkException("Walk timed out")))) {
+                LOG.error("Walk for device {} timed out.", getHostAddress());
+            }
+        }, snmpConfiguration.getWalkTimeout(), TimeUnit.MILLISECONDS);
+
+        future.whenComplete((response, throwable) -> {
+            // Stops the tree walk if the caller cancelled the future.
+            treeListener.stopWalk();
+            timeout.cancel(false);
+        });
+
+        treeListener.start();
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Void> setVariables(final VariableBinding[] bindings) {
+        LOG.debug(">>> setVariables bindings:{}, address {}", bindings, getHostAddress());
+        final PDU request = snmpConfiguration.createPDU(PDU.SET);
+        request.addAll(bindings);
+        return send(request).thenApply(response -> (Void) null);
+    }
+
+    @Override
+    public InetAddress getAddress() {
+        return ((IpAddress) address).getInetAddress();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Actually nothing to do.
+        // snmpInterface is a singleton and should not be closed.
+    }
+
+    @Override
+    public PDU createPDU(final Target target) {
+        return snmpConfiguration.createPDU(PDU.GETBULK);
+    }
+
+    /**
+     * Sends a request to the device, delivering the response PDU through the returned future.
+     * The future is completed exceptionally with an {@link SnmpIoException} if the request cannot
+     * be sent, times out or is answered with an error status.
+     *
+     * @param request the request
+     * @return future delivering the response
+     */
+    protected CompletableFuture<PDU> send(final PDU request) {
+        final CompletableFuture<PDU> future = new CompletableFuture<>();
+        final String hostIp = getHostAddress();
+        try {
+            snmpInterface.send(request, target, null, new ResponseListener() {
+                @Override
+                public void onResponse(final ResponseEvent event) {
+                    snmpInterface.cancel(event.getRequest(), this);
+                    complete(future, event, hostIp);
+                }
+            });
+        } catch (final IOException e) {
+            LOG.warn("IO Exception sending to host {}, message={}", hostIp, e.getMessage());
+            future.completeExceptionally(new SnmpIoException(hostIp, e.getMessage()));
+        }
+        return future;
+    }
+
+    /**
+     * Gets host address.
+     *
+     * @return the host address
+     */
+    protected String getHostAddress() {
+        return ((IpAddress) address).getInetAddress().getHostAddress();
+    }
+
+    private static void complete(final CompletableFuture<PDU> future, final ResponseEvent event, final String hostIp) {
+        if (event.getError() != null) {
+            LOG.warn("Response from host {} has error: {}", hostIp, event.getError().getMessage());
+            future.completeExceptionally(new SnmpIoException(hostIp, event.getError().getMessage()));
+            return;
+        }
+
+        final PDU response = event.getResponse();
+        if (response == null) {
+            LOG.debug("Timed Out");
+            future.completeExceptionally(new SnmpIoException(hostIp, "Timed out"));
+        } else if (response.getErrorStatus() == SnmpConstants.SNMP_ERROR_AUTHORIZATION_ERROR) {
+            future.completeExceptionally(new SnmpIoException(hostIp, SnmpSession.AUTHORIZATION_ERROR_MESSAGE));
+        } else if (response.getErrorStatus() != SnmpConstants.SNMP_ERROR_SUCCESS) {
+            LOG.warn("Response PDU from host {} has error: {}", hostIp, response.getErrorStatusText());
+            future.completeExceptionally(new SnmpIoException(hostIp, response.getErrorStatusText()));
+        } else {
+            future.complete(response);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link IAsyncSnmpSession} which performs each operation with a synchronous
+ * {@link ISnmpSession}, for factories that do not provide asynchronous sessions.
+ * <p/>
+ * Each operation holds the calling thread until the device has responded, and returns
+ * a future that is already complete.
+ */
+final class BlockingAsyncSnmpSession implements IAsyncSnmpSession {
+
+    private final ISnmpSession session;
+
+    /**
+     * Instantiates a new blocking asynchronous session.
+     *
+     * @param session the synchronous session performing the operations
+     */
+    BlockingAsyncSnmpSession(final ISnmpSession session) {
+        this.session = session;
+    }
+
+    @Override
+    public CompletableFuture<String> identifyDevice() {
+        return call(session::identifyDevice);
+    }
+
+    @Override
+    public CompletableFuture<Variable> getVariable(final OID oid) {
+        return call(() -> {
+            final Variable value = session.getVariables(Collections.singletonList(oid)).get(oid);
+            if (value == null) {
+                throw new SnmpIoException(getAddress().getHostAddress(), "No value for " + oid);
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<OID, Variable>> getVariables(final List<OID> oids) {
+        return call(() -> session.getVariables(oids));
+    }
+
+    @Override
+    public CompletableFuture<WalkResponse> walkDevice(final IVariableBindingHandler networkDevice, final List<OID> oids) {
+        return call(() -> session.walkDevice(networkDevice, oids));
+    }
+
+    @Override
+    public CompletableFuture<Void> setVariables(final VariableBinding[] bindings) {
+        return call(() -> {
+            session.setVariables(bindings);
+            return null;
+        });
+    }
+
+    @Override
+    public InetAddress getAddress() {
+        return session.getAddress();
+    }
+
+    @Override
+    public void close() throws IOException {
+        session.close();
+    }
+
+    private static <T> CompletableFuture<T> call(final Callable<T> operation) {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+        try {
+            future.complete(operation.call());
+        } catch (final Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
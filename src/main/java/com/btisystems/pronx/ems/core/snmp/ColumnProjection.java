@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription;
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.VariableBinding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Selects the columns to be retrieved from each table when getting table rows.
+ * <p/>
+ * Columns are selected by the id or name of their field in the description of the table.
+ * All columns are retrieved from a table for which no column has been selected.
+ */
+public class ColumnProjection {
+
+    private final Map<OID, SortedSet<Integer>> fieldIds = new HashMap<OID, SortedSet<Integer>>();
+    // The plans of the selected columns of each table, dropped whenever the selection changes.
+    private final Map<DeviceEntityDescription, TablePlan[]> plans = new ConcurrentHashMap<DeviceEntityDescription, TablePlan[]>();
+
+    /**
+     * Selects columns of a table by field id.
+     *
+     * @param description the description of the table entry
+     * @param ids         the ids of the fields to be retrieved
+     * @return this projection
+     * @throws IllegalArgumentException if the table has no field with one of the ids
+     */
+    public ColumnProjection withFieldIds(final DeviceEntityDescription description, final int... ids) {
+        final SortedSet<Integer> selected = getSelectedIds(description);
+        for (final int id : ids) {
+            if (description.getFieldById(id) == null) {
+                throw new IllegalArgumentException("Unknown field " + id + " of " + description.getOid());
+            }
+            selected.add(id);
+        }
+        return this;
+    }
+
+    /**
+     * Selects columns of a table by field name.
+     *
+     * @param description the description of the table entry
+     * @param names       the names of the fields to be retrieved
+     * @return this projection
+     * @throws IllegalArgumentException if the table has no field with one of the names
+     */
+    public ColumnProjection withFieldNames(final DeviceEntityDescription description, final String... names) {
+        final SortedSet<Integer> selected = getSelectedIds(description);
+        for (final String name : names) {
+            final FieldDescription field = description.getFieldByName(name);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field " + name + " of " + description.getOid());
+            }
+            selected.add(field.getId());
+        }
+        return this;
+    }
+
+    private SortedSet<Integer> getSelectedIds(final DeviceEntityDescription description) {
+        plans.clear();
+        SortedSet<Integer> selected = fieldIds.get(description.getOid());
+        if (selected == null) {
+            selected = new TreeSet<Integer>();
+            fieldIds.put(description.getOid(), selected);
+        }
+        return selected;
+    }
+
+    /**
+     * Gets the fields to be retrieved from a table.
+     *
+     * @param description the description of the table entry
+     * @return the selected fields, in id order, or all fields of the table if none was selected
+     */
+    public Collection<FieldDescription> getFields(final DeviceEntityDescription description) {
+        final SortedSet<Integer> selected = fieldIds.get(description.getOid());
+        if (selected == null) {
+            return description.getFields();
+        }
+        final Collection<FieldDescription> fields = new ArrayList<FieldDescription>(selected.size());
+        for (final Integer id : selected) {
+            fields.add(description.getFieldById(id));
+        }
+        return fields;
+    }
+
+    /**
+     * Wraps a handler so that it receives only the selected columns of a set of tables.
+     * Bindings that belong to none of the tables are passed on unchanged.
+     *
+     * @param tables  the descriptions of the table entries being retrieved
+     * @param handler the handler of the selected bindings
+     * @return the filtering handler
+     */
+    IVariableBindingHandler filter(final Collection<DeviceEntityDescription> tables, final IVariableBindingHandler handler) {
+        return new IVariableBindingHandler() {
+            @Override
+            public boolean addVariable(final VariableBinding binding) {
+                final OID oid = binding.getOid();
+                for (final DeviceEntityDescription description : tables) {
+                    final OID entryOid = description.getOid();
+                    if (oid.size() > entryOid.size() && oid.startsWith(entryOid)) {
+                        final SortedSet<Integer> selected = fieldIds.get(entryOid);
+                        if (selected != null && !selected.contains(oid.get(entryOid.size()))) {
+                            return true;
+                        }
+                        break;
+                    }
+                }
+                return handler.addVariable(binding);
+            }
+        };
+    }
+
+    /**
+     * Gets the plan of the selected columns of a table.
+     *
+     * @param description   the description of the table entry
+     * @param columnsPerPdu the maximum number of columns requested in one PDU
+     * @return the cached plan
+     */
+    TablePlan getPlan(final DeviceEntityDescription description, final int columnsPerPdu) {
+        if (!fieldIds.containsKey(description.getOid())) {
+            return TablePlan.get(description, null, columnsPerPdu);
+        }
+        final TablePlan[] tablePlans = plans.get(description);
+        TablePlan plan = TablePlan.find(tablePlans, columnsPerPdu);
+        if (plan == null) {
+            plan = TablePlan.create(description, getFields(description), columnsPerPdu);
+            plans.put(description, TablePlan.add(tablePlans, plan));
+        }
+        return plan;
+    }
+}
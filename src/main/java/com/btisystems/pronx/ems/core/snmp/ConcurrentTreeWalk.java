@@ -0,0 +1,223 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.slf4j.Logger;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.VariableBinding;
+import org.snmp4j.util.TreeEvent;
+import org.snmp4j.util.TreeListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A device walk which keeps several subtrees in flight at the same time.
+ * <p/>
+ * Variable bindings from all subtrees are passed to the handler one at a time, while
+ * holding the lock of the walk, so that the handler need not be thread safe. Subtrees
+ * contained in another subtree of the walk are not walked again. The walk stops at
+ * the first subtree that fails.
+ */
+class ConcurrentTreeWalk implements IDeviceWalk {
+
+    private static final Logger LOG = SnmpSession.LOG;
+    private static final Logger WALKER_LOG = SnmpSession.WALKER_LOG;
+
+    private final long startTime = System.currentTimeMillis();
+    private final CompletableFuture<WalkResponse> future = new CompletableFuture<>();
+    private final String hostAddress;
+    private final IVariableBindingHandler networkDevice;
+    private final List<OID> roots;
+    private final SubtreeWalker subtreeWalker;
+    private final int maximumInFlight;
+    private volatile boolean finished;
+    private int nextRoot;
+    private int inFlight;
+    private int requests;
+    private int objects;
+    private WalkResponse response;
+
+    /**
+     * Instantiates a new concurrent tree walk.
+     *
+     * @param hostAddress     the address of the device, used for logging
+     * @param networkDevice   the network device
+     * @param oids            the oids
+     * @param subtreeWalker   the walker of each subtree
+     * @param maximumInFlight the maximum number of subtrees walked at the same time
+     */
+    ConcurrentTreeWalk(final String hostAddress,
+                       final IVariableBindingHandler networkDevice,
+                       final List<OID> oids,
+                       final SubtreeWalker subtreeWalker,
+                       final int maximumInFlight) {
+        this.hostAddress = hostAddress;
+        this.networkDevice = networkDevice;
+        this.roots = getDistinctRoots(oids);
+        this.subtreeWalker = subtreeWalker;
+        this.maximumInFlight = maximumInFlight;
+    }
+
+    private static List<OID> getDistinctRoots(final List<OID> oids) {
+        final List<OID> result = new ArrayList<>(oids.size());
+        for (final OID oid : oids) {
+            if (!isContained(oid, result)) {
+                result.add(oid);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isContained(final OID oid, final List<OID> roots) {
+        for (final OID root : roots) {
+            if (oid.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void start() {
+        WALKER_LOG.debug("NE:{}, walking {} subtrees, at most {} at a time", hostAddress, roots.size(), maximumInFlight);
+        startSubtrees();
+    }
+
+    private void startSubtrees() {
+        while (!finished && inFlight < maximumInFlight && nextRoot < roots.size()) {
+            final OID root = roots.get(nextRoot++);
+            inFlight++;
+            WALKER_LOG.debug("Element {} next subtree: {}", hostAddress, root);
+            subtreeWalker.walk(root, new SubtreeListener());
+        }
+    }
+
+    @Override
+    public WalkResponse getResponse() {
+        return (response == null) ? new WalkResponse(new WalkException("Walk interrupted")) : response;
+    }
+
+    @Override
+    public CompletableFuture<WalkResponse> getFuture() {
+        return future;
+    }
+
+    @Override
+    public void stopWalk() {
+        finished = true;
+    }
+
+    @Override
+    public boolean isFinished() {
+        WALKER_LOG.debug("Element {} finished: {}", hostAddress, finished);
+        return finished;
+    }
+
+    private synchronized boolean addVariables(final TreeEvent e) {
+        if (finished) {
+            return false;
+        }
+
+        requests++;
+        for (final VariableBinding binding : e.getVariableBindings()) {
+            if (addVariable(binding)) {
+                objects++;
+            }
+        }
+        return true;
+    }
+
+    private boolean addVariable(final VariableBinding binding) {
+        try {
+            if (networkDevice.addVariable(binding)) {
+                WALKER_LOG.debug("Element {} added varbind: {}.", hostAddress, binding);
+            } else {
+                LOG.debug("Element {} unknown varbind: {}", hostAddress, binding);
+                return false;
+            }
+        } catch (final RuntimeException e) {
+            WALKER_LOG.warn("Failed adding varbind " + binding + " for element " + hostAddress + ".", e);
+        }
+        return true;
+    }
+
+    private synchronized void subtreeFinished(final TreeEvent e) {
+        inFlight--;
+        if (finished) {
+            return;
+        }
+
+        if (e.isError()) {
+            LOG.error("Exception while walking " + hostAddress + ".", e.getException());
+            finish(new WalkResponse(new WalkException(e.getErrorMessage())));
+            return;
+        }
+
+        startSubtrees();
+
+        if (inFlight == 0) {
+            final long walkTime = System.currentTimeMillis() - startTime;
+            WALKER_LOG.debug("Element {} walked, requests: {}, objects: {} time: {}.", hostAddress, requests, objects, walkTime);
+            final WalkResponse success = new WalkResponse(true);
+            success.setObjectCount(objects);
+            success.setRequestCount(requests);
+            success.setWalkTime(walkTime);
+            success.setMaxRepetitions(subtreeWalker.getMaxRepetitions());
+            finish(success);
+        }
+    }
+
+    private void finish(final WalkResponse walkResponse) {
+        response = walkResponse;
+        finished = true;
+        notifyAll();
+        future.complete(walkResponse);
+    }
+
+    /**
+     * Listener for a single subtree of the walk.
+     */
+    private class SubtreeListener implements TreeListener {
+
+        private boolean done;
+
+        @Override
+        public boolean next(final TreeEvent e) {
+            return addVariables(e);
+        }
+
+        @Override
+        public void finished(final TreeEvent e) {
+            synchronized (ConcurrentTreeWalk.this) {
+                // An SNMPv1 agent ending a subtree with noSuchName reports the end twice.
+                if (done) {
+                    return;
+                }
+                done = true;
+                if ((e.getVariableBindings() != null) && (e.getVariableBindings().length > 0)) {
+                    WALKER_LOG.debug("Element {} finished subtree count {}.", hostAddress, e.getVariableBindings().length);
+                    addVariables(e);
+                }
+                subtreeFinished(e);
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return done || finished;
+        }
+    }
+}
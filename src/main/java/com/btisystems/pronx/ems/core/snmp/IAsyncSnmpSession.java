@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking companion to {@link ISnmpSession}.
+ * <p/>
+ * Requests are sent through the snmp4j response listener callback path, so no
+ * thread is held while a request is outstanding. Each operation returns a
+ * {@link CompletableFuture} which is completed by the snmp4j dispatcher thread
+ * that receives the response; dependent stages should therefore avoid blocking.
+ * Failures are reported by completing the future exceptionally, normally with an
+ * {@link SnmpIoException}.
+ */
+public interface IAsyncSnmpSession extends AutoCloseable {
+
+    /**
+     * Identify the device with which the session is associated
+     *
+     * @return future delivering the string representing the device
+     */
+    CompletableFuture<String> identifyDevice();
+
+    /**
+     * Deliver the value of a specified managed object variable.
+     *
+     * @param oid the identifier of the variable to be returned
+     * @return future delivering the variable value
+     */
+    CompletableFuture<Variable> getVariable(OID oid);
+
+    /**
+     * Deliver the values of a set of managed object variables, packing as many
+     * variables into each request as the maximum response PDU size allows and
+     * sending the requests concurrently.
+     *
+     * @param oids the identifiers of the variables to be returned
+     * @return future delivering the retrieved values, in the order in which they were
+     * requested; variables which the device does not hold are omitted
+     */
+    CompletableFuture<Map<OID, Variable>> getVariables(List<OID> oids);
+
+    /**
+     * Walk managed objects of a device.
+     * <p/>
+     * The walk is abandoned if it has not finished within the configured walk timeout,
+     * or if the returned future is cancelled.
+     *
+     * @param networkDevice an {@link IVariableBindingHandler} which will handle the values retrieved from the device
+     * @param oids          ordered list of OIDs to be retrieved
+     * @return future delivering a {@link WalkResponse} describing the completion status of the walk
+     */
+    CompletableFuture<WalkResponse> walkDevice(IVariableBindingHandler networkDevice, List<OID> oids);
+
+    /**
+     * Sets the provided varbinds on the device.
+     *
+     * @param bindings the bindings
+     * @return future completed when the device has accepted the bindings
+     */
+    CompletableFuture<Void> setVariables(VariableBinding[] bindings);
+
+    /**
+     * Gets address.
+     *
+     * @return the Inet Address of the device associated with the session
+     */
+    InetAddress getAddress();
+
+    /**
+     * Close the session and release associated resources.
+     *
+     * @throws IOException
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A walk of the subtrees of a device.
+ * <p/>
+ * Threads waiting for the walk to finish may wait on the walk itself, which is
+ * notified when the walk finishes.
+ */
+interface IDeviceWalk {
+
+    /**
+     * Starts the walk.
+     */
+    void start();
+
+    /**
+     * Is finished boolean.
+     *
+     * @return true if the walk has finished or been stopped
+     */
+    boolean isFinished();
+
+    /**
+     * Stop walk.
+     */
+    void stopWalk();
+
+    /**
+     * Gets response.
+     *
+     * @return the response
+     */
+    WalkResponse getResponse();
+
+    /**
+     * Gets the future completed with the response when the walk finishes.
+     *
+     * @return the future
+     */
+    CompletableFuture<WalkResponse> getFuture();
+}
@@ -115,4 +115,91 @@ public interface ISnmpConfiguration extends Serializable {
      * @return the maximum number of rows to be retrieved per PDU, when executing a row-wise table walk. See org.snmp4j.util.TableUtils.
      */
     int getMaximumRowsPerPdu();
-}
\ No newline at end of file
+
+    /**
+     * Gets max size response pdu.
+     *
+     * @return the maximum size, in bytes, of a response PDU that the remote agent is expected to deliver.
+     * By default 65535.
+     */
+    default int getMaxSizeResponsePDU() {
+        return 65535;
+    }
+
+    /**
+     * Gets maximum concurrent subtrees.
+     *
+     * @return the maximum number of subtrees which may be walked at the same time on a single device,
+     * when walking a device. A value of 1 or less walks the subtrees in turn.
+     * By default 1.
+     */
+    default int getMaximumConcurrentSubtrees() {
+        return 1;
+    }
+
+    /**
+     * Gets maximum concurrent table requests.
+     *
+     * @return the maximum number of table requests which may be in progress at the same time on a single device,
+     * when retrieving specific table rows. A value of 1 or less retrieves the rows of each index in turn.
+     * By default 1.
+     */
+    default int getMaximumConcurrentTableRequests() {
+        return 1;
+    }
+
+    /**
+     * Gets maximum table index gap.
+     *
+     * @return the largest number of unrequested indices which may lie between two requested indices of a table
+     * retrieved with a single ranged request, when retrieving specific table rows. A value of 0 joins only adjacent
+     * indices. Rows in a gap are retrieved but not delivered.
+     * By default 0.
+     */
+    default int getMaximumTableIndexGap() {
+        return 0;
+    }
+
+    /**
+     * Gets maximum sparse rows.
+     *
+     * @return the largest number of rows of a ranged table request which may instead be retrieved with GET requests
+     * for the instance of each column, when those need no more PDUs than the GETBULK walk of the range.
+     * A value of 0 always walks the range.
+     * By default 10.
+     */
+    default int getMaximumSparseRows() {
+        return 10;
+    }
+
+    /**
+     * Is adaptive repetitions boolean.
+     *
+     * @return true if the max repetitions of GETBULK requests are adapted to the responses of each device,
+     * starting from {@link #getMaxRepetitions()}.
+     * By default false.
+     */
+    default boolean isAdaptiveRepetitions() {
+        return false;
+    }
+
+    /**
+     * Gets repetitions lower bound.
+     *
+     * @return the least max repetitions used when adapting max repetitions to a device.
+     * By default 1.
+     */
+    default int getRepetitionsLowerBound() {
+        return 1;
+    }
+
+    /**
+     * Gets repetitions upper bound.
+     *
+     * @return the greatest max repetitions used when adapting max repetitions to a device.
+     * By default 100.
+     */
+    default int getRepetitionsUpperBound() {
+        return 100;
+    }
+}
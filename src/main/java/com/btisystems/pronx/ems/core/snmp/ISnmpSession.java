@@ -15,10 +15,13 @@ package com.btisystems.pronx.ems.core.snmp;
 
 import com.btisystems.pronx.ems.core.model.DeviceEntityDescription;
 import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
 import org.snmp4j.smi.VariableBinding;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -51,6 +54,29 @@ public interface ISnmpSession extends AutoCloseable {
      */
     Integer getVariableAsInt(String oid);
 
+    /**
+     * Deliver the values of a set of managed object variables, packing as many
+     * variables into each request as the maximum response PDU size allows.
+     * <p/>
+     * The default implementation retrieves the variables one at a time with
+     * {@link #getVariable(String)}, delivering their string representations.
+     *
+     * @param oids the identifiers of the variables to be returned
+     * @return map of the retrieved values, in the order in which they were requested;
+     * variables which the device does not hold are omitted
+     * @throws SnmpIoException if the device could not be reached
+     */
+    default Map<OID, Variable> getVariables(final List<OID> oids) {
+        final Map<OID, Variable> values = new LinkedHashMap<OID, Variable>();
+        for (final OID oid : oids) {
+            final String value = getVariable(oid.toDottedString());
+            if (value != null) {
+                values.put(oid, new OctetString(value));
+            }
+        }
+        return values;
+    }
+
     /**
      * Walk managed objects of a device.
      *
@@ -72,6 +98,27 @@ public interface ISnmpSession extends AutoCloseable {
      */
     WalkResponse getTableRows(final IVariableBindingHandler networkDevice, Map<DeviceEntityDescription, List<OID>> tableIndexes) throws IOException;
 
+    /**
+     * Gets the contents of selected columns of each of the rows with specified index values for a
+     * set of tables.
+     * <p/>
+     * The default implementation retrieves all the columns of the rows, passing only the
+     * selected columns to the handler.
+     *
+     * @param networkDevice an {@link IVariableBindingHandler} which will handle the values retrieved from the device
+     * @param tableIndexes  map of the tables to be updated, each with a list of indexes of the rows to be updated
+     * @param projection    the columns to be retrieved from each table, or null for all columns
+     * @return a {@link WalkResponse} describing the completion status of the retrieval
+     * @throws IOException the io exception
+     */
+    default WalkResponse getTableRows(final IVariableBindingHandler networkDevice, Map<DeviceEntityDescription, List<OID>> tableIndexes,
+                                      ColumnProjection projection) throws IOException {
+        if (projection == null) {
+            return getTableRows(networkDevice, tableIndexes);
+        }
+        return getTableRows(projection.filter(tableIndexes.keySet(), networkDevice), tableIndexes);
+    }
+
     /**
      * Gets address.
      *
@@ -54,4 +54,22 @@ public interface ISnmpSessionFactory {
      * @throws IOException as thrown by the underlying network interface
      */
     ISnmpSession createSession(String ipAddress, String community, String factoryName, AccessType accessType) throws IOException;
+
+    /**
+     * Creates and configures an asynchronous SNMP session, sharing the underlying
+     * network interface with the synchronous sessions created by this factory.
+     * <p/>
+     * The default implementation performs each operation with a synchronous session
+     * created by {@link #createSession(ISnmpConfiguration, String)}, holding the calling
+     * thread until the device responds.
+     *
+     * @param configuration the configuration to be applied to the session
+     * @param ipAddress     the ip address of the target device of the session
+     * @return an {@link IAsyncSnmpSession} connected to the host at <code>ipAddress</code>
+     * and configured using <code>configuration</code>
+     * @throws IOException as thrown by the underlying network interface
+     */
+    default IAsyncSnmpSession createAsyncSession(final ISnmpConfiguration configuration, final String ipAddress) throws IOException {
+        return new BlockingAsyncSnmpSession(createSession(configuration, ipAddress));
+    }
 }
@@ -30,5 +30,61 @@ public interface ISnmpTableWalker {
      * @throws IOException the io exception
      */
     WalkResponse getTableRows(final IVariableBindingHandler networkDevice, final Map<DeviceEntityDescription, List<OID>> tableIndexes) throws IOException;
+
+    /**
+     * Gets the selected columns of table rows.
+     * <p/>
+     * The default implementation retrieves all the columns of the rows, passing only the
+     * selected columns to the handler.
+     *
+     * @param networkDevice the network device
+     * @param tableIndexes  the table indexes
+     * @param projection    the columns to be retrieved from each table, or null for all columns
+     * @return the table rows
+     * @throws IOException the io exception
+     */
+    default WalkResponse getTableRows(final IVariableBindingHandler networkDevice, final Map<DeviceEntityDescription, List<OID>> tableIndexes,
+                                      final ColumnProjection projection) throws IOException {
+        if (projection == null) {
+            return getTableRows(networkDevice, tableIndexes);
+        }
+        return getTableRows(projection.filter(tableIndexes.keySet(), networkDevice), tableIndexes);
+    }
+
+    /**
+     * Gets the selected columns of table rows, with the given choice of requests.
+     * <p/>
+     * The default implementation ignores the strategy, leaving the choice of requests to
+     * {@link #getTableRows(IVariableBindingHandler, Map, ColumnProjection)}; the rows retrieved are the same.
+     *
+     * @param networkDevice the network device
+     * @param tableIndexes  the table indexes
+     * @param projection    the columns to be retrieved from each table, or null for all columns
+     * @param strategy      the choice of requests with which the rows are retrieved
+     * @return the table rows
+     * @throws IOException the io exception
+     */
+    default WalkResponse getTableRows(final IVariableBindingHandler networkDevice, final Map<DeviceEntityDescription, List<OID>> tableIndexes,
+                                      final ColumnProjection projection, final Strategy strategy) throws IOException {
+        return getTableRows(networkDevice, tableIndexes, projection);
+    }
+
+    /**
+     * The requests with which table rows are retrieved.
+     */
+    enum Strategy {
+        /**
+         * GET requests for sparse rows, otherwise a GETBULK walk of the range of the rows.
+         */
+        AUTOMATIC,
+        /**
+         * GET requests for the instance of each column in each row.
+         */
+        GET,
+        /**
+         * A GETBULK walk of the range of the rows.
+         */
+        GETBULK
+    }
     
 }
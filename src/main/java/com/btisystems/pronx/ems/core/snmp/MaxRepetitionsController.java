@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adapts the max-repetitions of the GETBULK requests sent to a single device.
+ * <p/>
+ * The value grows additively while the device answers full responses promptly, drops to
+ * the number of bindings actually returned when the device truncates its responses, and
+ * is halved when a response is slow, times out or is rejected as too big. It is always
+ * kept within the configured bounds.
+ */
+public class MaxRepetitionsController {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MaxRepetitionsController.class);
+
+    private final int lowerBound;
+    private final int upperBound;
+    private final long slowResponseTime;
+    private int maxRepetitions;
+
+    /**
+     * Instantiates a new max repetitions controller.
+     *
+     * @param initial          the initial max repetitions
+     * @param lowerBound       the least max repetitions that may be used
+     * @param upperBound       the greatest max repetitions that may be used
+     * @param slowResponseTime the response time, in milliseconds, above which a response is considered slow
+     */
+    public MaxRepetitionsController(final int initial,
+                                    final int lowerBound,
+                                    final int upperBound,
+                                    final long slowResponseTime) {
+        this.lowerBound = Math.max(1, lowerBound);
+        this.upperBound = Math.max(this.lowerBound, upperBound);
+        this.slowResponseTime = slowResponseTime;
+        this.maxRepetitions = bound(initial);
+    }
+
+    /**
+     * Gets max repetitions.
+     *
+     * @return the max repetitions to be used for the next request
+     */
+    public synchronized int getMaxRepetitions() {
+        return maxRepetitions;
+    }
+
+    /**
+     * Records a response to a request which did not reach the end of the data requested.
+     *
+     * @param requested    the max repetitions of the request
+     * @param received     the number of repetitions in the response
+     * @param responseTime the time taken for the response, in milliseconds
+     */
+    public synchronized void onResponse(final int requested, final int received, final long responseTime) {
+        if (responseTime > slowResponseTime) {
+            decrease("slow response");
+        } else if (received < requested) {
+            update(Math.min(maxRepetitions, received), "truncated response");
+        } else if (requested >= maxRepetitions) {
+            update(maxRepetitions + Math.max(1, maxRepetitions / 4), "full response");
+        }
+    }
+
+    /**
+     * Records the response to the final request for the data requested, which will
+     * normally hold fewer repetitions than were requested.
+     *
+     * @param responseTime the time taken for the response, in milliseconds
+     */
+    public synchronized void onLastResponse(final long responseTime) {
+        if (responseTime > slowResponseTime) {
+            decrease("slow response");
+        }
+    }
+
+    /**
+     * Records a request which timed out.
+     */
+    public synchronized void onTimeout() {
+        decrease("timeout");
+    }
+
+    /**
+     * Records a request rejected by the device as too big.
+     */
+    public synchronized void onTooBig() {
+        decrease("tooBig");
+    }
+
+    private void decrease(final String reason) {
+        update(maxRepetitions / 2, reason);
+    }
+
+    private void update(final int value, final String reason) {
+        final int bounded = bound(value);
+        if (bounded != maxRepetitions) {
+            LOG.debug("max repetitions {} -> {} after {}", maxRepetitions, bounded, reason);
+            maxRepetitions = bounded;
+        }
+    }
+
+    private int bound(final int value) {
+        return Math.max(lowerBound, Math.min(upperBound, value));
+    }
+}
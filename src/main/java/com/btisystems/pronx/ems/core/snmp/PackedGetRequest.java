@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.snmp4j.PDU;
+import org.snmp4j.Session;
+import org.snmp4j.Target;
+import org.snmp4j.asn1.BER;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.event.ResponseListener;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Retrieves a set of scalar or column instances using as few GET requests as possible.
+ * <p/>
+ * The OIDs are packed into GET PDUs whose estimated response fits within the configured
+ * maximum response PDU size, and all PDUs are sent at once. A PDU answered with
+ * <code>tooBig</code> is split in two and each half is sent again. Instances the
+ * device does not hold are omitted from the result.
+ */
+class PackedGetRequest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PackedGetRequest.class);
+
+    /**
+     * Bytes reserved in each response for the message and PDU headers.
+     */
+    static final int MESSAGE_OVERHEAD = 100;
+
+    /**
+     * Bytes reserved for the value of each variable binding in a response.
+     */
+    static final int VALUE_ALLOWANCE = 32;
+
+    private final ISnmpConfiguration snmpConfiguration;
+    private final Session snmpInterface;
+    private final Target target;
+    private final String hostAddress;
+    private final List<OID> oids;
+    private final Map<OID, Variable> results = new ConcurrentHashMap<>();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final CompletableFuture<Map<OID, Variable>> future = new CompletableFuture<>();
+
+    /**
+     * Instantiates a new packed get request.
+     *
+     * @param snmpConfiguration the configuration from which the PDUs are created
+     * @param snmpInterface     the session through which the PDUs are sent
+     * @param target            the target device
+     * @param hostAddress       the address of the device, used for logging and errors
+     * @param oids              the OIDs of the instances to be retrieved
+     */
+    PackedGetRequest(final ISnmpConfiguration snmpConfiguration,
+                     final Session snmpInterface,
+                     final Target target,
+                     final String hostAddress,
+                     final List<OID> oids) {
+        this.snmpConfiguration = snmpConfiguration;
+        this.snmpInterface = snmpInterface;
+        this.target = target;
+        this.hostAddress = hostAddress;
+        this.oids = oids;
+    }
+
+    /**
+     * Sends the requests.
+     *
+     * @return future delivering the retrieved variables, in the order in which the OIDs
+     * were requested, or completed with an {@link SnmpIoException} if a request failed
+     */
+    CompletableFuture<Map<OID, Variable>> execute() {
+        final List<List<OID>> chunks = pack(oids, snmpConfiguration.getMaxSizeResponsePDU());
+        if (chunks.isEmpty()) {
+            future.complete(Collections.<OID, Variable>emptyMap());
+            return future;
+        }
+
+        outstanding.set(chunks.size());
+        for (final List<OID> chunk : chunks) {
+            send(chunk);
+        }
+        return future;
+    }
+
+    /**
+     * Splits a list of OIDs into chunks whose estimated responses fit within a maximum PDU size.
+     *
+     * @param oids       the OIDs
+     * @param maxPduSize the maximum response PDU size
+     * @return the chunks, each holding at least one OID
+     */
+    static List<List<OID>> pack(final List<OID> oids, final int maxPduSize) {
+        final int capacity = maxPduSize - MESSAGE_OVERHEAD;
+        final List<List<OID>> chunks = new ArrayList<>();
+        List<OID> chunk = new ArrayList<>();
+        int size = 0;
+        for (final OID oid : oids) {
+            final int length = getEstimatedLength(oid);
+            if (!chunk.isEmpty() && size + length > capacity) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                size = 0;
+            }
+            chunk.add(oid);
+            size += length;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static int getEstimatedLength(final OID oid) {
+        final int length = oid.getBERLength() + VALUE_ALLOWANCE;
+        return 1 + BER.getBERLengthOfLength(length) + length;
+    }
+
+    private void send(final List<OID> chunk) {
+        final PDU request = snmpConfiguration.createPDU(PDU.GET);
+        for (final OID oid : chunk) {
+            request.add(new VariableBinding(oid));
+        }
+
+        try {
+            snmpInterface.send(request, target, null, new ResponseListener() {
+                @Override
+                public void onResponse(final ResponseEvent event) {
+                    snmpInterface.cancel(event.getRequest(), this);
+                    processResponse(chunk, event);
+                }
+            });
+        } catch (final IOException e) {
+            LOG.warn("IO Exception sending to host {}, message={}", hostAddress, e.getMessage());
+            future.completeExceptionally(new SnmpIoException(hostAddress, e.getMessage()));
+        }
+    }
+
+    private void processResponse(final List<OID> chunk, final ResponseEvent event) {
+        if (event.getError() != null) {
+            future.completeExceptionally(new SnmpIoException(hostAddress, event.getError().getMessage()));
+            return;
+        }
+
+        final PDU response = event.getResponse();
+        if (response == null) {
+            future.completeExceptionally(new SnmpIoException(hostAddress, "Timed out"));
+            return;
+        }
+
+        final int errorStatus = response.getErrorStatus();
+        if (errorStatus == SnmpConstants.SNMP_ERROR_SUCCESS) {
+            for (final VariableBinding binding : response.getVariableBindings()) {
+                if (!binding.isException()) {
+                    results.put(binding.getOid(), binding.getVariable());
+                }
+            }
+            chunkDone();
+        } else if (errorStatus == SnmpConstants.SNMP_ERROR_TOO_BIG && chunk.size() > 1) {
+            LOG.debug("Element {} response too big for {} bindings, splitting request", hostAddress, chunk.size());
+            final int half = chunk.size() / 2;
+            outstanding.incrementAndGet();
+            send(chunk.subList(0, half));
+            send(chunk.subList(half, chunk.size()));
+        } else if (errorStatus == SnmpConstants.SNMP_ERROR_TOO_BIG) {
+            LOG.debug("Element {} cannot return {} within a single response", hostAddress, chunk.get(0));
+            chunkDone();
+        } else if (errorStatus == SnmpConstants.SNMP_ERROR_NO_SUCH_NAME
+                && response.getErrorIndex() > 0 && response.getErrorIndex() <= chunk.size()) {
+            // An SNMPv1 agent rejects the whole request for a single missing instance,
+            // so drop the offending binding and ask again for the remainder.
+            final List<OID> remainder = new ArrayList<>(chunk);
+            final OID rejected = remainder.remove(response.getErrorIndex() - 1);
+            LOG.debug("Element {} rejected {}: {}", hostAddress, rejected, response.getErrorStatusText());
+            if (remainder.isEmpty()) {
+                chunkDone();
+            } else {
+                send(remainder);
+            }
+        } else {
+            future.completeExceptionally(new SnmpIoException(hostAddress, response.getErrorStatusText()));
+        }
+    }
+
+    private void chunkDone() {
+        if (outstanding.decrementAndGet() == 0) {
+            final Map<OID, Variable> ordered = new LinkedHashMap<>();
+            for (final OID oid : oids) {
+                final Variable variable = results.get(oid);
+                if (variable != null) {
+                    ordered.put(oid, variable);
+                }
+            }
+            future.complete(ordered);
+        }
+    }
+}
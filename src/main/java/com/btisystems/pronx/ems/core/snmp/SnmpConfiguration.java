@@ -36,6 +36,12 @@ public abstract class SnmpConfiguration implements ISnmpConfiguration {
     private static final int DEFAULT_DISPATCHER_POOL_SIZE = 8;
     private static final int DEFAULT_MAX_ROWS_PER_PDU = 0; // 0 => use snmp4j default
     private static final int DEFAULT_MAX_COLUMNS_PER_PDU = 0; // 0 => use snmp4j default
+    private static final int DEFAULT_MAX_CONCURRENT_SUBTREES = 1; // 1 => walk subtrees in turn
+    private static final int DEFAULT_MAX_CONCURRENT_TABLE_REQUESTS = 1; // 1 => retrieve table rows in turn
+    private static final int DEFAULT_MAX_TABLE_INDEX_GAP = 0; // 0 => join adjacent indices only
+    private static final int DEFAULT_MAX_SPARSE_ROWS = 10;
+    private static final int DEFAULT_REPETITIONS_LOWER_BOUND = 1;
+    private static final int DEFAULT_REPETITIONS_UPPER_BOUND = 100;
     /**
      * The Version.
      */
@@ -50,6 +56,13 @@ public abstract class SnmpConfiguration implements ISnmpConfiguration {
     private int dispatcherPoolSize = DEFAULT_DISPATCHER_POOL_SIZE;
     private int maximumRowsPerPdu = DEFAULT_MAX_ROWS_PER_PDU;
     private int maximumColumnsPerPdu = DEFAULT_MAX_COLUMNS_PER_PDU;
+    private int maximumConcurrentSubtrees = DEFAULT_MAX_CONCURRENT_SUBTREES;
+    private int maximumConcurrentTableRequests = DEFAULT_MAX_CONCURRENT_TABLE_REQUESTS;
+    private int maximumTableIndexGap = DEFAULT_MAX_TABLE_INDEX_GAP;
+    private int maximumSparseRows = DEFAULT_MAX_SPARSE_ROWS;
+    private boolean adaptiveRepetitions = false;
+    private int repetitionsLowerBound = DEFAULT_REPETITIONS_LOWER_BOUND;
+    private int repetitionsUpperBound = DEFAULT_REPETITIONS_UPPER_BOUND;
 
     private OctetString community = new OctetString("public");
 
@@ -141,11 +154,7 @@ public abstract class SnmpConfiguration implements ISnmpConfiguration {
         this.nonRepeaters = nonRepeaters;
     }
 
-    /**
-     * Gets max size response pdu.
-     *
-     * @return the max size response pdu
-     */
+    @Override
     public int getMaxSizeResponsePDU() {
         return maxSizeResponsePDU;
     }
@@ -244,6 +253,104 @@ public abstract class SnmpConfiguration implements ISnmpConfiguration {
         this.maximumColumnsPerPdu = maximumColumnsPerPdu;
     }
 
+    @Override
+    public int getMaximumConcurrentSubtrees() {
+        return maximumConcurrentSubtrees;
+    }
+
+    /**
+     * Sets maximum concurrent subtrees.
+     *
+     * @param maximumConcurrentSubtrees the maximum number of subtrees walked at the same time on a device
+     */
+    public void setMaximumConcurrentSubtrees(final int maximumConcurrentSubtrees) {
+        this.maximumConcurrentSubtrees = maximumConcurrentSubtrees;
+    }
+
+    @Override
+    public int getMaximumConcurrentTableRequests() {
+        return maximumConcurrentTableRequests;
+    }
+
+    /**
+     * Sets maximum concurrent table requests.
+     *
+     * @param maximumConcurrentTableRequests the maximum number of table requests in progress at the same time on a device
+     */
+    public void setMaximumConcurrentTableRequests(final int maximumConcurrentTableRequests) {
+        this.maximumConcurrentTableRequests = maximumConcurrentTableRequests;
+    }
+
+    @Override
+    public int getMaximumTableIndexGap() {
+        return maximumTableIndexGap;
+    }
+
+    /**
+     * Sets maximum table index gap.
+     *
+     * @param maximumTableIndexGap the largest number of unrequested indices within a single ranged table request
+     */
+    public void setMaximumTableIndexGap(final int maximumTableIndexGap) {
+        this.maximumTableIndexGap = maximumTableIndexGap;
+    }
+
+    @Override
+    public int getMaximumSparseRows() {
+        return maximumSparseRows;
+    }
+
+    /**
+     * Sets maximum sparse rows.
+     *
+     * @param maximumSparseRows the largest number of rows of a table request which may be retrieved with GET requests
+     */
+    public void setMaximumSparseRows(final int maximumSparseRows) {
+        this.maximumSparseRows = maximumSparseRows;
+    }
+
+    @Override
+    public boolean isAdaptiveRepetitions() {
+        return adaptiveRepetitions;
+    }
+
+    /**
+     * Sets adaptive repetitions.
+     *
+     * @param adaptiveRepetitions true if the max repetitions should be adapted to each device
+     */
+    public void setAdaptiveRepetitions(final boolean adaptiveRepetitions) {
+        this.adaptiveRepetitions = adaptiveRepetitions;
+    }
+
+    @Override
+    public int getRepetitionsLowerBound() {
+        return repetitionsLowerBound;
+    }
+
+    /**
+     * Sets repetitions lower bound.
+     *
+     * @param repetitionsLowerBound the repetitions lower bound
+     */
+    public void setRepetitionsLowerBound(final int repetitionsLowerBound) {
+        this.repetitionsLowerBound = repetitionsLowerBound;
+    }
+
+    @Override
+    public int getRepetitionsUpperBound() {
+        return repetitionsUpperBound;
+    }
+
+    /**
+     * Sets repetitions upper bound.
+     *
+     * @param repetitionsUpperBound the repetitions upper bound
+     */
+    public void setRepetitionsUpperBound(final int repetitionsUpperBound) {
+        this.repetitionsUpperBound = repetitionsUpperBound;
+    }
+
     @Override
     public int getPort() {
         return port;
@@ -29,14 +29,12 @@ import org.snmp4j.smi.OID;
 import org.snmp4j.smi.Variable;
 import org.snmp4j.smi.VariableBinding;
 import org.snmp4j.util.DefaultPDUFactory;
-import org.snmp4j.util.TreeEvent;
-import org.snmp4j.util.TreeListener;
-import org.snmp4j.util.TreeUtils;
 
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * A {@link ISnmpSession}.
@@ -59,13 +57,22 @@ public class SnmpSession extends DefaultPDUFactory implements ISnmpSession {
      * Fine grained logger for walk requests.
      */
     protected static final Logger WALKER_LOG = LoggerFactory.getLogger(ISnmpSession.class.getName() + ".walk");
-    private static final String SYSTEM_OBJECT_ID_OID = "1.3.6.1.2.1.1.2.0";
+    /**
+     * Message reported when the device rejects a request as unauthorised.
+     */
+    static final String AUTHORIZATION_ERROR_MESSAGE = "Authorization error occurred; "
+            + "Please confirm that the device is running normally and verify the SNMP community strings.";
+    /**
+     * OID of the system object id scalar, used to identify a device.
+     */
+    static final String SYSTEM_OBJECT_ID_OID = "1.3.6.1.2.1.1.2.0";
     private static final String NO_SUCH_OBJECT = "noSuchObject";
     private static final String NULL = "Null";
     private final ISnmpConfiguration snmpConfiguration;
     private final Target target;
     private final Address address;
     private final Session snmpInterface;
+    private final MaxRepetitionsController repetitionsController;
 
     private final ISnmpTableWalker tableWalker;
 
@@ -81,12 +88,31 @@ public class SnmpSession extends DefaultPDUFactory implements ISnmpSession {
                        final Session snmp,
                        final Target target,
                        final Address address) {
+        this(snmpConfiguration, snmp, target, address, null);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param snmpConfiguration     the configuration to be used for the session
+     * @param snmp                  session to be wrapped
+     * @param target                snmp4j's remote SNMP entity reference
+     * @param address               address of the device associated with the session
+     * @param repetitionsController controller of the max repetitions used for the device,
+     *                              or null if the configured max repetitions are to be used
+     */
+    public SnmpSession(final ISnmpConfiguration snmpConfiguration,
+                       final Session snmp,
+                       final Target target,
+                       final Address address,
+                       final MaxRepetitionsController repetitionsController) {
         this.snmpConfiguration = snmpConfiguration;
         this.snmpInterface = snmp;
         this.address = address;
         this.target = target;
+        this.repetitionsController = repetitionsController;
 
-        tableWalker = new SnmpTableWalker(snmpConfiguration, snmp, target, address);
+        tableWalker = new SnmpTableWalker(snmpConfiguration, snmp, target, address, repetitionsController);
     }
 
     @Override
@@ -126,22 +152,37 @@ public class SnmpSession extends DefaultPDUFactory implements ISnmpSession {
     }
 
 
+    @Override
+    public Map<OID, Variable> getVariables(final List<OID> oids) {
+        LOG.debug(">>> getVariables oids:{}, address:{}", oids, getHostAddress());
+        final String hostIp = getHostAddress();
+        try {
+            return new PackedGetRequest(snmpConfiguration, snmpInterface, target, hostIp, oids).execute().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SnmpIoException(hostIp, "Interrupted");
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof SnmpIoException) {
+                throw (SnmpIoException) e.getCause();
+            }
+            throw new SnmpIoException(hostIp, e.getCause().getMessage());
+        }
+    }
+
     @Override
     public WalkResponse walkDevice(final IVariableBindingHandler networkDevice,
                                    final List<OID> oids) {
         WALKER_LOG.debug(">>> walkDevice address:{}", getHostAddress());
         WALKER_LOG.trace(">>> walkDevice address:{} for oids={}", getHostAddress(), oids);
 
-        final TreeUtils treeUtils = new TreeUtils(snmpInterface, this);
-        final TreeResponseListener treeListener = new TreeResponseListener(networkDevice, oids, treeUtils);
+        final SubtreeWalker subtreeWalker = new SubtreeWalker(snmpInterface, target, this,
+                snmpConfiguration.getMaxRepetitions(), repetitionsController);
+        final IDeviceWalk treeListener = createDeviceWalk(snmpConfiguration, getHostAddress(), networkDevice, oids, subtreeWalker);
 
 
         synchronized (treeListener) {
 
-            treeUtils.setIgnoreLexicographicOrder(true);
-            treeUtils.setMaxRepetitions(snmpConfiguration.getMaxRepetitions());
-            WALKER_LOG.debug("NE:{},  First subtree:{}", getHostAddress(), oids.get(0));
-            treeUtils.getSubtree(target, oids.get(0), this, treeListener);
+            treeListener.start();
             try {
                 // Allow for possibility that listener has already terminated in this thread,
                 // which it might have done if the initial Snmp.send threw an IOException
@@ -165,6 +206,29 @@ public class SnmpSession extends DefaultPDUFactory implements ISnmpSession {
         }
     }
 
+    /**
+     * Creates the walk of a device's subtrees, walking several subtrees at the same time
+     * if the configuration allows it.
+     *
+     * @param snmpConfiguration the configuration of the session
+     * @param hostAddress       the address of the device, used for logging
+     * @param networkDevice     the handler of the retrieved bindings
+     * @param oids              the roots of the subtrees to be walked
+     * @param subtreeWalker     the walker of each subtree
+     * @return the walk, not yet started
+     */
+    static IDeviceWalk createDeviceWalk(final ISnmpConfiguration snmpConfiguration,
+                                        final String hostAddress,
+                                        final IVariableBindingHandler networkDevice,
+                                        final List<OID> oids,
+                                        final SubtreeWalker subtreeWalker) {
+        if (oids.size() > 1 && snmpConfiguration.getMaximumConcurrentSubtrees() > 1) {
+            return new ConcurrentTreeWalk(hostAddress, networkDevice, oids, subtreeWalker,
+                    snmpConfiguration.getMaximumConcurrentSubtrees());
+        }
+        return new TreeResponseListener(hostAddress, networkDevice, oids, subtreeWalker);
+    }
+
     @Override
     public WalkResponse getTableRows(final IVariableBindingHandler networkDevice,
                                      final Map<DeviceEntityDescription, List<OID>> tableIndexes) throws IOException {
@@ -172,6 +236,14 @@ public class SnmpSession extends DefaultPDUFactory implements ISnmpSession {
         return getTableWalker().getTableRows(networkDevice, tableIndexes);
     }
 
+    @Override
+    public WalkResponse getTableRows(final IVariableBindingHandler networkDevice,
+                                     final Map<DeviceEntityDescription, List<OID>> tableIndexes,
+                                     final ColumnProjection projection) throws IOException {
+
+        return getTableWalker().getTableRows(networkDevice, tableIndexes, projection);
+    }
+
     @Override
     public InetAddress getAddress() {
         return ((IpAddress) address).getInetAddress();
@@ -224,8 +296,7 @@ public class SnmpSession extends DefaultPDUFactory implements ISnmpSession {
                 checkErrorCodeAndDescription();
 
                 if (SnmpConstants.SNMP_ERROR_AUTHORIZATION_ERROR == errorStatusId) {
-                    final String authErrorMsg = "Authorization error occurred; Please confirm that the device is running normally and verify the SNMP community strings.";
-                    throw new SnmpIoException(hostIp, authErrorMsg);
+                    throw new SnmpIoException(hostIp, AUTHORIZATION_ERROR_MESSAGE);
                 }
 
                 throw new SnmpIoException(hostIp, response.getErrorStatusText());
@@ -301,134 +372,4 @@ public class SnmpSession extends DefaultPDUFactory implements ISnmpSession {
     protected ISnmpTableWalker getTableWalker() {
         return tableWalker;
     }
-
-    private class TreeResponseListener implements TreeListener {
-
-        private final long startTime = System.currentTimeMillis();
-        private final IVariableBindingHandler networkDevice;
-        private final List<OID> oids;
-        private final TreeUtils treeUtils;
-        private boolean finished;
-        private int requests;
-        private int objects;
-        private WalkResponse response;
-        private int oidIndex;
-        private OID lastProcessedOid;
-
-        /**
-         * Instantiates a new Tree response listener.
-         *
-         * @param networkDevice the network device
-         * @param oids          the oids
-         * @param treeUtils     the tree utils
-         */
-        public TreeResponseListener(final IVariableBindingHandler networkDevice,
-                                    final List<OID> oids,
-                                    final TreeUtils treeUtils) {
-            this.networkDevice = networkDevice;
-            this.oids = oids;
-            this.treeUtils = treeUtils;
-            oidIndex = 0;
-            finished = false;
-        }
-
-        /**
-         * Gets response.
-         *
-         * @return the response
-         */
-        public WalkResponse getResponse() {
-            return (response == null) ? new WalkResponse(new WalkException("Walk interrupted")) : response;
-        }
-
-        /**
-         * Stop walk.
-         */
-        public void stopWalk() {
-            finished = true;
-        }        @Override
-        public boolean next(final TreeEvent e) {
-            requests++;
-            final VariableBinding[] vbs = e.getVariableBindings();
-            for (int i = 0; i < vbs.length; i++) {
-                if (addVariable(vbs, i)) {
-                    objects++;
-                }
-            }
-
-            return !finished;
-        }
-
-        private boolean addVariable(final VariableBinding[] vbs, final int i) {
-            try {
-                final VariableBinding binding = vbs[i];
-                final boolean wasAdded = networkDevice.addVariable(binding);
-                if (wasAdded) {
-                    WALKER_LOG.debug("Element {} added varbind: {}.", getHostAddress(), binding);
-                    lastProcessedOid = binding.getOid();
-                } else {
-                    LOG.debug("Element {} unknown varbind: {}", getHostAddress(), binding);
-                    return false;
-                }
-            } catch (final RuntimeException e) {
-                WALKER_LOG.warn("Failed adding varbind " + vbs[i] + " for element " + getHostAddress() + ".", e);
-            }
-            return true;
-        }
-
-        @Override
-        public void finished(final TreeEvent e) {
-            if ((e.getVariableBindings() != null) && (e.getVariableBindings().length > 0)) {
-                WALKER_LOG.debug("Element {} finished subtree count {}.", getHostAddress(), e.getVariableBindings().length);
-                next(e);
-            }
-
-            if (!finished && advanceOidIndex()) {
-                return;
-            }
-
-            final long walkTime = System.currentTimeMillis() - startTime;
-            WALKER_LOG.debug("Element {} walked, requests: {}, objects: {} time: {}.", getHostAddress(), requests, objects, walkTime);
-
-            if (e.isError()) {
-                LOG.error("Exception while walking " + getHostAddress() + ".", e.getException());
-                response = new WalkResponse(new WalkException(e.getErrorMessage()));
-            } else {
-                response = new WalkResponse(true);
-                response.setObjectCount(objects);
-                response.setRequestCount(requests);
-                response.setWalkTime(walkTime);
-            }
-
-            finished = true;
-
-            synchronized (this) {
-                this.notify();
-            }
-        }
-
-        @Override
-        public boolean isFinished() {
-            WALKER_LOG.debug("Element {} finished: {}", getHostAddress(), finished);
-            return finished;
-        }
-
-        private boolean advanceOidIndex() {
-            while (++oidIndex < oids.size()
-                    && (lastProcessedOid != null && lastProcessedOid.compareTo(oids.get(oidIndex)) > 0)) {
-                // Empty block
-            }
-
-            if (oidIndex < oids.size()) {
-                WALKER_LOG.debug("Element {} next subtree: {}", getHostAddress(), oids.get(oidIndex));
-                treeUtils.getSubtree(target, oids.get(oidIndex), this, this);
-                return true;
-            }
-
-            return false;
-        }
-
-
-
-    }
 }
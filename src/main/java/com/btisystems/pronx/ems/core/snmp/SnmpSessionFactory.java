@@ -14,6 +14,9 @@
 package com.btisystems.pronx.ems.core.snmp;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,11 +34,29 @@ public class SnmpSessionFactory implements ISnmpSessionFactory {
 
     private static final Logger LOG = LoggerFactory.getLogger(SnmpSessionFactory.class);
 
+    /**
+     * The number of devices whose max repetitions controllers are kept by default.
+     */
+    static final int DEFAULT_MAX_REPETITIONS_CONTROLLERS = 10000;
+
     private final ISnmpConfigurationFactory configurationFactory;
+    private final Map<Address, MaxRepetitionsController> repetitionsControllers;
     private Session defaultSnmpInterface;
     
     public SnmpSessionFactory(final ISnmpConfigurationFactory defaultConfigurationFactory) {
+        this(defaultConfigurationFactory, DEFAULT_MAX_REPETITIONS_CONTROLLERS);
+    }
+
+    /**
+     * Instantiates a new snmp session factory.
+     *
+     * @param defaultConfigurationFactory the factory of the default configuration
+     * @param maximumControllers          the number of devices whose max repetitions controllers are kept,
+     *                                    the least recently used being forgotten first
+     */
+    public SnmpSessionFactory(final ISnmpConfigurationFactory defaultConfigurationFactory, final int maximumControllers) {
         this.configurationFactory = defaultConfigurationFactory;
+        this.repetitionsControllers = Collections.synchronizedMap(new ControllerCache(maximumControllers));
     }
 
     @Override
@@ -44,7 +65,17 @@ public class SnmpSessionFactory implements ISnmpSessionFactory {
         final Address address = getAddress(ipAddress, configuration.getPort());
         final Session snmpInterface = getDefaultSnmpInterface();
         final Target target = configuration.createTarget(address);
-        return new SnmpSession(configuration, snmpInterface, target, address);
+        return new SnmpSession(configuration, snmpInterface, target, address, getRepetitionsController(configuration, target, address));
+    }
+
+    @Override
+    public IAsyncSnmpSession createAsyncSession(final ISnmpConfiguration configuration, final String ipAddress) throws IOException {
+        LOG.debug(">>> createAsyncSession address:{}", ipAddress);
+        final Address address = getAddress(ipAddress, configuration.getPort());
+        final Session snmpInterface = getDefaultSnmpInterface();
+        final Target target = configuration.createTarget(address);
+        return new AsyncSnmpSession(configuration, snmpInterface, target, address,
+                getRepetitionsController(configuration, target, address));
     }
 
     @Override
@@ -66,6 +97,21 @@ public class SnmpSessionFactory implements ISnmpSessionFactory {
         throw new UnsupportedOperationException("Alternative configuration factory not supported.");
     }
 
+    // The controller is kept while the device remains among the most recently used, so that what
+    // is learnt about a device is applied to every session with the device.
+    MaxRepetitionsController getRepetitionsController(final ISnmpConfiguration configuration,
+                                                              final Target target,
+                                                              final Address address) {
+        if (!configuration.isAdaptiveRepetitions()) {
+            return null;
+        }
+        return repetitionsControllers.computeIfAbsent(address, key -> new MaxRepetitionsController(
+                configuration.getMaxRepetitions(),
+                configuration.getRepetitionsLowerBound(),
+                configuration.getRepetitionsUpperBound(),
+                target.getTimeout() / 2));
+    }
+
     private static Address getAddress(final String transportAddress, final int port) {
         String address = transportAddress;
         String transport = "udp";
@@ -97,4 +143,23 @@ public class SnmpSessionFactory implements ISnmpSessionFactory {
 
         return defaultSnmpInterface;
     }
+
+    /**
+     * The max repetitions controllers of devices, in order of use.
+     */
+    private static final class ControllerCache extends LinkedHashMap<Address, MaxRepetitionsController> {
+
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        private ControllerCache(final int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Address, MaxRepetitionsController> eldest) {
+            return size() > capacity;
+        }
+    }
 }
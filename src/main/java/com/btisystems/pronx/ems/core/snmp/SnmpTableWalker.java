@@ -15,15 +15,19 @@
 package com.btisystems.pronx.ems.core.snmp;
 
 import com.btisystems.pronx.ems.core.model.DeviceEntityDescription;
-import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.snmp4j.PDU;
 import org.snmp4j.Session;
 import org.snmp4j.Target;
+import org.snmp4j.TransportMapping;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.event.ResponseListener;
+import org.snmp4j.mp.SnmpConstants;
 import org.snmp4j.smi.Address;
 import org.snmp4j.smi.IpAddress;
 import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
 import org.snmp4j.smi.VariableBinding;
 import org.snmp4j.util.DefaultPDUFactory;
 import org.snmp4j.util.TableEvent;
@@ -31,14 +35,19 @@ import org.snmp4j.util.TableListener;
 import org.snmp4j.util.TableUtils;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * Understands how to retrieval specific rows from a set of tables.
@@ -50,10 +59,14 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
     // More fine grained logging than whole class ...
     private static final Logger walkerLog = LoggerFactory.getLogger(ISnmpSession.class.getName() + ".walk");
 
+    // The number of columns per PDU used by snmp4j's TableUtils unless configured otherwise.
+    private static final int DEFAULT_COLUMNS_PER_PDU = 10;
+
     private final ISnmpConfiguration snmpConfiguration;
     private final Target target;
     private final Address address;
     private final Session snmpInterface;
+    private final MaxRepetitionsController repetitionsController;
 
     /**
      * Class constructor.
@@ -67,10 +80,29 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
                            final Session snmp,
                            final Target target,
                            final Address address) {
+        this(snmpConfiguration, snmp, target, address, null);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param snmpConfiguration     the configuration to be used for the session
+     * @param snmp                  session to be wrapped
+     * @param target                snmp4j's remote SNMP entity reference
+     * @param address               address of the device associated with the session
+     * @param repetitionsController controller of the rows retrieved per PDU from the device,
+     *                              or null if the configured maximum rows per PDU are to be used
+     */
+    public SnmpTableWalker(final ISnmpConfiguration snmpConfiguration,
+                           final Session snmp,
+                           final Target target,
+                           final Address address,
+                           final MaxRepetitionsController repetitionsController) {
         this.snmpConfiguration = snmpConfiguration;
         this.snmpInterface = snmp;
         this.address = address;
         this.target = target;
+        this.repetitionsController = repetitionsController;
     }
 
     /**
@@ -84,16 +116,56 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
     @Override
     public WalkResponse getTableRows(final IVariableBindingHandler networkDevice,
                                      final Map<DeviceEntityDescription, List<OID>> tableIndexes) throws IOException {
+        return getTableRows(networkDevice, tableIndexes, null, Strategy.AUTOMATIC);
+    }
 
-        final Iterator<TableIndexRetrievalDescriptor> retrievalIterator = getTableRetrievalDescriptors(tableIndexes).iterator();
+    /**
+     * Gets the selected columns of table rows.
+     *
+     * @param networkDevice the network device
+     * @param tableIndexes  the table indexes
+     * @param projection    the columns to be retrieved from each table, or null for all columns
+     * @return the table rows
+     * @throws IOException the io exception
+     */
+    @Override
+    public WalkResponse getTableRows(final IVariableBindingHandler networkDevice,
+                                     final Map<DeviceEntityDescription, List<OID>> tableIndexes,
+                                     final ColumnProjection projection) throws IOException {
+        return getTableRows(networkDevice, tableIndexes, projection, Strategy.AUTOMATIC);
+    }
+
+    /**
+     * Gets the selected columns of table rows, with the given choice of requests.
+     *
+     * @param networkDevice the network device
+     * @param tableIndexes  the table indexes
+     * @param projection    the columns to be retrieved from each table, or null for all columns
+     * @param strategy      the choice of requests with which the rows are retrieved
+     * @return the table rows
+     * @throws IOException the io exception
+     */
+    @Override
+    public WalkResponse getTableRows(final IVariableBindingHandler networkDevice,
+                                     final Map<DeviceEntityDescription, List<OID>> tableIndexes,
+                                     final ColumnProjection projection,
+                                     final Strategy strategy) throws IOException {
+
+        final Collection<TableIndexRetrievalDescriptor> retrievals = getTableRetrievalDescriptors(tableIndexes, projection);
+        if (retrievals.size() > 1 && snmpConfiguration.getMaximumConcurrentTableRequests() > 1) {
+            return new ConcurrentTableRetrieval(networkDevice, retrievals,
+                    snmpConfiguration.getMaximumConcurrentTableRequests(), strategy).retrieve();
+        }
+
+        final Iterator<TableIndexRetrievalDescriptor> retrievalIterator = retrievals.iterator();
         if (retrievalIterator.hasNext()) {
 
             final TableUtils tableUtils = newTableUtility();
-            final TableResponseListener listener = new TableResponseListener(networkDevice);
+            final TableResponseListener listener = new TableResponseListener(networkDevice, tableUtils, null);
 
             do {
                 final TableIndexRetrievalDescriptor indexRetrieval = retrievalIterator.next();
-                final WalkResponse response = retrieveRowsWithIndex(tableUtils, listener, indexRetrieval);
+                final WalkResponse response = retrieveRowsWithIndex(tableUtils, listener, indexRetrieval, strategy);
                 if (response != null) {
                     return response;
                 }
@@ -104,54 +176,78 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
         return new WalkResponse(new WalkException("Nothing to retrieve"));
     }
 
-    private Collection<TableIndexRetrievalDescriptor> getTableRetrievalDescriptors(final Map<DeviceEntityDescription, List<OID>> tableIndexes) {
+    // One descriptor for each run of indices, shared by the tables requesting exactly that run.
+    private Collection<TableIndexRetrievalDescriptor> getTableRetrievalDescriptors(final Map<DeviceEntityDescription, List<OID>> tableIndexes,
+                                                                                 final ColumnProjection projection) {
 
-        final Map<OID, TableIndexRetrievalDescriptor> descriptorMap = new HashMap<OID, TableIndexRetrievalDescriptor>();
+        final Map<List<OID>, TableIndexRetrievalDescriptor> descriptorMap = new HashMap<List<OID>, TableIndexRetrievalDescriptor>();
+        final int maximumGap = Math.max(0, snmpConfiguration.getMaximumTableIndexGap());
+        final int columnsPerPdu = getMaximumColumnsPerPdu();
 
         for (final Entry<DeviceEntityDescription, List<OID>> entry : tableIndexes.entrySet()) {
-            final DeviceEntityDescription deviceEntityDescription = entry.getKey();
-            final Collection<FieldDescription> columnDescriptions = deviceEntityDescription.getFields();
+            final TablePlan plan = TablePlan.get(entry.getKey(), projection, columnsPerPdu);
+            if (plan.isEmpty()) {
+                continue;
+            }
 
-            for (final OID indexOid : entry.getValue()) {
+            for (final List<OID> indexRun : TableIndexPlanner.getRuns(entry.getValue(), maximumGap)) {
 
-                TableIndexRetrievalDescriptor descriptor = descriptorMap.get(indexOid);
+                TableIndexRetrievalDescriptor descriptor = descriptorMap.get(indexRun);
                 if (descriptor == null) {
-                    descriptor = new TableIndexRetrievalDescriptor(indexOid);
-                    descriptorMap.put(indexOid, descriptor);
+                    descriptor = new TableIndexRetrievalDescriptor(indexRun);
+                    descriptorMap.put(indexRun, descriptor);
                 }
 
-                for (final FieldDescription columnDescription : columnDescriptions) {
-                    final OID columnOid = new OID(deviceEntityDescription.getOid());
-                    columnOid.append(columnDescription.getId());
-                    log.debug("Add OID for column:{}", columnOid);
-                    descriptor.columnOids.add(columnOid);
-                }
+                log.debug("Add OIDs for columns:{}", Arrays.toString(plan.getColumnOids()));
+                descriptor.plans.add(plan);
             }
         }
-        return descriptorMap.values();
+
+        final List<TableIndexRetrievalDescriptor> descriptors = new ArrayList<TableIndexRetrievalDescriptor>(descriptorMap.values());
+        for (final TableIndexRetrievalDescriptor descriptor : descriptors) {
+            descriptor.mergePlans(columnsPerPdu);
+        }
+        Collections.sort(descriptors, new Comparator<TableIndexRetrievalDescriptor>() {
+            @Override
+            public int compare(final TableIndexRetrievalDescriptor d1, final TableIndexRetrievalDescriptor d2) {
+                final int result = d1.lowIndex.compareTo(d2.lowIndex);
+                return (result != 0) ? result : d1.highIndex.compareTo(d2.highIndex);
+            }
+        });
+        return descriptors;
+    }
+
+    private int getMaximumColumnsPerPdu() {
+        return (snmpConfiguration.getMaximumColumnsPerPdu() > 0) ? snmpConfiguration.getMaximumColumnsPerPdu() : DEFAULT_COLUMNS_PER_PDU;
     }
 
-    // Create and configure Table walking utility.
+    // Create and configure Table walking utility. When the rows per PDU are adapted, the utility
+    // must not be shared by retrievals in progress at the same time.
     private TableUtils newTableUtility() {
-        final TableUtils tableUtils = new TableUtils(snmpInterface, this);
-        if (snmpConfiguration.getMaximumColumnsPerPdu() != 0) {
-            tableUtils.setMaxNumColumnsPerPDU(snmpConfiguration.getMaximumColumnsPerPdu());
-        }
-        if (snmpConfiguration.getMaximumRowsPerPdu() != 0) {
-            tableUtils.setMaxNumRowsPerPDU(snmpConfiguration.getMaximumRowsPerPdu());
+        final TableUtils tableUtils;
+        if (repetitionsController != null) {
+            final AdaptiveRowsSession session = new AdaptiveRowsSession();
+            tableUtils = new TableUtils(session, this);
+            session.tableUtils = tableUtils;
+            tableUtils.setMaxNumRowsPerPDU(repetitionsController.getMaxRepetitions());
+        } else {
+            tableUtils = new TableUtils(snmpInterface, this);
+            if (snmpConfiguration.getMaximumRowsPerPdu() != 0) {
+                tableUtils.setMaxNumRowsPerPDU(snmpConfiguration.getMaximumRowsPerPdu());
+            }
         }
+        tableUtils.setMaxNumColumnsPerPDU(getMaximumColumnsPerPdu());
         return tableUtils;
     }
 
     private WalkResponse retrieveRowsWithIndex(final TableUtils tableUtils,
                                                final TableResponseListener listener,
-                                               final TableIndexRetrievalDescriptor indexRetrieval) {
+                                               final TableIndexRetrievalDescriptor indexRetrieval,
+                                               final Strategy strategy) {
 
-        walkerLog.debug("retrieve columns {} with index {}", indexRetrieval.getColumnOids(), indexRetrieval.lowIndex);
-
-        listener.reset();
+        listener.reset(indexRetrieval);
         synchronized (listener) {
-            tableUtils.getTable(target, indexRetrieval.getColumnOids(), listener, null, indexRetrieval.lowIndex, indexRetrieval.highIndex);
+            startRetrieval(tableUtils, listener, indexRetrieval, strategy);
             try {
                 // Allow for possibility that listener has already terminated in this thread,
                 // which it might have done if the initial Snmp.send threw an IOException
@@ -176,6 +272,62 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
         return null;
     }
 
+    // Start either a GETBULK table walk of the range of the indices, or GET requests for each column instance.
+    private void startRetrieval(final TableUtils tableUtils,
+                                final TableResponseListener listener,
+                                final TableIndexRetrievalDescriptor indexRetrieval,
+                                final Strategy strategy) {
+        if (isSparse(tableUtils, indexRetrieval, strategy)) {
+            walkerLog.debug("get columns {} with indices {}", Arrays.toString(indexRetrieval.getColumnOids()), indexRetrieval.indexRun);
+            getRows(listener, indexRetrieval);
+        } else {
+            walkerLog.debug("retrieve columns {} with indices {} to {}", Arrays.toString(indexRetrieval.getColumnOids()), indexRetrieval.lowIndex,
+                    indexRetrieval.highIndex);
+            tableUtils.getTable(target, indexRetrieval.getColumnOids(), listener, null, indexRetrieval.lowIndex, indexRetrieval.highIndex);
+        }
+    }
+
+    // Rows are sparse when few are requested and GET requests for their instances need no more PDUs
+    // than the GETBULK walk of their range, which also fetches the rows in gaps and one row beyond.
+    private boolean isSparse(final TableUtils tableUtils,
+                             final TableIndexRetrievalDescriptor indexRetrieval,
+                             final Strategy strategy) {
+        if (strategy != Strategy.AUTOMATIC) {
+            return strategy == Strategy.GET;
+        }
+        if (indexRetrieval.indexRun.size() > snmpConfiguration.getMaximumSparseRows()) {
+            return false;
+        }
+
+        final long columnChunks = indexRetrieval.columnChunks;
+        final long rowChunks = indexRetrieval.span / tableUtils.getMaxNumRowsPerPDU() + 1;
+        final int getRequests = PackedGetRequest.pack(indexRetrieval.getInstanceOids(), snmpConfiguration.getMaxSizeResponsePDU()).size();
+        return getRequests <= columnChunks * rowChunks;
+    }
+
+    // Deliver the instances of each requested row to the listener, as though retrieved by a table walk.
+    private void getRows(final TableResponseListener listener, final TableIndexRetrievalDescriptor indexRetrieval) {
+        final OID[] columnOids = indexRetrieval.getColumnOids();
+        new PackedGetRequest(snmpConfiguration, snmpInterface, target, getHostAddress(), indexRetrieval.getInstanceOids())
+                .execute()
+                .whenComplete((variables, throwable) -> {
+                    if (throwable != null) {
+                        listener.failed(throwable.getMessage(), throwable);
+                    } else {
+                        for (final OID index : indexRetrieval.indexRun) {
+                            final VariableBinding[] columns = new VariableBinding[columnOids.length];
+                            for (int i = 0; i < columnOids.length; i++) {
+                                final OID instance = new OID(columnOids[i]).append(index);
+                                final Variable variable = variables.get(instance);
+                                columns[i] = (variable == null) ? null : new VariableBinding(instance, variable);
+                            }
+                            listener.addRow(index, columns);
+                        }
+                    }
+                    listener.complete();
+                });
+    }
+
     private String getHostAddress() {
         return ((IpAddress) address).getInetAddress().getHostAddress();
     }
@@ -192,6 +344,11 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
 
         private final long startTime = System.currentTimeMillis();
         private final IVariableBindingHandler networkDevice;
+        private final TableUtils tableUtils;
+        private final ConcurrentTableRetrieval retrieval;
+        private final Map<OID, TableStatistics> tableStatistics = new LinkedHashMap<OID, TableStatistics>();
+        private TableIndexRetrievalDescriptor indexRetrieval;
+        private TableStatistics[] columnStatistics;
         private boolean finished;
         private int requests;
         private int objects;
@@ -201,9 +358,15 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
          * Instantiates a new Table response listener.
          *
          * @param networkDevice the network device
+         * @param tableUtils    the table utility used for the walk
+         * @param retrieval     the concurrent retrieval to be told when the request finishes, or null
          */
-        public TableResponseListener(final IVariableBindingHandler networkDevice) {
+        public TableResponseListener(final IVariableBindingHandler networkDevice,
+                                     final TableUtils tableUtils,
+                                     final ConcurrentTableRetrieval retrieval) {
             this.networkDevice = networkDevice;
+            this.tableUtils = tableUtils;
+            this.retrieval = retrieval;
             finished = false;
         }
 
@@ -225,10 +388,7 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
             walkerLog.debug("requests:{}, objects:{}", requests, objects);
             walkerLog.debug("time:{}", walkTime);
 
-            response = new WalkResponse(true);
-            response.setObjectCount(objects);
-            response.setRequestCount(requests);
-            response.setWalkTime(walkTime);
+            response = newWalkResponse(requests, objects, walkTime, tableUtils.getMaxNumRowsPerPDU(), tableStatistics);
             return response;
         }
 
@@ -237,13 +397,32 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
          */
         public void stopWalk() {
             finished = true;
-        }        @Override
+        }
+
+        @Override
         public boolean next(final TableEvent e) {
+            return addRow(e.getIndex(), e.getColumns());
+        }
+
+        /**
+         * Adds the instances of a row, unless the row was not requested.
+         *
+         * @param index the index of the row
+         * @param vbs   the instance of each column, or null for a missing instance
+         * @return true if the retrieval is to continue
+         */
+        public boolean addRow(final OID index, final VariableBinding[] vbs) {
+            if (!indexRetrieval.isRequested(index)) {
+                walkerLog.debug("Skip unrequested row {}", index);
+                return !finished;
+            }
             requests++;
-            final VariableBinding[] vbs = e.getColumns();
-            for (VariableBinding vb : vbs) {
-                if (vb != null) {
-                    addVariable(vb);
+            for (int i = 0; i < vbs.length; i++) {
+                if (vbs[i] != null) {
+                    addVariable(vbs[i]);
+                }
+                if (i < columnStatistics.length) {
+                    columnStatistics[i].objects++;
                 }
                 objects++;
             }
@@ -257,7 +436,9 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
          */
         public boolean hadError() {
             return response != null;
-        }        private boolean addVariable(final VariableBinding binding) {
+        }
+
+        private boolean addVariable(final VariableBinding binding) {
             walkerLog.debug(">>> addVariable:{}", binding);
             try {
                 final boolean wasAdded = networkDevice.addVariable(binding);
@@ -271,11 +452,30 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
         }
 
         /**
-         * Reset.
+         * Reset, ready for the retrieval of the rows with an index.
+         *
+         * @param indexRetrieval the retrieval about to be requested
          */
-        public void reset() {
+        public void reset(final TableIndexRetrievalDescriptor indexRetrieval) {
+            this.indexRetrieval = indexRetrieval;
             finished = false;
-        }        @Override
+            final OID[] columnTables = indexRetrieval.getColumnTables();
+            columnStatistics = new TableStatistics[columnTables.length];
+            for (int i = 0; i < columnTables.length; i++) {
+                TableStatistics statistics = tableStatistics.get(columnTables[i]);
+                if (statistics == null) {
+                    statistics = new TableStatistics();
+                    tableStatistics.put(columnTables[i], statistics);
+                }
+                // The columns of a table are adjacent, being held in OID order.
+                if (i == 0 || statistics != columnStatistics[i - 1]) {
+                    statistics.requests++;
+                }
+                columnStatistics[i] = statistics;
+            }
+        }
+
+        @Override
         public void finished(final TableEvent e) {
             walkerLog.debug("Finished table request");
             if ((e.getColumns() != null) && (e.getColumns().length > 0)) {
@@ -283,13 +483,37 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
             }
 
             if (e.isError()) {
-                log.error("Exception when walking:" + e.getErrorMessage(), e.getException());
-                response = new WalkResponse(new WalkException(e.getErrorMessage()));
+                failed(e.getErrorMessage(), e.getException());
+            }
+            complete();
+        }
+
+        /**
+         * Records the failure of the retrieval.
+         *
+         * @param message   the description of the failure
+         * @param exception the cause of the failure, or null
+         */
+        public void failed(final String message, final Throwable exception) {
+            log.error("Exception when walking:" + message, exception);
+            response = new WalkResponse(new WalkException(message));
+        }
+
+        /**
+         * Completes the retrieval of the rows with an index.
+         */
+        public void complete() {
+            final long walkTime = System.currentTimeMillis() - startTime;
+            for (final TableStatistics statistics : columnStatistics) {
+                statistics.walkTime = walkTime;
             }
             finished = true;
             synchronized (this) {
                 this.notify();
             }
+            if (retrieval != null) {
+                retrieval.retrievalFinished(this);
+            }
         }
 
         @Override
@@ -297,12 +521,261 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
             walkerLog.debug("isFinished {}", finished);
             return finished;
         }
+    }
+
+    /**
+     * Sends the requests of a single table retrieval, reporting each response to the
+     * {@link MaxRepetitionsController} and applying its current value to the rows
+     * requested by the following requests of the retrieval.
+     */
+    private class AdaptiveRowsSession implements Session {
 
+        private TableUtils tableUtils;
 
+        @Override
+        public void send(final PDU pdu, final Target target, final Object userHandle, final ResponseListener listener)
+                throws IOException {
+            final long sendTime = System.currentTimeMillis();
+            snmpInterface.send(pdu, target, userHandle, new ResponseListener() {
+                @Override
+                public void onResponse(final ResponseEvent event) {
+                    // snmp4j cancels a request by the listener it was sent with, which is this one.
+                    snmpInterface.cancel(event.getRequest(), this);
+                    adaptRowsPerPdu(event, System.currentTimeMillis() - sendTime);
+                    listener.onResponse(event);
+                }
+            });
+        }
 
+        private void adaptRowsPerPdu(final ResponseEvent event, final long responseTime) {
+            final PDU request = event.getRequest();
+            final PDU response = event.getResponse();
+            if (event.getError() != null) {
+                return;
+            }
+            if (response == null) {
+                repetitionsController.onTimeout();
+            } else if (response.getErrorStatus() == SnmpConstants.SNMP_ERROR_TOO_BIG) {
+                repetitionsController.onTooBig();
+            } else if (response.getErrorStatus() == SnmpConstants.SNMP_ERROR_SUCCESS && request.size() > 0) {
+                if (isEndOfView(response)) {
+                    repetitionsController.onLastResponse(responseTime);
+                } else {
+                    repetitionsController.onResponse(request.getMaxRepetitions(), response.size() / request.size(),
+                            responseTime);
+                }
+            }
+            tableUtils.setMaxNumRowsPerPDU(repetitionsController.getMaxRepetitions());
+        }
 
+        // A response reaching the end of the agent's view is expected to hold fewer rows than requested.
+        private boolean isEndOfView(final PDU response) {
+            for (final VariableBinding binding : response.getVariableBindings()) {
+                if (binding.isException()) {
+                    return true;
+                }
+            }
+            return false;
+        }
 
+        @Override
+        public void cancel(final PDU request, final ResponseListener listener) {
+            snmpInterface.cancel(request, listener);
+        }
 
+        @Override
+        public ResponseEvent send(final PDU pdu, final Target target) throws IOException {
+            return snmpInterface.send(pdu, target);
+        }
+
+        // Session in the snmp4j bundle declares the transport mapping as a raw type, which
+        // an override must repeat.
+        @SuppressWarnings("rawtypes")
+        @Override
+        public ResponseEvent send(final PDU pdu, final Target target, final TransportMapping transport) throws IOException {
+            return snmpInterface.send(pdu, target, transport);
+        }
+
+        @SuppressWarnings("rawtypes")
+        @Override
+        public void send(final PDU pdu, final Target target, final TransportMapping transport, final Object userHandle,
+                         final ResponseListener listener) throws IOException {
+            snmpInterface.send(pdu, target, transport, userHandle, listener);
+        }
+
+        // The underlying session is shared with the walker, which remains responsible for closing it.
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Retrieves the rows of several indices at the same time, each index having a request
+     * and listener of its own, up to a maximum number of requests in progress at once.
+     * <p/>
+     * Variable bindings from all requests are passed to the handler one at a time, so that
+     * the handler need not be thread safe. The retrieval stops at the first request that fails,
+     * and times out if no request finishes within the walk timeout.
+     */
+    private class ConcurrentTableRetrieval {
+
+        private final long startTime = System.currentTimeMillis();
+        private final IVariableBindingHandler networkDevice;
+        private final Iterator<TableIndexRetrievalDescriptor> retrievals;
+        private final int maximumInFlight;
+        private final Strategy strategy;
+        private final List<TableResponseListener> listeners = new ArrayList<TableResponseListener>();
+        private long lastProgressTime = startTime;
+        private int inFlight;
+        private WalkResponse failure;
+
+        /**
+         * Instantiates a new concurrent table retrieval.
+         *
+         * @param networkDevice   the network device
+         * @param retrievals      the retrievals of each index
+         * @param maximumInFlight the maximum number of requests in progress at the same time
+         * @param strategy        the choice of requests with which the rows are retrieved
+         */
+        ConcurrentTableRetrieval(final IVariableBindingHandler networkDevice,
+                                 final Collection<TableIndexRetrievalDescriptor> retrievals,
+                                 final int maximumInFlight,
+                                 final Strategy strategy) {
+            final Object handlerLock = new Object();
+            this.networkDevice = binding -> {
+                synchronized (handlerLock) {
+                    return networkDevice.addVariable(binding);
+                }
+            };
+            this.retrievals = retrievals.iterator();
+            this.maximumInFlight = maximumInFlight;
+            this.strategy = strategy;
+        }
+
+        /**
+         * Retrieves the rows, waiting until all requests have finished.
+         *
+         * @return the response merged from the responses of each request
+         */
+        synchronized WalkResponse retrieve() {
+            walkerLog.debug("retrieve rows of device {}, at most {} requests at a time", getHostAddress(), maximumInFlight);
+            startRetrievals();
+            try {
+                while (failure == null && (inFlight > 0 || retrievals.hasNext())) {
+                    final long remaining = lastProgressTime + snmpConfiguration.getWalkTimeout() - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        log.error("Table Walk for device {} timed out.", getHostAddress());
+                        return stop(new WalkResponse(new WalkException("Walk timed out")));
+                    }
+                    wait(remaining);
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                walkerLog.warn("retrieval wait interrupted:{}", ex);
+                return stop(new WalkResponse(new WalkException("Walk interrupted")));
+            }
+            return (failure != null) ? stop(failure) : getResponse();
+        }
+
+        private void startRetrievals() {
+            while (failure == null && inFlight < maximumInFlight && retrievals.hasNext()) {
+                final TableIndexRetrievalDescriptor indexRetrieval = retrievals.next();
+                final TableUtils tableUtils = newTableUtility();
+                final TableResponseListener listener = new TableResponseListener(networkDevice, tableUtils, this);
+                listener.reset(indexRetrieval);
+                listeners.add(listener);
+                inFlight++;
+                startRetrieval(tableUtils, listener, indexRetrieval, strategy);
+            }
+        }
+
+        private synchronized void retrievalFinished(final TableResponseListener listener) {
+            inFlight--;
+            lastProgressTime = System.currentTimeMillis();
+            if (listener.hadError()) {
+                if (failure == null) {
+                    failure = listener.getResponse();
+                }
+            } else {
+                startRetrievals();
+            }
+            notifyAll();
+        }
+
+        private WalkResponse stop(final WalkResponse walkResponse) {
+            failure = walkResponse;
+            for (final TableResponseListener listener : listeners) {
+                listener.stopWalk();
+            }
+            return walkResponse;
+        }
+
+        private WalkResponse getResponse() {
+            int requests = 0;
+            int objects = 0;
+            final Map<OID, TableStatistics> tableStatistics = new LinkedHashMap<OID, TableStatistics>();
+            for (final TableResponseListener listener : listeners) {
+                requests += listener.requests;
+                objects += listener.objects;
+                for (final Entry<OID, TableStatistics> entry : listener.tableStatistics.entrySet()) {
+                    TableStatistics statistics = tableStatistics.get(entry.getKey());
+                    if (statistics == null) {
+                        statistics = new TableStatistics();
+                        tableStatistics.put(entry.getKey(), statistics);
+                    }
+                    statistics.add(entry.getValue());
+                }
+            }
+
+            final long walkTime = System.currentTimeMillis() - startTime;
+            walkerLog.debug("requests:{}, objects:{}", requests, objects);
+            walkerLog.debug("time:{}", walkTime);
+            final TableUtils lastTableUtils = listeners.get(listeners.size() - 1).tableUtils;
+            return newWalkResponse(requests, objects, walkTime, lastTableUtils.getMaxNumRowsPerPDU(), tableStatistics);
+        }
+    }
+
+    private static WalkResponse newWalkResponse(final int requests,
+                                                final int objects,
+                                                final long walkTime,
+                                                final int maxRepetitions,
+                                                final Map<OID, TableStatistics> tableStatistics) {
+        final WalkResponse response = new WalkResponse(true);
+        response.setObjectCount(objects);
+        response.setRequestCount(requests);
+        response.setWalkTime(walkTime);
+        response.setMaxRepetitions(maxRepetitions);
+
+        final Map<OID, WalkResponse> tableResponses = new LinkedHashMap<OID, WalkResponse>();
+        for (final Entry<OID, TableStatistics> entry : tableStatistics.entrySet()) {
+            final TableStatistics statistics = entry.getValue();
+            final WalkResponse tableResponse = new WalkResponse(true);
+            tableResponse.setObjectCount(statistics.objects);
+            tableResponse.setRequestCount(statistics.requests);
+            tableResponse.setWalkTime(statistics.walkTime);
+            tableResponse.setMaxRepetitions(maxRepetitions);
+            tableResponses.put(entry.getKey(), tableResponse);
+        }
+        response.setTableResponses(Collections.unmodifiableMap(tableResponses));
+        return response;
+    }
+
+    /**
+     * The record of the retrieval of a single table: the table requests which included
+     * its columns, the objects delivered for those columns, and the time until the last
+     * of those requests finished.
+     */
+    private static class TableStatistics {
+
+        private int requests;
+        private int objects;
+        private long walkTime;
+
+        private void add(final TableStatistics statistics) {
+            requests += statistics.requests;
+            objects += statistics.objects;
+            walkTime = Math.max(walkTime, statistics.walkTime);
+        }
     }
 
     private class TableIndexRetrievalDescriptor {
@@ -315,24 +788,96 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
          */
         protected OID highIndex;
         /**
-         * The Column oids.
+         * The indices requested between the low and high index, in OID order.
          */
-        protected Set<OID> columnOids;
+        protected List<OID> indexRun;
+        /**
+         * The indices requested between the low and high index.
+         */
+        protected Set<OID> indices;
+        /**
+         * The number of rows from the low to the high index, whether requested or not.
+         */
+        protected long span;
+        /**
+         * The plans of the tables requesting the indices.
+         */
+        protected List<TablePlan> plans;
+        /**
+         * The OIDs of the columns of all plans, in OID order.
+         */
+        protected OID[] columnOids;
+        /**
+         * The table of each column, in the order of the column OIDs.
+         */
+        protected OID[] columnTables;
+        /**
+         * The number of PDUs over which the columns of a row are split.
+         */
+        protected int columnChunks;
         /**
          * Instantiates a new Table index retrieval descriptor.
          *
-         * @param indexOid the index oid
+         * @param indexRun the run of indices, in OID order
          */
-        public TableIndexRetrievalDescriptor(final OID indexOid) {
+        public TableIndexRetrievalDescriptor(final List<OID> indexRun) {
+            final OID indexOid = indexRun.get(0);
             if (indexOid.last() == 0) {
-                lowIndex = indexOid.trim();
+                // Trim a copy; the index belongs to the caller and is also used below.
+                lowIndex = new OID(indexOid).trim();
             } else {
                 lowIndex = new OID(indexOid);
                 lowIndex.set(indexOid.size() - 1, indexOid.last() - 1);
             }
 
-            highIndex = indexOid;
-            columnOids = new TreeSet<OID>();
+            highIndex = indexRun.get(indexRun.size() - 1);
+            this.indexRun = indexRun;
+            indices = new HashSet<OID>(indexRun);
+            // Indices of a run differ only in their last sub-identifier.
+            span = (indexRun.size() == 1) ? 1 : (highIndex.last() & 0xFFFFFFFFL) - (indexOid.last() & 0xFFFFFFFFL) + 1;
+            plans = new ArrayList<TablePlan>();
+        }
+
+        /**
+         * Merge the columns of the plans, once all plans have been added.
+         *
+         * @param columnsPerPdu the maximum number of columns requested in one PDU
+         */
+        public void mergePlans(final int columnsPerPdu) {
+            if (plans.size() == 1) {
+                final TablePlan plan = plans.get(0);
+                columnOids = plan.getColumnOids();
+                columnTables = plan.getColumnTables();
+                columnChunks = plan.getColumnChunks();
+                return;
+            }
+
+            // The columns of a table all lie between the table and the next table in OID order.
+            Collections.sort(plans, new Comparator<TablePlan>() {
+                @Override
+                public int compare(final TablePlan p1, final TablePlan p2) {
+                    return p1.getTableOid().compareTo(p2.getTableOid());
+                }
+            });
+            final List<OID> oids = new ArrayList<OID>();
+            final List<OID> tables = new ArrayList<OID>();
+            for (final TablePlan plan : plans) {
+                Collections.addAll(oids, plan.getColumnOids());
+                Collections.addAll(tables, plan.getColumnTables());
+            }
+            columnOids = oids.toArray(new OID[oids.size()]);
+            columnTables = tables.toArray(new OID[tables.size()]);
+            columnChunks = (columnOids.length + columnsPerPdu - 1) / columnsPerPdu;
+        }
+
+        /**
+         * Is requested boolean.
+         *
+         * @param index the index of a retrieved row
+         * @return true if the row was requested, rather than lying in a gap of the range
+         */
+        public boolean isRequested(final OID index) {
+            return index == null || indices.contains(index);
         }
 
         /**
@@ -341,7 +886,31 @@ public class SnmpTableWalker extends DefaultPDUFactory implements ISnmpTableWalk
          * @return the oid [ ]
          */
         public OID[] getColumnOids() {
-            return columnOids.toArray(new OID[columnOids.size()]);
+            return columnOids;
+        }
+
+        /**
+         * Get the OID of the instance of each column in each requested row, row by row.
+         *
+         * @return the instance oids
+         */
+        public List<OID> getInstanceOids() {
+            final List<OID> instances = new ArrayList<OID>(indexRun.size() * columnOids.length);
+            for (final OID index : indexRun) {
+                for (final OID columnOid : columnOids) {
+                    instances.add(new OID(columnOid).append(index));
+                }
+            }
+            return instances;
+        }
+
+        /**
+         * Get the table of each column, in the order of {@link #getColumnOids()}.
+         *
+         * @return the oid [ ]
+         */
+        public OID[] getColumnTables() {
+            return columnTables;
         }
     }
 }
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.snmp4j.PDU;
+import org.snmp4j.Session;
+import org.snmp4j.Target;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.smi.OID;
+import org.snmp4j.util.DefaultPDUFactory;
+import org.snmp4j.util.PDUFactory;
+import org.snmp4j.util.RetrievalEvent;
+import org.snmp4j.util.TreeEvent;
+import org.snmp4j.util.TreeListener;
+import org.snmp4j.util.TreeUtils;
+
+/**
+ * Starts the GETBULK walks of single subtrees of a device.
+ * <p/>
+ * Without a {@link MaxRepetitionsController} every subtree is walked with the configured
+ * max repetitions. With one, each request of a subtree uses the controller's current
+ * value and each response is reported back to the controller.
+ */
+class SubtreeWalker {
+
+    private final Session snmpInterface;
+    private final Target target;
+    private final PDUFactory pduFactory;
+    private final int maxRepetitions;
+    private final MaxRepetitionsController repetitionsController;
+    private final TreeUtils treeUtils;
+
+    /**
+     * Instantiates a new subtree walker.
+     *
+     * @param snmpInterface         the session through which requests are sent
+     * @param target                the target of the walk
+     * @param pduFactory            the factory of GETBULK requests
+     * @param maxRepetitions        the configured max repetitions
+     * @param repetitionsController the controller of the max repetitions, or null if the configured value is used
+     */
+    SubtreeWalker(final Session snmpInterface,
+                  final Target target,
+                  final PDUFactory pduFactory,
+                  final int maxRepetitions,
+                  final MaxRepetitionsController repetitionsController) {
+        this.snmpInterface = snmpInterface;
+        this.target = target;
+        this.pduFactory = pduFactory;
+        this.maxRepetitions = maxRepetitions;
+        this.repetitionsController = repetitionsController;
+        treeUtils = newTreeUtils(pduFactory, maxRepetitions);
+    }
+
+    private TreeUtils newTreeUtils(final PDUFactory factory, final int repetitions) {
+        final TreeUtils result = new TreeUtils(snmpInterface, factory);
+        result.setIgnoreLexicographicOrder(true);
+        result.setMaxRepetitions(repetitions);
+        return result;
+    }
+
+    /**
+     * Starts the walk of a subtree.
+     *
+     * @param root     the root of the subtree
+     * @param listener the listener for the subtree
+     */
+    void walk(final OID root, final TreeListener listener) {
+        if (repetitionsController == null) {
+            treeUtils.getSubtree(target, root, listener, listener);
+        } else {
+            final AdaptiveSubtree subtree = new AdaptiveSubtree(listener);
+            newTreeUtils(subtree, repetitionsController.getMaxRepetitions()).getSubtree(target, root, listener, subtree);
+        }
+    }
+
+    /**
+     * Gets max repetitions.
+     *
+     * @return the max repetitions currently used for new requests
+     */
+    int getMaxRepetitions() {
+        return (repetitionsController == null) ? maxRepetitions : repetitionsController.getMaxRepetitions();
+    }
+
+    /**
+     * Creates the GETBULK request of a subtree walk, which snmp4j reuses for each
+     * subsequent request of the walk, and adjusts its max repetitions after each response.
+     */
+    private class AdaptiveSubtree extends DefaultPDUFactory implements TreeListener {
+
+        private final TreeListener listener;
+        private PDU request;
+        private long sendTime;
+
+        AdaptiveSubtree(final TreeListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public PDU createPDU(final Target target) {
+            request = pduFactory.createPDU(target);
+            sendTime = System.currentTimeMillis();
+            return request;
+        }
+
+        @Override
+        public boolean next(final TreeEvent e) {
+            repetitionsController.onResponse(request.getMaxRepetitions(), e.getVariableBindings().length,
+                    System.currentTimeMillis() - sendTime);
+            final boolean more = listener.next(e);
+            if (more) {
+                request.setMaxRepetitions(repetitionsController.getMaxRepetitions());
+                sendTime = System.currentTimeMillis();
+            }
+            return more;
+        }
+
+        @Override
+        public void finished(final TreeEvent e) {
+            if (e.getStatus() == RetrievalEvent.STATUS_TIMEOUT) {
+                repetitionsController.onTimeout();
+            } else if (e.getStatus() == SnmpConstants.SNMP_ERROR_TOO_BIG) {
+                repetitionsController.onTooBig();
+            } else if (!e.isError()) {
+                repetitionsController.onLastResponse(System.currentTimeMillis() - sendTime);
+            }
+            listener.finished(e);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return listener.isFinished();
+        }
+    }
+}
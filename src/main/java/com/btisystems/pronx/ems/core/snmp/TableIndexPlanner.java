@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.snmp4j.smi.OID;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Groups the requested indices of a table into runs which may each be retrieved with a
+ * single ranged table request.
+ * <p/>
+ * Indices are taken in OID order. An index joins the run of the index before it when both
+ * have the same length and differ only in their last sub-identifier, by no more than one
+ * plus the maximum gap. A gap of 0 therefore joins only adjacent indices, such as the
+ * consecutive values of an ifIndex.
+ */
+final class TableIndexPlanner {
+
+    private TableIndexPlanner() {
+    }
+
+    /**
+     * Gets the runs of the indices.
+     *
+     * @param indices    the requested indices, in any order and possibly repeated
+     * @param maximumGap the largest number of unrequested indices allowed between two indices of a run
+     * @return the runs, in OID order, each holding its indices in OID order
+     */
+    static List<List<OID>> getRuns(final Collection<OID> indices, final int maximumGap) {
+        final List<List<OID>> runs = new ArrayList<List<OID>>();
+        List<OID> run = null;
+        OID previous = null;
+        for (final OID index : new TreeSet<OID>(indices)) {
+            if (previous == null || !isNear(previous, index, maximumGap)) {
+                run = new ArrayList<OID>();
+                runs.add(run);
+            }
+            run.add(index);
+            previous = index;
+        }
+        return runs;
+    }
+
+    private static boolean isNear(final OID previous, final OID index, final int maximumGap) {
+        final int last = index.size() - 1;
+        if (last < 0 || previous.size() != index.size() || previous.leftMostCompare(last, index) != 0) {
+            return false;
+        }
+        final long distance = (index.get(last) & 0xFFFFFFFFL) - (previous.get(last) & 0xFFFFFFFFL);
+        return distance <= (long) maximumGap + 1;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription;
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
+import org.snmp4j.smi.OID;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The columns retrieved from a table, prepared once for each selection of its fields.
+ * <p/>
+ * The plan of all columns of a table is cached with the description of the table, and the
+ * plan of selected columns with the {@link ColumnProjection} selecting them, so that walkers
+ * of every device using the same description and projection share a plan, and getting a
+ * cached plan allocates nothing. A plan is cached for each maximum number of columns per PDU
+ * in use, and a plan of all columns is held only as long as its description.
+ * Plans are immutable; the arrays they return must not be modified.
+ */
+final class TablePlan {
+
+    private static final Map<DeviceEntityDescription, TablePlan[]> PLANS =
+            Collections.synchronizedMap(new WeakHashMap<DeviceEntityDescription, TablePlan[]>());
+
+    private final OID tableOid;
+    private final OID[] columnOids;
+    private final OID[] columnTables;
+    private final int columnsPerPdu;
+    private final int columnChunks;
+
+    private TablePlan(final OID tableOid, final int[] fieldIds, final int columnsPerPdu) {
+        this.tableOid = tableOid;
+        columnOids = new OID[fieldIds.length];
+        for (int i = 0; i < fieldIds.length; i++) {
+            columnOids[i] = new OID(tableOid).append(fieldIds[i]);
+        }
+        columnTables = new OID[fieldIds.length];
+        Arrays.fill(columnTables, tableOid);
+        this.columnsPerPdu = columnsPerPdu;
+        columnChunks = (fieldIds.length + columnsPerPdu - 1) / columnsPerPdu;
+    }
+
+    /**
+     * Gets the plan of the columns of a table.
+     *
+     * @param description   the description of the table entry
+     * @param projection    the columns to be retrieved, or null to retrieve all columns
+     * @param columnsPerPdu the maximum number of columns requested in one PDU
+     * @return the cached plan
+     */
+    static TablePlan get(final DeviceEntityDescription description,
+                         final ColumnProjection projection,
+                         final int columnsPerPdu) {
+        if (projection != null) {
+            return projection.getPlan(description, columnsPerPdu);
+        }
+        final TablePlan plan = find(PLANS.get(description), columnsPerPdu);
+        if (plan != null) {
+            return plan;
+        }
+        synchronized (PLANS) {
+            final TablePlan[] plans = PLANS.get(description);
+            TablePlan created = find(plans, columnsPerPdu);
+            if (created == null) {
+                created = create(description, description.getFields(), columnsPerPdu);
+                PLANS.put(description, add(plans, created));
+            }
+            return created;
+        }
+    }
+
+    /**
+     * Finds the plan with a number of columns per PDU.
+     *
+     * @param plans         the plans, which may be null
+     * @param columnsPerPdu the maximum number of columns requested in one PDU
+     * @return the plan, or null if there is none
+     */
+    static TablePlan find(final TablePlan[] plans, final int columnsPerPdu) {
+        if (plans != null) {
+            for (final TablePlan plan : plans) {
+                if (plan.columnsPerPdu == columnsPerPdu) {
+                    return plan;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a plan to the plans of a table, which are copied rather than changed.
+     *
+     * @param plans the plans, which may be null
+     * @param plan  the plan to be added
+     * @return the plans with the new plan
+     */
+    static TablePlan[] add(final TablePlan[] plans, final TablePlan plan) {
+        if (plans == null) {
+            return new TablePlan[] {plan};
+        }
+        final TablePlan[] result = Arrays.copyOf(plans, plans.length + 1);
+        result[plans.length] = plan;
+        return result;
+    }
+
+    /**
+     * Creates the plan of columns of a table.
+     *
+     * @param description   the description of the table entry
+     * @param fields        the fields of the columns to be retrieved, in any order
+     * @param columnsPerPdu the maximum number of columns requested in one PDU
+     * @return the plan
+     */
+    static TablePlan create(final DeviceEntityDescription description,
+                            final Collection<FieldDescription> fields,
+                            final int columnsPerPdu) {
+        final int[] fieldIds = new int[fields.size()];
+        int i = 0;
+        for (final FieldDescription field : fields) {
+            fieldIds[i++] = field.getId();
+        }
+        // Ascending sub-identifiers give the columns in OID order.
+        Arrays.sort(fieldIds);
+        return new TablePlan(description.getOid(), fieldIds, columnsPerPdu);
+    }
+
+    /**
+     * Gets table oid.
+     *
+     * @return the oid of the table entry
+     */
+    OID getTableOid() {
+        return tableOid;
+    }
+
+    /**
+     * Get column oids oid [ ].
+     *
+     * @return the oids of the columns, in OID order
+     */
+    OID[] getColumnOids() {
+        return columnOids;
+    }
+
+    /**
+     * Get the table of each column, in the order of {@link #getColumnOids()}.
+     *
+     * @return the oid [ ]
+     */
+    OID[] getColumnTables() {
+        return columnTables;
+    }
+
+    /**
+     * Gets columns per pdu.
+     *
+     * @return the maximum number of columns requested in one PDU, for which the plan was made
+     */
+    int getColumnsPerPdu() {
+        return columnsPerPdu;
+    }
+
+    /**
+     * Gets column chunks.
+     *
+     * @return the number of PDUs over which the columns of a row are split
+     */
+    int getColumnChunks() {
+        return columnChunks;
+    }
+
+    /**
+     * Is empty boolean.
+     *
+     * @return true if no column is retrieved
+     */
+    boolean isEmpty() {
+        return columnOids.length == 0;
+    }
+}
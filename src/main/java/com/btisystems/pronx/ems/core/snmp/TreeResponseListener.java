@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.slf4j.Logger;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.VariableBinding;
+import org.snmp4j.util.TreeEvent;
+import org.snmp4j.util.TreeListener;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Listener for the subtrees of a device walk. The subtrees are walked in turn and
+ * the outcome of the walk is delivered both to threads waiting on the listener and
+ * through a {@link CompletableFuture}.
+ */
+class TreeResponseListener implements TreeListener, IDeviceWalk {
+
+    private static final Logger LOG = SnmpSession.LOG;
+    private static final Logger WALKER_LOG = SnmpSession.WALKER_LOG;
+
+    private final long startTime = System.currentTimeMillis();
+    private final CompletableFuture<WalkResponse> future = new CompletableFuture<>();
+    private final String hostAddress;
+    private final IVariableBindingHandler networkDevice;
+    private final List<OID> oids;
+    private final SubtreeWalker subtreeWalker;
+    private volatile boolean finished;
+    private int requests;
+    private int objects;
+    private WalkResponse response;
+    private int oidIndex;
+    private OID lastProcessedOid;
+
+    /**
+     * Instantiates a new Tree response listener.
+     *
+     * @param hostAddress   the address of the device, used for logging
+     * @param networkDevice the network device
+     * @param oids          the oids
+     * @param subtreeWalker the walker of each subtree
+     */
+    TreeResponseListener(final String hostAddress,
+                         final IVariableBindingHandler networkDevice,
+                         final List<OID> oids,
+                         final SubtreeWalker subtreeWalker) {
+        this.hostAddress = hostAddress;
+        this.networkDevice = networkDevice;
+        this.oids = oids;
+        this.subtreeWalker = subtreeWalker;
+        oidIndex = 0;
+        finished = false;
+    }
+
+    @Override
+    public void start() {
+        WALKER_LOG.debug("NE:{},  First subtree:{}", hostAddress, oids.get(0));
+        subtreeWalker.walk(oids.get(0), this);
+    }
+
+    @Override
+    public WalkResponse getResponse() {
+        return (response == null) ? new WalkResponse(new WalkException("Walk interrupted")) : response;
+    }
+
+    @Override
+    public CompletableFuture<WalkResponse> getFuture() {
+        return future;
+    }
+
+    @Override
+    public void stopWalk() {
+        finished = true;
+    }
+
+    @Override
+    public boolean next(final TreeEvent e) {
+        requests++;
+        final VariableBinding[] vbs = e.getVariableBindings();
+        for (int i = 0; i < vbs.length; i++) {
+            if (addVariable(vbs, i)) {
+                objects++;
+            }
+        }
+
+        return !finished;
+    }
+
+    private boolean addVariable(final VariableBinding[] vbs, final int i) {
+        try {
+            final VariableBinding binding = vbs[i];
+            final boolean wasAdded = networkDevice.addVariable(binding);
+            if (wasAdded) {
+                WALKER_LOG.debug("Element {} added varbind: {}.", hostAddress, binding);
+                lastProcessedOid = binding.getOid();
+            } else {
+                LOG.debug("Element {} unknown varbind: {}", hostAddress, binding);
+                return false;
+            }
+        } catch (final RuntimeException e) {
+            WALKER_LOG.warn("Failed adding varbind " + vbs[i] + " for element " + hostAddress + ".", e);
+        }
+        return true;
+    }
+
+    @Override
+    public void finished(final TreeEvent e) {
+        if ((e.getVariableBindings() != null) && (e.getVariableBindings().length > 0)) {
+            WALKER_LOG.debug("Element {} finished subtree count {}.", hostAddress, e.getVariableBindings().length);
+            next(e);
+        }
+
+        if (!finished && advanceOidIndex()) {
+            return;
+        }
+
+        final long walkTime = System.currentTimeMillis() - startTime;
+        WALKER_LOG.debug("Element {} walked, requests: {}, objects: {} time: {}.", hostAddress, requests, objects, walkTime);
+
+        if (e.isError()) {
+            LOG.error("Exception while walking " + hostAddress + ".", e.getException());
+            response = new WalkResponse(new WalkException(e.getErrorMessage()));
+        } else {
+            response = new WalkResponse(true);
+            response.setObjectCount(objects);
+            response.setRequestCount(requests);
+            response.setWalkTime(walkTime);
+            response.setMaxRepetitions(subtreeWalker.getMaxRepetitions());
+        }
+
+        finished = true;
+
+        synchronized (this) {
+            this.notify();
+        }
+        future.complete(response);
+    }
+
+    @Override
+    public boolean isFinished() {
+        WALKER_LOG.debug("Element {} finished: {}", hostAddress, finished);
+        return finished;
+    }
+
+    private boolean advanceOidIndex() {
+        while (++oidIndex < oids.size()
+                && (lastProcessedOid != null && lastProcessedOid.compareTo(oids.get(oidIndex)) > 0)) {
+            // Empty block
+        }
+
+        if (oidIndex < oids.size()) {
+            WALKER_LOG.debug("Element {} next subtree: {}", hostAddress, oids.get(oidIndex));
+            subtreeWalker.walk(oids.get(oidIndex), this);
+            return true;
+        }
+
+        return false;
+    }
+}
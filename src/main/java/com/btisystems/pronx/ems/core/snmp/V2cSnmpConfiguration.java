@@ -93,7 +93,11 @@ public class V2cSnmpConfiguration extends SnmpConfiguration {
                 + ", maxRepetitions=" + getMaxRepetitions() + ", nonRepeaters=" + getNonRepeaters() + ", maxSizeResponsePDU=" 
                 + getMaxSizeResponsePDU() + ", walkTimeout=" + getWalkTimeout() + ", port=" + getPort() + ", dispatcherPoolSize=" 
                 + getDispatcherPoolSize() + ", maximumRowsPerPdu=" + getMaximumRowsPerPdu() + ", maximumColumnsPerPdu=" 
-                + getMaximumColumnsPerPdu() + ", community=" + getCommunity() + '}';
+                + getMaximumColumnsPerPdu() + ", maximumConcurrentSubtrees=" + getMaximumConcurrentSubtrees()
+                + ", maximumConcurrentTableRequests=" + getMaximumConcurrentTableRequests()
+                + ", maximumTableIndexGap=" + getMaximumTableIndexGap() + ", maximumSparseRows=" + getMaximumSparseRows()
+                + ", adaptiveRepetitions=" + isAdaptiveRepetitions() + ", repetitionsLowerBound=" + getRepetitionsLowerBound()
+                + ", repetitionsUpperBound=" + getRepetitionsUpperBound() + ", community=" + getCommunity() + '}';
     }
     
 }
\ No newline at end of file
@@ -15,6 +15,10 @@ package com.btisystems.pronx.ems.core.snmp;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.snmp4j.smi.OID;
+
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * Encapsulates the parameters describing the response to an SNMP walk request.
@@ -43,6 +47,8 @@ public class WalkResponse {
     private long pingTime;      // ICMP latency
     private int objectCount;    // Number of bindings returned
     private int requestCount;   // Number of requests
+    private int maxRepetitions; // Max repetitions in use at the end of the walk
+    private Map<OID, WalkResponse> tableResponses = Collections.emptyMap(); // Record of each table retrieved
 
     /**
      * Instantiates a new Walk response.
@@ -163,4 +169,41 @@ public class WalkResponse {
     public void setRequestCount(final int requestCount) {
         this.requestCount = requestCount;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets max repetitions.
+     *
+     * @return the max repetitions in use at the end of the walk
+     */
+    public int getMaxRepetitions() {
+        return maxRepetitions;
+    }
+
+    /**
+     * Sets max repetitions.
+     *
+     * @param maxRepetitions the max repetitions
+     */
+    public void setMaxRepetitions(final int maxRepetitions) {
+        this.maxRepetitions = maxRepetitions;
+    }
+
+    /**
+     * Gets table responses.
+     *
+     * @return the record of the retrieval of each table, keyed by the OID of the table entry,
+     * or an empty map if the walk did not retrieve specific table rows
+     */
+    public Map<OID, WalkResponse> getTableResponses() {
+        return tableResponses;
+    }
+
+    /**
+     * Sets table responses.
+     *
+     * @param tableResponses the record of the retrieval of each table
+     */
+    public void setTableResponses(final Map<OID, WalkResponse> tableResponses) {
+        this.tableResponses = tableResponses;
+    }
+}
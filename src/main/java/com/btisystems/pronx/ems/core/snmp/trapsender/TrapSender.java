@@ -151,24 +151,27 @@ public class TrapSender implements ITrapSender {
 
     private Variable buildString(final INotification notification, final FieldDescription fieldDescription) {
         Variable result = null;
-        if (notification.getString(fieldDescription.getName()) != null) {
-            result = new OctetString(notification.getString(fieldDescription.getName()));
+        final String value = notification.getString(fieldDescription.getName());
+        if (value != null) {
+            result = new OctetString(value);
         }
         return result;
     }
 
     private Variable buildDateTime(final INotification notification, final FieldDescription fieldDescription) {
         Variable result = null;
-        if (notification.getString(fieldDescription.getName()) != null) {
-            result = OctetString.fromHexString(notification.getString(fieldDescription.getName()), ':');
+        final String value = notification.getString(fieldDescription.getName());
+        if (value != null) {
+            result = OctetString.fromHexString(value, ':');
         }
         return result;
     }
 
     private Variable buildIPAddress(final INotification notification, final FieldDescription fieldDescription) {
         Variable result = null;
-        if (notification.getString(fieldDescription.getName()) != null) {
-            result = new IpAddress(notification.getString(fieldDescription.getName()));
+        final String value = notification.getString(fieldDescription.getName());
+        if (value != null) {
+            result = new IpAddress(value);
         }
         return result;
     }
@@ -27,6 +27,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 
 /**
@@ -179,6 +180,27 @@ public class AbstractRootEntityTest {
         assertTrue(setterMethodWasCalled);
     }
 
+    /**
+     * Verify repeated dispatch through the same root class.
+     */
+    @Test
+    public void verifyRepeatedDispatch() {
+        for (int i = 0; i < 2; i++) {
+            setterMethodWasCalled = false;
+            final RootEntity rootEntity = new RootEntity();
+            rootEntity.setObject(new MyDeviceEntity());
+            assertTrue(setterMethodWasCalled);
+            assertTrue(rootEntity.isEntitySupported(DEVICE_ENTITY_CLASSNAME));
+            assertFalse(rootEntity.isEntitySupported(DUMMY_GETTER_METHOD_NAME));
+            try {
+                rootEntity.getObject(RootEntity.class);
+                fail("Should not reach");
+            } catch (final InvalidFieldNameException e) {
+                assertFalse(getterMethodWasCalled);
+            }
+        }
+    }
+
     /**
      * Verify get object expect exception.
      */
@@ -17,6 +17,16 @@ package com.btisystems.pronx.ems.core.model;
 import com.btisystems.pronx.ems.core.model.testpackage1._OidRegistry;
 import com.btisystems.pronx.ems.core.model.testpackage1.I_Device;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -54,16 +64,100 @@ public class ClassRegistryTest {
                      registry.getClass(new OID("1.3.6.1.2.1.1")).getCanonicalName());
     }
 
+    @Test
+    public void shouldGetLongestPrefixMatch()  {
+        final int[] scalar = new OID("1.3.6.1.2.1.1.2.5.0").getValue();
+        final OidClassMatch scalarMatch = registry.getLongestPrefixMatch(scalar, scalar.length - 1);
+        assertEquals(new OID("1.3.6.1.2.1.1.2"), scalarMatch.getOid());
+        assertEquals(8, scalarMatch.getOidLength());
+        assertEquals("EntityTest1", scalarMatch.getEntityClass().getSimpleName());
+        assertFalse(scalarMatch.isIndexed());
+        assertSame(scalarMatch, registry.getLongestPrefixMatch(scalar, scalar.length - 1));
+
+        final int[] column = new OID("1.3.6.1.2.2.3.1.4.7.7").getValue();
+        final OidClassMatch entryMatch = registry.getLongestPrefixMatch(column, column.length - 1);
+        assertEquals("TableEntryTest", entryMatch.getEntityClass().getSimpleName());
+        assertEquals(new OID("1.3.6.1.2.2.3"), entryMatch.getParentOid());
+        assertSame(entryMatch.getParentOid(), registry.getLongestPrefixMatch(column, column.length - 1).getParentOid());
+
+        // Only the first length sub-identifiers are considered.
+        assertEquals("TableEntityTest", registry.getLongestPrefixMatch(column, 7).getEntityClass().getSimpleName());
+        assertNull(registry.getLongestPrefixMatch(column, 6));
+        assertNull(registry.getLongestPrefixMatch(new OID("1.3.6.1.4.1.9").getValue(), 7));
+    }
+
+    @Test
+    public void shouldMatchLongestPrefixByDefault()  {
+        final IClassRegistry defaults = new RegistryWithDefaults(registry);
+        for (final String oid : new String[] {"1.3.6.1.2.1.1.2.5.0", "1.3.6.1.2.2.3.1.4.7.7"}) {
+            final int[] rawOid = new OID(oid).getValue();
+            final OidClassMatch expected = registry.getLongestPrefixMatch(rawOid, rawOid.length - 1);
+            final OidClassMatch match = defaults.getLongestPrefixMatch(rawOid, rawOid.length - 1);
+            assertEquals(expected.getOid(), match.getOid());
+            assertSame(expected.getEntityClass(), match.getEntityClass());
+            assertEquals(expected.isIndexed(), match.isIndexed());
+        }
+        assertNull(defaults.getLongestPrefixMatch(new OID("1.3.6.1.4.1.9").getValue(), 7));
+    }
+
     @Test
     public void shouldGetDiscoveryOids() throws InterruptedException  {
         registry.setExcludedDiscoveryOids("1.3.6.1.2.1.1.1");
         assertEquals(15, registry.getDiscoveryOids().size());
     }
 
+    @Test
+    public void shouldCacheDiscoveryOidsUntilExclusionsChange() {
+        final List<OID> oids = registry.getDiscoveryOids();
+        assertSame(oids, registry.getDiscoveryOids());
+        assertTrue(oids.contains(new OID("1.3.6.1.2.1.1.1")));
+
+        registry.setExcludedDiscoveryOids(null);
+        assertSame(oids, registry.getDiscoveryOids());
+
+        registry.setExcludedDiscoveryOids("1.3.6.1.2.1.1.1");
+        final List<OID> excluded = registry.getDiscoveryOids();
+        assertNotSame(oids, excluded);
+        assertFalse(excluded.contains(new OID("1.3.6.1.2.1.1.1")));
+        assertFalse(excluded.contains(new OID("1.3.6.1.2.1.1")));
+        assertSame(excluded, registry.getDiscoveryOids());
+    }
+
+    @Test
+    public void shouldExcludeDiscoveryOidsByOidPrefix() {
+        registry.setExcludedDiscoveryOids("1.3.6.1.2.1.1.2,1.3.6.1.2.1.1.1");
+        final List<OID> oids = registry.getDiscoveryOids();
+        assertFalse(oids.contains(new OID("1.3.6.1.2.1.1.1.1")));
+        assertFalse(oids.contains(new OID("1.3.6.1.2.1.1.2.1")));
+        assertTrue(oids.contains(new OID("1.3.6.1.2.1.1.10")));
+        assertTrue(oids.contains(new OID("1.3.6.1.2.1.1.12")));
+
+        final List<OID> sorted = new ArrayList<>(oids);
+        Collections.sort(sorted);
+        assertEquals(sorted, oids);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotModifyDiscoveryOids() {
+        registry.getDiscoveryOids().clear();
+    }
+
     @Test
     public void shouldGetEntityDescription() throws InterruptedException  {
         final DeviceEntityDescription description = registry.getEntityDescription(new OID("1.3.6.1.2.1.1"));
         assertEquals(description.getOid(), new OID("1.3.6.1.2.1.1"));
+        assertSame(description, registry.getEntityDescription(new OID("1.3.6.1.2.1.1")));
+        assertSame(description, registry.getEntityDescription(registry.getClass(new OID("1.3.6.1.2.1.1"))));
+        assertNull(registry.getEntityDescription(new OID("1.3.6.1.4.1.9")));
+        assertNull(registry.getEntityDescription(MyDeviceEntity.class));
+    }
+
+    @Test
+    public void shouldGetEntityDescriptionOfClassByDefault()  {
+        final IClassRegistry defaults = new RegistryWithDefaults(registry);
+        final Class<? extends DeviceEntity> entityClass = registry.getClass(new OID("1.3.6.1.2.1.1"));
+        assertSame(registry.getEntityDescription(entityClass), defaults.getEntityDescription(entityClass));
+        assertNull(defaults.getEntityDescription(MyDeviceEntity.class));
     }
 
     @Test
@@ -97,4 +191,59 @@ public class ClassRegistryTest {
         assertEquals("EntityTest2", clazz.getSimpleName());
     }
 
+    // A registry relying on the default methods of IClassRegistry.
+    @SuppressWarnings("serial")
+    private static final class RegistryWithDefaults implements IClassRegistry {
+
+        private final IClassRegistry registry;
+
+        private RegistryWithDefaults(final IClassRegistry registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public Class<? extends DeviceEntity> getClass(final OID oid) {
+            return registry.getClass(oid);
+        }
+
+        @Override
+        public Class<? extends DeviceEntity> getClass(final String name) {
+            return registry.getClass(name);
+        }
+
+        @Override
+        public Class<? extends AbstractRootEntity> getRootEntityClass() {
+            return registry.getRootEntityClass();
+        }
+
+        @Override
+        public List<OID> getOids() {
+            return registry.getOids();
+        }
+
+        @Override
+        public List<OID> getDiscoveryOids() {
+            return registry.getDiscoveryOids();
+        }
+
+        @Override
+        public void setExcludedDiscoveryOids(final String excludedDiscoveryOids) {
+            registry.setExcludedDiscoveryOids(excludedDiscoveryOids);
+        }
+
+        @Override
+        public DeviceEntityDescription getEntityDescription(final OID oid) {
+            return registry.getEntityDescription(oid);
+        }
+
+        @Override
+        public Class<? extends DeviceEntity> getContainingEntityClass(final String oidValue) {
+            return registry.getContainingEntityClass(oidValue);
+        }
+
+        @Override
+        public Map<Class<? extends DeviceEntity>, OID> getClassToOidMap() {
+            return registry.getClassToOidMap();
+        }
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldType;
+import org.junit.Before;
+import org.junit.Test;
+import org.snmp4j.smi.Counter64;
+import org.snmp4j.smi.Gauge32;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+
+
+public class ColumnarTableTest {
+
+    private ColumnarTable table;
+
+    @Before
+    public void setUp() {
+        final DeviceEntityDescription description = new DeviceEntityDescription(new OID("1.3.6.1.2.1.4.22.1"));
+        description.addField(new FieldDescription(1, "ifIndex", FieldType.INTEGER, -1));
+        description.addField(new FieldDescription(2, "physAddress", FieldType.STRING, 255));
+        description.addField(new FieldDescription(3, "octets", FieldType.UNSIGNED64, -1));
+        description.addField(new FieldDescription(4, "changed", FieldType.DATE_AND_TIME, -1));
+        description.addField(new FieldDescription(5, "child", FieldType.ENTITY, -1));
+        description.addField(new FieldDescription(6, "inOctets", FieldType.UNSIGNED32, -1));
+        table = new ColumnarTable(description);
+    }
+
+    @Test
+    public void shouldHoldColumnsByIndex() {
+        assertTrue(add("1.3.6.1.2.1.4.22.1.1.10.0.0.1", new Integer32(7)));
+        assertTrue(add("1.3.6.1.2.1.4.22.1.2.10.0.0.1", new OctetString("vlan1")));
+        assertTrue(add("1.3.6.1.2.1.4.22.1.1.10.0.0.2", new Integer32(8)));
+        assertTrue(add("1.3.6.1.2.1.4.22.1.3.10.0.0.2", new Counter64(5000000000L)));
+        assertTrue(add("1.3.6.1.2.1.4.22.1.4.10.0.0.2", new OctetString(new byte[] {7, (byte) 0xe0})));
+
+        assertEquals(2, table.size());
+        final ColumnarTable.Row first = table.getRow(IndexKey.parse("10.0.0.1"));
+        assertEquals(7, first.getInt(1));
+        assertEquals("vlan1", first.getString("physAddress"));
+        assertFalse(first.isSet(3));
+        assertEquals(0L, first.getLong(3));
+
+        final ColumnarTable.Row second = table.getRows().get(1);
+        assertEquals(IndexKey.parse("10.0.0.2"), second.getIndex());
+        assertEquals(8, second.getInt("ifIndex"));
+        assertEquals(5000000000L, second.getLong(3));
+        assertEquals("07:e0", second.getString(4));
+        assertNull(second.getString(2));
+        assertNull(table.getRow(IndexKey.parse("10.0.0.3")));
+    }
+
+    @Test
+    public void shouldReadUnsigned32ValuesWithoutSignExtension() {
+        add("1.3.6.1.2.1.4.22.1.6.1", new Gauge32(3000000000L));
+        add("1.3.6.1.2.1.4.22.1.6.2", new Gauge32(4294967295L));
+        add("1.3.6.1.2.1.4.22.1.1.1", new Integer32(-1));
+
+        assertEquals(3000000000L, table.getRows().get(0).getLong(6));
+        assertEquals("3000000000", table.getRows().get(0).getString("inOctets"));
+        assertEquals(4294967295L, table.getRows().get(1).getLong("inOctets"));
+        assertEquals(-1L, table.getRows().get(0).getLong(1));
+    }
+
+    @Test
+    public void shouldShareEqualStrings() {
+        add("1.3.6.1.2.1.4.22.1.2.1", new OctetString("shared"));
+        add("1.3.6.1.2.1.4.22.1.2.2", new OctetString("shared"));
+
+        assertSame(table.getRows().get(0).getString(2), table.getRows().get(1).getString(2));
+    }
+
+    @Test
+    public void shouldIgnoreVariablesOutsideTable() {
+        assertFalse(add("1.3.6.1.2.1.4.21.1.1.1", new Integer32(1)));
+        assertFalse(add("1.3.6.1.2.1.4.22.1.1", new Integer32(1)));
+        assertFalse(add("1.3.6.1.2.1.4.22.1.5.1", new Integer32(1)));
+        assertFalse(add("1.3.6.1.2.1.4.22.1.9.1", new Integer32(1)));
+        assertEquals(0, table.size());
+    }
+
+    private boolean add(final String oid, final Variable value) {
+        return table.addVariable(new VariableBinding(new OID(oid), value));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest.IndexedEntity;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest.KeyedTableEntity;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest.SimpleEntity;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest.TableEntity;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest._Device;
+import org.junit.Before;
+import org.junit.Test;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.VariableBinding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentNetworkDeviceTest {
+
+    private static final int THREADS = 8;
+    private static final int ROWS = 200;
+
+    private ConcurrentNetworkDevice device;
+
+    @Before
+    public void setUp() {
+        final TreeMap<OID, Class<? extends DeviceEntity>> classes = new TreeMap<>();
+        classes.put(new OID("1"), SimpleEntity.class);
+        classes.put(new OID("1.2"), TableEntity.class);
+        classes.put(new OID("1.2.3"), IndexedEntity.class);
+        classes.put(new OID("1.4"), KeyedTableEntity.class);
+        classes.put(new OID("1.4.3"), IndexedEntity.class);
+        device = new ConcurrentNetworkDevice(new ClassRegistry(classes, _Device.class), "address");
+    }
+
+    @Test
+    public void shouldIgnoreUnknownOid() {
+        assertFalse(device.addVariable(binding("2.1.0")));
+        assertFalse(device.addVariable(binding("1.1.1.0")));
+    }
+
+    @Test
+    public void shouldAddEntities() {
+        assertTrue(device.addVariable(binding("1.1.0")));
+        assertTrue(device.addVariable(binding("1.2.3.1.7")));
+        assertTrue(device.addVariable(binding("1.2.3.2.7")));
+        assertTrue(device.addVariable(binding("1.4.3.1.7.8")));
+
+        final _Device root = (_Device) device.getRootObject();
+        assertEquals("1.1.0", ((SimpleEntity) root.getRoots()[0]).field1);
+        final TableEntity table = (TableEntity) root.getRoots()[1];
+        assertEquals(1, table.getEntries().size());
+        assertNotNull(table.getEntry("7"));
+        final KeyedTableEntity keyedTable = (KeyedTableEntity) root.getRoots()[2];
+        assertNotNull(keyedTable.getEntry(IndexKey.parse("7.8")));
+    }
+
+    @Test
+    public void shouldCreateEachEntryOnceWhenPopulatedConcurrently() throws Exception {
+        final List<VariableBinding> bindings = new ArrayList<>();
+        bindings.add(binding("1.1.0"));
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 1; column <= 3; column++) {
+                bindings.add(binding("1.2.3." + column + "." + row));
+                bindings.add(binding("1.4.3." + column + ".1." + row));
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<AbstractRootEntity>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                final List<VariableBinding> shuffled = new ArrayList<>(bindings);
+                Collections.shuffle(shuffled, new Random(i));
+                results.add(executor.submit(new Callable<AbstractRootEntity>() {
+                    @Override
+                    public AbstractRootEntity call() {
+                        for (final VariableBinding binding : shuffled) {
+                            device.addVariable(binding);
+                        }
+                        return device.getRootObject();
+                    }
+                }));
+            }
+
+            for (final Future<AbstractRootEntity> result : results) {
+                assertSame(device.getRootObject(), result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final DeviceEntity[] roots = device.getRootObject().getRoots();
+        assertEquals("1.1.0", ((SimpleEntity) roots[0]).field1);
+        assertEquals(ROWS, ((TableEntity) roots[1]).getEntries().size());
+        assertEquals(ROWS, ((KeyedTableEntity) roots[2]).getKeyedEntries().size());
+    }
+
+    private static VariableBinding binding(final String oid) {
+        return new VariableBinding(new OID(oid), new OctetString(oid));
+    }
+}
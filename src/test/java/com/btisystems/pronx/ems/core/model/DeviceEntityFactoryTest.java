@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+
+public class DeviceEntityFactoryTest {
+
+    @Test
+    public void shouldInstantiateEntity() throws Exception {
+        final MyDeviceEntity first = DeviceEntityFactory.newInstance(MyDeviceEntity.class);
+        final MyDeviceEntity second = DeviceEntityFactory.newInstance(MyDeviceEntity.class);
+
+        assertEquals(MyDeviceEntity.class, first.getClass());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void shouldFailWithoutNoArgumentConstructor() {
+        try {
+            DeviceEntityFactory.newInstance(NoDefaultConstructorEntity.class);
+            fail("Should not reach");
+        } catch (final ReflectiveOperationException e) {
+            assertEquals(InstantiationException.class, e.getClass());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldPropagateConstructorFailure() throws Exception {
+        DeviceEntityFactory.newInstance(FailingEntity.class);
+    }
+
+    static public class NoDefaultConstructorEntity extends MyDeviceEntity {
+        public NoDefaultConstructorEntity(final String name) {
+        }
+    }
+
+    static public class FailingEntity extends MyDeviceEntity {
+        public FailingEntity() {
+            throw new IllegalStateException("Failed");
+        }
+    }
+}
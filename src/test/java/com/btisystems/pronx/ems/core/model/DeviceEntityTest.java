@@ -23,13 +23,18 @@ import org.junit.Test;
 
 import java.beans.PropertyChangeListener;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.easymock.EasyMock.createMock;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 
 /**
@@ -118,6 +123,39 @@ public class DeviceEntityTest {
         assertEquals(123, deviceEntity.getLong("time"));
     }
     
+    @Test
+    public void shouldAccessFieldsById() {
+        deviceEntity.get_Description().addField(new FieldDescription(1, "deviceName", DeviceEntityDescription.FieldType.STRING, -1));
+        deviceEntity.get_Description().addField(new FieldDescription(2, "deviceId", DeviceEntityDescription.FieldType.INTEGER, -1));
+        deviceEntity.get_Description().addField(new FieldDescription(3, "time", DeviceEntityDescription.FieldType.UNSIGNED64, -1));
+
+        deviceEntity.set(1, "testDevice");
+        deviceEntity.set(2, 123);
+        deviceEntity.set(3, 456L);
+
+        assertEquals("testDevice", deviceEntity.getString(1));
+        assertEquals(123, deviceEntity.getInt(2));
+        assertEquals(456L, deviceEntity.getLong(3));
+        assertEquals("testDevice", deviceEntity.getString("deviceName"));
+    }
+
+    @Test(expected = InvalidFieldNameException.class)
+    public void shouldRejectUnknownFieldId() {
+        deviceEntity.getString(99);
+    }
+
+    @Test
+    public void shouldRejectUnknownFieldOnEachAccess() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                deviceEntity.set("not a field", 1);
+                fail("Should not reach");
+            } catch (final InvalidFieldNameException e) {
+                assertTrue(e.getMessage().contains("not a field"));
+            }
+        }
+    }
+
     @Test
     public void shouldSupportToString() {
         assertNotNull(deviceEntity.toString());
@@ -273,6 +311,31 @@ public class DeviceEntityTest {
 
     }
 
+    /**
+     * Notify field change listener.
+     */
+    @Test
+    public void notifyFieldChangeListener() {
+        final List<Integer> fieldIds = new ArrayList<>();
+        deviceEntity.addPropertyChangeListener(new IFieldChangeListener() {
+            @Override
+            public void fieldChanged(final DeviceEntity entity, final int fieldId) {
+                assertSame(deviceEntity, entity);
+                fieldIds.add(fieldId);
+            }
+
+            @Override
+            public void propertyChange(final PropertyChangeEvent evt) {
+                fail("Should not reach");
+            }
+        });
+
+        deviceEntity.notifyChange(123, null, "testDevice");
+        deviceEntity.notifyChange(124, "same", "same");
+
+        assertEquals(Collections.singletonList(123), fieldIds);
+    }
+
     /**
      * Prepare device entity field types device entity.
      *
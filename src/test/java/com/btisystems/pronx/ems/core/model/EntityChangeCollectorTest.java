@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.btisystems.pronx.ems.core.model.testpackage1.sub.EntityTest1;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class EntityChangeCollectorTest {
+
+    private EntityChangeCollector collector;
+    private List<EntityChangeEvent> delivered;
+
+    @Before
+    public void setUp() {
+        collector = new EntityChangeCollector();
+        delivered = new ArrayList<>();
+        collector.addEntityChangeListener(new IEntityChangeListener() {
+            @Override
+            public void entityChanged(final EntityChangeEvent event) {
+                delivered.add(event);
+            }
+        });
+    }
+
+    @Test
+    public void shouldCoalesceChangesPerEntity() {
+        final EntityTest1 first = new EntityTest1();
+        final EntityTest1 second = new EntityTest1();
+        first.addPropertyChangeListener(collector);
+        second.addPropertyChangeListener(collector);
+
+        first.setMacaddress("00:01");
+        first.setReboot(1);
+        second.setConfigfile(2);
+        first.setMacaddress("00:02");
+
+        final List<EntityChangeEvent> events = collector.flush();
+
+        assertEquals(events, delivered);
+        assertEquals(2, events.size());
+        assertSame(first, events.get(0).getEntity());
+        assertArrayEquals(new int[] {1, 6}, events.get(0).getFieldIds());
+        assertTrue(events.get(0).isChanged(6));
+        assertFalse(events.get(0).isChanged(2));
+        assertSame(second, events.get(1).getEntity());
+        assertArrayEquals(new int[] {2}, events.get(1).getFieldIds());
+        assertTrue(collector.isEmpty());
+    }
+
+    @Test
+    public void shouldIgnoreUnchangedValues() {
+        final EntityTest1 entity = new EntityTest1();
+        entity.setMacaddress("00:01");
+        entity.addPropertyChangeListener(collector);
+
+        entity.setMacaddress("00:01");
+        entity.setReboot(0);
+
+        assertTrue(collector.isEmpty());
+        assertTrue(collector.flush().isEmpty());
+        assertTrue(delivered.isEmpty());
+    }
+
+    @Test
+    public void shouldStopCollectingWhenRemoved() {
+        final EntityTest1 entity = new EntityTest1();
+        entity.addPropertyChangeListener(collector);
+        entity.removePropertyChangeListener(collector);
+
+        entity.setMacaddress("00:01");
+
+        assertTrue(collector.isEmpty());
+        assertTrue(((DeviceEntity) entity)._getChangeListeners().isEmpty());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import com.btisystems.pronx.ems.core.model.EntityEventBusTest.Root;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest.IndexedEntity;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest.KeyedTableEntity;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest.TableEntity;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest._Device;
+import com.btisystems.pronx.ems.core.model.SnapshotDiffTest.Table;
+import com.btisystems.pronx.ems.core.model.testpackage1.sub.EntityTest1;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EntityCodecTest {
+
+    @Test
+    public void shouldEncodeAndDecodeRootEntity() throws Exception {
+        final Root root = new Root();
+        root.setDeviceAddress("10.0.0.1");
+        final EntityTest1 entity = createEntity();
+        root.setObject(entity);
+
+        final Root decoded = (Root) EntityCodec.decodeRoot(new ByteArrayInputStream(encode(root)));
+
+        assertEquals("10.0.0.1", decoded.getDeviceAddress());
+        assertEquals(entity, decoded.getEntityTest1());
+        assertNull(decoded.getEntityTest1().getSnmpTrapSer2());
+    }
+
+    @Test
+    public void shouldEncodeAndDecodeTables() throws Exception {
+        final Table table = new Table();
+        table.setEntry("1.2", createEntity());
+        final EntityTest1 entry = new EntityTest1();
+        entry.setReboot(Integer.MIN_VALUE);
+        table.setEntry("3", entry);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EntityCodec.encode(table, out);
+        final Table decoded = (Table) EntityCodec.decodeEntity(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(2, decoded.getEntries().size());
+        assertEquals(table.getEntry("1.2"), decoded.getEntry("1.2"));
+        assertEquals(Integer.MIN_VALUE, decoded.getEntry("3").getReboot());
+    }
+
+    @Test
+    public void shouldEncodeAndDecodeKeyedTables() throws Exception {
+        final _Device device = new _Device();
+        final KeyedTableEntity keyedTable = new KeyedTableEntity();
+        keyedTable.setEntry(IndexKey.parse("4294967295.1"), new IndexedEntity());
+        device.setObject(keyedTable);
+        final TableEntity table = new TableEntity();
+        table.setEntry("7", new IndexedEntity());
+        device.setObject(table);
+
+        final _Device decoded = (_Device) EntityCodec.decodeRoot(new ByteArrayInputStream(encode(device)));
+
+        final KeyedTableEntity decodedKeyedTable = (KeyedTableEntity) decoded.getRoots()[2];
+        assertEquals(1, decodedKeyedTable.getKeyedEntries().size());
+        assertNotNull(decodedKeyedTable.getEntry(IndexKey.parse("4294967295.1")));
+        assertNotNull(((TableEntity) decoded.getRoots()[1]).getEntry("7"));
+    }
+
+    @Test
+    public void shouldDecodeSeveralEntitiesFromOneStream() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final EntityTest1 first = createEntity();
+        final EntityTest1 second = new EntityTest1();
+        second.setQinqEtherType(0x8100);
+        EntityCodec.encode(first, out);
+        EntityCodec.encode(second, out);
+
+        final InputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals(first, EntityCodec.decodeEntity(in));
+        assertEquals(second, EntityCodec.decodeEntity(in));
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void shouldBeSmallerThanJavaSerialization() throws Exception {
+        final Root root = new Root();
+        root.setObject(createEntity());
+
+        final ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(root);
+        }
+
+        assertTrue(encode(root).length * 4 < serialized.size());
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void shouldRejectOtherData() throws Exception {
+        EntityCodec.decodeRoot(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+    }
+
+    @Test
+    public void shouldSkipEntitiesOfUnknownClasses() throws Exception {
+        // An entity written by a newer version with field 99 holding an entity of a missing class.
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[] {(byte) 0xEC, 2});
+        writeClassName(out, 0, EntityTest1.class.getName());
+        writeVarint(out, (100 << 2) | 2);
+        writeClassName(out, 1, "com.example.Missing");
+        writeVarint(out, (1 << 2) | 1);
+        writeString(out, "skipped");
+        writeVarint(out, (2 << 2) | 2);
+        writeClassName(out, 2, "com.example.MissingChild");
+        out.write(new byte[] {0, 0});
+        writeVarint(out, 0);
+        writeVarint(out, 1);
+        out.write(new byte[] {1, 2, 7, 0});
+        out.write(new byte[] {1, 0, 0});
+        // configfile = -3, then the end of the fields and no table entries
+        out.write(new byte[] {(2 + 1) << 2, 5, 0, 0});
+
+        final EntityTest1 decoded = (EntityTest1) EntityCodec.decodeEntity(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(-3, decoded.getConfigfile());
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void shouldRejectOversizedStrings() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[] {(byte) 0xEC, 2});
+        writeClassName(out, 0, EntityTest1.class.getName());
+        writeVarint(out, (1 + 1) << 2 | 1);
+        writeVarint(out, Integer.MAX_VALUE);
+
+        EntityCodec.decodeEntity(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static void writeClassName(final ByteArrayOutputStream out, final int reference, final String name) {
+        writeVarint(out, reference);
+        writeString(out, name);
+    }
+
+    private static void writeString(final ByteArrayOutputStream out, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarint(final ByteArrayOutputStream out, final int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.write(remaining);
+    }
+
+    private static byte[] encode(final AbstractRootEntity root) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EntityCodec.encode(root, out);
+        return out.toByteArray();
+    }
+
+    private static EntityTest1 createEntity() {
+        final EntityTest1 entity = new EntityTest1();
+        entity.setMacaddress("00:11:22:33:44:55");
+        entity.setConfigfile(-3);
+        entity.setSystemtime(Integer.MAX_VALUE);
+        entity.setSoftwareVersion("v1.2 \u00e9");
+        entity.setSnmpTrapSer1("");
+        return entity;
+    }
+}
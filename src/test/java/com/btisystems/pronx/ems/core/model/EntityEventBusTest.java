@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.btisystems.pronx.ems.core.model.testpackage1.sub.EntityTest1;
+import com.btisystems.pronx.ems.core.model.testpackage1.sub.EntityTest2;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.snmp4j.smi.OID;
+
+
+public class EntityEventBusTest {
+
+    private Root root;
+    private EntityTest1 entity;
+    private List<String> received;
+
+    @Before
+    public void setUp() {
+        root = new Root();
+        entity = new EntityTest1();
+        root.setObject(entity);
+        received = new ArrayList<>();
+    }
+
+    @Test
+    public void shouldNotPublishWithoutSubscribers() {
+        assertFalse(root.getEventBus().hasSubscribers());
+        assertSame(root.getEventBus(), ((DeviceEntity) entity)._getEventBus());
+    }
+
+    @Test
+    public void shouldPublishToAllSubscribers() {
+        root.getEventBus().subscribe(new Recorder("all"));
+
+        entity.setMacaddress("00:01");
+
+        assertEquals(1, received.size());
+        assertEquals("all:EntityTest1:1:null:00:01", received.get(0));
+    }
+
+    @Test
+    public void shouldFilterByClassAndOid() {
+        root.getEventBus().subscribe(EntityTest1.class, new Recorder("class"));
+        root.getEventBus().subscribe(EntityTest2.class, new Recorder("other"));
+        root.getEventBus().subscribe(new OID("1.3.6.1.2.1.1"), new Recorder("oid"));
+        root.getEventBus().subscribe(new OID("1.3.6.1.2.1.2"), new Recorder("otherOid"));
+
+        entity.setReboot(1);
+
+        assertEquals(2, received.size());
+        assertTrue(received.contains("class:EntityTest1:6:0:1"));
+        assertTrue(received.contains("oid:EntityTest1:6:0:1"));
+    }
+
+    @Test
+    public void shouldStopPublishingAfterUnsubscribe() {
+        final Recorder recorder = new Recorder("class");
+        root.getEventBus().subscribe(EntityTest1.class, recorder);
+        root.getEventBus().unsubscribe(recorder);
+
+        entity.setReboot(1);
+
+        assertFalse(root.getEventBus().hasSubscribers());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void shouldCollectChangesFromBus() {
+        final EntityChangeCollector collector = new EntityChangeCollector();
+        root.getEventBus().subscribe(collector);
+
+        entity.setReboot(1);
+        entity.setReboot(2);
+        entity.setMacaddress(null);
+
+        final List<EntityChangeEvent> events = collector.flush();
+        assertEquals(1, events.size());
+        assertEquals(1, events.get(0).getFieldIds().length);
+    }
+
+    @Test
+    public void shouldAttachDeserializedEntities() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(root);
+        }
+        final Root copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (Root) in.readObject();
+        }
+
+        copy.getEventBus().subscribe(new Recorder("copy"));
+        copy.getEntityTest1().setReboot(3);
+
+        assertNotSame(root.getEventBus(), copy.getEventBus());
+        assertEquals(1, received.size());
+    }
+
+    private class Recorder implements IEntityEventListener {
+
+        private final String name;
+
+        Recorder(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void entityChanged(final DeviceEntity changed, final int fieldId, final Object oldValue, final Object newValue) {
+            received.add(name + ":" + changed.getClass().getSimpleName() + ":" + fieldId + ":" + oldValue + ":" + newValue);
+        }
+    }
+
+    static public class Root extends AbstractRootEntity {
+
+        private static final long serialVersionUID = 1L;
+        private EntityTest1 entityTest1;
+
+        @Override
+        public DeviceEntity[] getRoots() {
+            return new DeviceEntity[] {entityTest1};
+        }
+
+        public EntityTest1 getEntityTest1() {
+            return entityTest1;
+        }
+
+        public void setEntityTest1(final EntityTest1 entity) {
+            this.entityTest1 = entity;
+        }
+    }
+}
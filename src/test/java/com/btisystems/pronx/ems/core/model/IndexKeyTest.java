@@ -0,0 +1,55 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.snmp4j.smi.OID;
+
+
+public class IndexKeyTest {
+
+    @Test
+    public void shouldTakeIndexFromOidSuffix() {
+        final int[] oid = new OID("1.3.6.1.2.2.3.1.4.10.0.0.1").getValue();
+        final IndexKey key = new IndexKey(oid, 9, 4);
+
+        assertEquals(4, key.size());
+        assertEquals(10, key.get(0));
+        assertEquals("10.0.0.1", key.toString());
+    }
+
+    @Test
+    public void shouldEqualKeyParsedFromString() {
+        final IndexKey key = new IndexKey(new OID("1.2.3.4.5").getValue(), 2, 3);
+        final IndexKey parsed = IndexKey.parse("3.4.5");
+
+        assertEquals(key, parsed);
+        assertEquals(key.hashCode(), parsed.hashCode());
+        assertFalse(key.equals(IndexKey.parse("3.4")));
+        assertEquals(0, IndexKey.parse("").size());
+    }
+
+    @Test
+    public void shouldCompareInOidOrder() {
+        assertTrue(IndexKey.parse("1.2").compareTo(IndexKey.parse("1.10")) < 0);
+        assertTrue(IndexKey.parse("1.2").compareTo(IndexKey.parse("1.2.1")) < 0);
+        assertTrue(IndexKey.parse("4294967295").compareTo(IndexKey.parse("1")) > 0);
+        assertEquals(0, IndexKey.parse("7.8").compareTo(IndexKey.parse("7.8")));
+        assertEquals("4294967295", IndexKey.parse("4294967295").toString());
+    }
+}
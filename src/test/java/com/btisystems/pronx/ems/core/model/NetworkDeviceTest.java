@@ -13,11 +13,16 @@
  */
 package com.btisystems.pronx.ems.core.model;
 
+import static org.easymock.EasyMock.aryEq;
 import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -46,8 +51,7 @@ public class NetworkDeviceTest {
 
         final VariableBinding binding = createBinding("1.2.0", "Value");
 
-        expect(registry.getClass(new OID("1.2"))).andReturn(null);
-        expect(registry.getClass(new OID("1"))).andReturn(null);
+        expectMatch("1.2.0", null);
 
         replayAll();
 
@@ -63,10 +67,10 @@ public class NetworkDeviceTest {
         final VariableBinding binding1 = createBinding("1.2.0", "Value");
         final VariableBinding binding2 = createBinding("1.3.0", "Value");
 
-        expect(registry.getClass(new OID("1.2"))).andReturn(null);
-        expect(registry.getClass(new OID("1"))).andReturn((Class) SimpleEntity.class).times(3);
-        expect(registry.getClass(new OID("1.3"))).andReturn(null);
-        expect(registry.getClass(new OID("1"))).andReturn((Class) SimpleEntity.class).times(2);
+        final OidClassMatch simpleMatch = new OidClassMatch(new OID("1"), SimpleEntity.class);
+        expectMatch("1.2.0", simpleMatch);
+        expectMatch("1.3.0", simpleMatch);
+        expect(registry.getClass(new OID("1"))).andReturn((Class) SimpleEntity.class);
         expect(registry.getRootEntityClass()).andReturn((Class) _Device.class);
 
         replayAll();
@@ -79,6 +83,32 @@ public class NetworkDeviceTest {
         assertEquals(SimpleEntity.class, device.getRootObject().getRoots()[0].getClass());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldShareStringValuesThroughPool() {
+
+        final StringPool pool = new StringPool();
+        final NetworkDevice otherDevice = new NetworkDevice(registry, "other");
+        device.setStringPool(pool);
+        otherDevice.setStringPool(pool);
+
+        final OidClassMatch simpleMatch = new OidClassMatch(new OID("1"), SimpleEntity.class);
+        expectMatch("1.1.0", simpleMatch);
+        expectMatch("1.1.0", simpleMatch);
+        expect(registry.getClass(new OID("1"))).andReturn((Class) SimpleEntity.class).times(2);
+        expect(registry.getRootEntityClass()).andReturn((Class) _Device.class).times(2);
+
+        replayAll();
+
+        device.addVariable(createBinding("1.1.0", "Version"));
+        otherDevice.addVariable(createBinding("1.1.0", "Version"));
+
+        verifyAll();
+
+        assertSame(((SimpleEntity) device.getRootObject().getRoots()[0]).field1,
+                ((SimpleEntity) otherDevice.getRootObject().getRoots()[0]).field1);
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void shouldInstantiateTableEntity() {
@@ -87,24 +117,62 @@ public class NetworkDeviceTest {
         final VariableBinding binding2 = createBinding("1.2.3.2.9.9.9", "Value");
         final VariableBinding binding3 = createBinding("1.2.3.2.9.9.8", "Value");
 
-        expect(registry.getClass(new OID("1.2.3.1.9.9"))).andReturn(null);
-        expect(registry.getClass(new OID("1.2.3.1.9"))).andReturn(null);
-        expect(registry.getClass(new OID("1.2.3.1"))).andReturn(null);
-        expect(registry.getClass(new OID("1.2.3"))).andReturn((Class) IndexedEntity.class).times(3);
-
+        final OidClassMatch entryMatch = new OidClassMatch(new OID("1.2.3"), IndexedEntity.class);
+        expectMatch("1.2.3.1.9.9.9", entryMatch);
+        expectMatch("1.2.3.2.9.9.9", entryMatch);
+        expectMatch("1.2.3.2.9.9.8", entryMatch);
         expect(registry.getClass(new OID("1.2"))).andReturn((Class) TableEntity.class);
+        expect(registry.getRootEntityClass()).andReturn((Class) _Device.class);
+
+        replayAll();
 
+        device.addVariable(binding1);
+        device.addVariable(binding2);
+        device.addVariable(binding3);
+
+        verifyAll();
+
+        assertEquals(TableEntity.class, device.getRootObject().getRoots()[1].getClass());
+        assertEquals(2, ((TableEntity) device.getRootObject().getRoots()[1]).getEntries().size());
+        for (final IndexedEntity entry : ((TableEntity) device.getRootObject().getRoots()[1]).getEntries().values()) {
+            assertSame(device.getRootObject().getEventBus(), entry._getEventBus());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldIdentifyTableEntryByUnsignedIndex() {
+
+        final OidClassMatch entryMatch = new OidClassMatch(new OID("1.2.3"), IndexedEntity.class);
+        expectMatch("1.2.3.1.4294967295", entryMatch);
+        expect(registry.getClass(new OID("1.2"))).andReturn((Class) TableEntity.class);
         expect(registry.getRootEntityClass()).andReturn((Class) _Device.class);
 
-        expect(registry.getClass(new OID("1.2.3.2.9.9"))).andReturn(null);
-        expect(registry.getClass(new OID("1.2.3.2.9"))).andReturn(null);
-        expect(registry.getClass(new OID("1.2.3.2"))).andReturn(null);
-        expect(registry.getClass(new OID("1.2.3"))).andReturn((Class) IndexedEntity.class).times(3);
+        replayAll();
 
-        expect(registry.getClass(new OID("1.2.3.2.9.9"))).andReturn(null);
-        expect(registry.getClass(new OID("1.2.3.2.9"))).andReturn(null);
-        expect(registry.getClass(new OID("1.2.3.2"))).andReturn(null);
-        expect(registry.getClass(new OID("1.2.3"))).andReturn((Class) IndexedEntity.class).times(3);
+        device.addVariable(createBinding("1.2.3.1.4294967295", "Value"));
+
+        verifyAll();
+
+        final TableEntity table = (TableEntity) device.getRootObject().getRoots()[1];
+        assertNotNull(table.getEntry("4294967295"));
+        assertEquals(IndexKey.parse("4294967295").toString(), table.getEntries().keySet().iterator().next());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldInstantiateKeyedTableEntity() {
+
+        final VariableBinding binding1 = createBinding("1.4.3.1.9.9.9", "Value");
+        final VariableBinding binding2 = createBinding("1.4.3.2.9.9.9", "Value");
+        final VariableBinding binding3 = createBinding("1.4.3.2.9.9.8", "Value");
+
+        final OidClassMatch entryMatch = new OidClassMatch(new OID("1.4.3"), IndexedEntity.class);
+        expectMatch("1.4.3.1.9.9.9", entryMatch);
+        expectMatch("1.4.3.2.9.9.9", entryMatch);
+        expectMatch("1.4.3.2.9.9.8", entryMatch);
+        expect(registry.getClass(new OID("1.4"))).andReturn((Class) KeyedTableEntity.class);
+        expect(registry.getRootEntityClass()).andReturn((Class) _Device.class);
 
         replayAll();
 
@@ -114,8 +182,191 @@ public class NetworkDeviceTest {
 
         verifyAll();
 
-        assertEquals(TableEntity.class, device.getRootObject().getRoots()[1].getClass());
-        assertEquals(2, ((TableEntity) device.getRootObject().getRoots()[1]).getEntries().size());
+        final KeyedTableEntity table = (KeyedTableEntity) device.getRootObject().getRoots()[2];
+        assertEquals(2, table.getKeyedEntries().size());
+        assertNotNull(table.getEntry(IndexKey.parse("9.9.9")));
+        assertNotNull(table.getEntry("9.9.8"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldReuseEntriesAndRemoveUnseenEntriesOnRepoll() {
+
+        final OidClassMatch entryMatch = new OidClassMatch(new OID("1.2.3"), IndexedEntity.class);
+        final OidClassMatch keyedEntryMatch = new OidClassMatch(new OID("1.4.3"), IndexedEntity.class);
+        expectMatch("1.2.3.1.9", entryMatch);
+        expectMatch("1.2.3.1.8", entryMatch);
+        expectMatch("1.4.3.1.9", keyedEntryMatch);
+        expectMatch("1.4.3.1.8", keyedEntryMatch);
+        expectMatch("1.2.3.1.9", entryMatch);
+        expectMatch("1.4.3.1.8", keyedEntryMatch);
+        expect(registry.getClass(new OID("1.2"))).andReturn((Class) TableEntity.class);
+        expect(registry.getClass(new OID("1.4"))).andReturn((Class) KeyedTableEntity.class);
+        expect(registry.getRootEntityClass()).andReturn((Class) _Device.class);
+
+        replayAll();
+
+        device.startPoll();
+        device.addVariable(createBinding("1.2.3.1.9", "Value"));
+        device.addVariable(createBinding("1.2.3.1.8", "Value"));
+        device.addVariable(createBinding("1.4.3.1.9", "Value"));
+        device.addVariable(createBinding("1.4.3.1.8", "Value"));
+        assertEquals(0, device.finishPoll());
+
+        final TableEntity table = (TableEntity) device.getRootObject().getRoots()[1];
+        final KeyedTableEntity keyedTable = (KeyedTableEntity) device.getRootObject().getRoots()[2];
+        final IndexedEntity entry = table.getEntry("9");
+        final IndexedEntity keyedEntry = keyedTable.getEntry(IndexKey.parse("8"));
+
+        device.startPoll();
+        device.addVariable(createBinding("1.2.3.1.9", "Value"));
+        device.addVariable(createBinding("1.4.3.1.8", "Value"));
+        assertEquals(2, device.finishPoll());
+
+        verifyAll();
+
+        assertEquals(1, table.getEntries().size());
+        assertSame(entry, table.getEntry("9"));
+        assertEquals(1, keyedTable.getKeyedEntries().size());
+        assertSame(keyedEntry, keyedTable.getEntry(IndexKey.parse("8")));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldRemoveUnseenEntriesOfRootPolledByAnotherDevice() {
+
+        final OidClassMatch entryMatch = new OidClassMatch(new OID("1.2.3"), IndexedEntity.class);
+        expectMatch("1.2.3.1.9", entryMatch);
+        expectMatch("1.2.3.1.8", entryMatch);
+        expectMatch("1.2.3.1.9", entryMatch);
+        expect(registry.getClass(new OID("1.2"))).andReturn((Class) TableEntity.class);
+        expect(registry.getRootEntityClass()).andReturn((Class) _Device.class);
+        final Map<Class<? extends DeviceEntity>, OID> classToOidMap = new HashMap<Class<? extends DeviceEntity>, OID>();
+        classToOidMap.put(TableEntity.class, new OID("1.2"));
+        expect(registry.getClassToOidMap()).andReturn(classToOidMap);
+
+        replayAll();
+
+        device.startPoll();
+        device.addVariable(createBinding("1.2.3.1.9", "Value"));
+        device.addVariable(createBinding("1.2.3.1.8", "Value"));
+        assertEquals(0, device.finishPoll());
+
+        // The entries of the adopted root were seen by the first poll of the previous device.
+        final NetworkDevice nextDevice = new NetworkDevice(registry, device.getRootObject());
+        nextDevice.startPoll();
+        nextDevice.addVariable(createBinding("1.2.3.1.9", "Value"));
+        assertEquals(1, nextDevice.finishPoll());
+
+        verifyAll();
+
+        final TableEntity table = (TableEntity) nextDevice.getRootObject().getRoots()[1];
+        assertEquals(1, table.getEntries().size());
+        assertNotNull(table.getEntry("9"));
+    }
+
+    @Test
+    public void shouldUpdateExistingRootEntity() {
+
+        final _Device root = new _Device();
+        root.setDeviceAddress("existing");
+        final TableEntity table = new TableEntity();
+        final IndexedEntity entry = new IndexedEntity();
+        table.setEntry("9", entry);
+        table.setEntry("8", new IndexedEntity());
+        root.setObject(table);
+        final Map<Class<? extends DeviceEntity>, OID> classToOidMap = new HashMap<Class<? extends DeviceEntity>, OID>();
+        classToOidMap.put(TableEntity.class, new OID("1.2"));
+        expect(registry.getClassToOidMap()).andReturn(classToOidMap);
+
+        expectMatch("1.2.3.1.9", new OidClassMatch(new OID("1.2.3"), IndexedEntity.class));
+
+        replayAll();
+
+        device = new NetworkDevice(registry, root);
+        device.startPoll();
+        device.addVariable(createBinding("1.2.3.1.9", "Value"));
+        assertEquals(1, device.finishPoll());
+
+        verifyAll();
+
+        assertSame(root, device.getRootObject());
+        assertSame(entry, table.getEntry("9"));
+        assertEquals(1, table.getEntries().size());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldPopulateColumnarTable() {
+
+        final Map<Class<? extends DeviceEntity>, OID> classToOidMap = new HashMap<Class<? extends DeviceEntity>, OID>();
+        classToOidMap.put(IndexedEntity.class, new OID("1.2.3"));
+        final DeviceEntityDescription description = new DeviceEntityDescription(new OID("1.2.3"));
+        description.addField(new DeviceEntityDescription.FieldDescription(1, "name", DeviceEntityDescription.FieldType.STRING, -1));
+        expect(registry.getClassToOidMap()).andReturn(classToOidMap);
+        expect(registry.getEntityDescription(new OID("1.2.3"))).andReturn(description);
+
+        final OidClassMatch entryMatch = new OidClassMatch(new OID("1.2.3"), IndexedEntity.class);
+        expectMatch("1.2.3.1.9.9.9", entryMatch);
+        expectMatch("1.2.3.1.9.9.8", entryMatch);
+
+        replayAll();
+
+        final ColumnarTable table = device.enableColumnarStorage(IndexedEntity.class);
+        device.addVariable(createBinding("1.2.3.1.9.9.9", "Value"));
+        device.addVariable(createBinding("1.2.3.1.9.9.8", "Other"));
+
+        verifyAll();
+
+        assertSame(table, device.getColumnarTable(IndexedEntity.class));
+        assertEquals(2, table.size());
+        assertEquals("Other", table.getRow(IndexKey.parse("9.9.8")).getString("name"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldRemoveUnseenRowsOfColumnarTable() {
+
+        final Map<Class<? extends DeviceEntity>, OID> classToOidMap = new HashMap<Class<? extends DeviceEntity>, OID>();
+        classToOidMap.put(IndexedEntity.class, new OID("1.2.3"));
+        final DeviceEntityDescription description = new DeviceEntityDescription(new OID("1.2.3"));
+        description.addField(new DeviceEntityDescription.FieldDescription(1, "name", DeviceEntityDescription.FieldType.STRING, -1));
+        expect(registry.getClassToOidMap()).andReturn(classToOidMap);
+        expect(registry.getEntityDescription(new OID("1.2.3"))).andReturn(description);
+
+        final OidClassMatch entryMatch = new OidClassMatch(new OID("1.2.3"), IndexedEntity.class);
+        expectMatch("1.2.3.1.9", entryMatch);
+        expectMatch("1.2.3.1.8", entryMatch);
+        expectMatch("1.2.3.1.7", entryMatch);
+        expectMatch("1.2.3.1.9", entryMatch);
+        expectMatch("1.2.3.1.7", entryMatch);
+
+        replayAll();
+
+        final ColumnarTable table = device.enableColumnarStorage(IndexedEntity.class);
+        device.startPoll();
+        device.addVariable(createBinding("1.2.3.1.9", "Nine"));
+        device.addVariable(createBinding("1.2.3.1.8", "Eight"));
+        device.addVariable(createBinding("1.2.3.1.7", "Seven"));
+        assertEquals(0, device.finishPoll());
+
+        device.startPoll();
+        device.addVariable(createBinding("1.2.3.1.9", "Nine"));
+        device.addVariable(createBinding("1.2.3.1.7", "Seven"));
+        assertEquals(1, device.finishPoll());
+
+        verifyAll();
+
+        assertEquals(2, table.size());
+        assertNull(table.getRow(IndexKey.parse("8")));
+        assertEquals("Nine", table.getRows().get(0).getString("name"));
+        assertEquals("Seven", table.getRows().get(1).getString("name"));
+        assertEquals("Seven", table.getRow(IndexKey.parse("7")).getString("name"));
+    }
+
+    private void expectMatch(final String oid, final OidClassMatch match) {
+        final int[] rawOid = new OID(oid).getValue();
+        expect(registry.getLongestPrefixMatch(aryEq(rawOid), eq(rawOid.length - 1))).andReturn(match);
     }
 
     private VariableBinding createBinding(final String string, final String string2) {
@@ -136,10 +387,11 @@ public class NetworkDeviceTest {
         private static final long serialVersionUID = 1L;
         private SimpleEntity simpleEntity;
         private TableEntity tableEntity;
+        private KeyedTableEntity keyedTableEntity;
 
         @Override
         public DeviceEntity[] getRoots() {
-            return new DeviceEntity[] {simpleEntity, tableEntity};
+            return new DeviceEntity[] {simpleEntity, tableEntity, keyedTableEntity};
         }
 
         public void setSimpleEntity(final SimpleEntity entity) {
@@ -149,6 +401,10 @@ public class NetworkDeviceTest {
         public void setTableEntity(final TableEntity entity) {
             this.tableEntity = entity;
         }
+
+        public void setKeyedTableEntity(final KeyedTableEntity entity) {
+            this.keyedTableEntity = entity;
+        }
     }
 
     static public class SimpleEntity extends DeviceEntity implements IVariableBindingSetter {
@@ -236,5 +492,56 @@ public class NetworkDeviceTest {
             return null;
         }
     }
-}
 
+    static public class KeyedTableEntity extends DeviceEntity implements IVariableBindingSetter, IKeyedTableAccess<IndexedEntity> {
+        private static final long serialVersionUID = 1L;
+        @Override
+        public DeviceEntityDescription get_Description() {
+            return new DeviceEntityDescription(new OID("4"));
+        }
+
+        @Override
+        public void set(final VariableBinding binding) {
+        }
+
+        private final Map<IndexKey, IndexedEntity> entries = new HashMap<IndexKey, IndexedEntity>();
+        @Override
+        public Map<IndexKey, IndexedEntity> getKeyedEntries() {
+            return entries;
+        }
+
+        @Override
+        public IndexedEntity getEntry(final IndexKey index) {
+            return entries.get(index);
+        }
+
+        @Override
+        public void setEntry(final IndexKey index, final IndexedEntity entry) {
+            entries.put(index, entry);
+        }
+
+        @Override
+        public Map<String, IndexedEntity> getEntries() {
+            final Map<String, IndexedEntity> result = new HashMap<String, IndexedEntity>();
+            for (final Map.Entry<IndexKey, IndexedEntity> entry : entries.entrySet()) {
+                result.put(entry.getKey().toString(), entry.getValue());
+            }
+            return result;
+        }
+
+        @Override
+        public IndexedEntity getEntry(final String index) {
+            return entries.get(IndexKey.parse(index));
+        }
+
+        @Override
+        public void setEntry(final String index, final IndexedEntity entry) {
+            entries.put(IndexKey.parse(index), entry);
+        }
+
+        @Override
+        public IndexedEntity createEntry(final String key) {
+            return null;
+        }
+    }
+}
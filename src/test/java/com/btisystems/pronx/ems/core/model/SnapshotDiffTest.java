@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import com.btisystems.pronx.ems.core.model.EntityEventBusTest.Root;
+import com.btisystems.pronx.ems.core.model.testpackage1.sub.EntityTest1;
+import org.junit.Test;
+import org.snmp4j.smi.OID;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotDiffTest {
+
+    @Test
+    public void shouldFindNoDifferenceBetweenEqualEntities() {
+        assertTrue(SnapshotDiff.compare(createEntity(1, "a"), createEntity(1, "a")).isEmpty());
+    }
+
+    @Test
+    public void shouldListChangedFields() {
+        final EntityTest1 before = createEntity(1, "a");
+        final EntityTest1 after = createEntity(2, "b");
+        after.setQinqEtherType(5);
+
+        final List<EntityDifference> differences = SnapshotDiff.compare(before, after);
+
+        assertEquals(1, differences.size());
+        final EntityDifference difference = differences.get(0);
+        assertEquals(EntityDifference.Kind.CHANGED, difference.getKind());
+        assertSame(before, difference.getBefore()._getEntity());
+        assertSame(after, difference.getAfter()._getEntity());
+        assertNull(difference.getIndex());
+        // macaddress, configfile and qinqEtherType
+        assertArrayEquals(new int[] {1, 2, 12}, difference.getFieldIds());
+    }
+
+    @Test
+    public void shouldCompareRootsByClass() {
+        final Root before = new Root();
+        final Root after = new Root();
+        after.setObject(createEntity(1, "a"));
+
+        List<EntityDifference> differences = SnapshotDiff.compare(before, after);
+        assertEquals(1, differences.size());
+        assertEquals(EntityDifference.Kind.ADDED, differences.get(0).getKind());
+
+        differences = SnapshotDiff.compare(after, before);
+        assertEquals(1, differences.size());
+        assertEquals(EntityDifference.Kind.REMOVED, differences.get(0).getKind());
+    }
+
+    @Test
+    public void shouldListAddedRemovedAndChangedRows() {
+        final Table before = new Table();
+        before.setEntry("1", createEntity(1, "a"));
+        before.setEntry("2", createEntity(2, "b"));
+        before.setEntry("3", createEntity(3, "c"));
+        final Table after = new Table();
+        after.setEntry("1", before.getEntry("1"));
+        after.setEntry("2", createEntity(2, "changed"));
+        after.setEntry("4", createEntity(4, "d"));
+
+        final Map<String, EntityDifference> differences = new HashMap<>();
+        for (final EntityDifference difference : SnapshotDiff.compare(before, after)) {
+            differences.put(difference.getIndex(), difference);
+        }
+
+        assertEquals(3, differences.size());
+        assertEquals(EntityDifference.Kind.CHANGED, differences.get("2").getKind());
+        assertArrayEquals(new int[] {1}, differences.get("2").getFieldIds());
+        assertEquals(EntityDifference.Kind.REMOVED, differences.get("3").getKind());
+        assertSame(before.getEntry("3"), differences.get("3").getEntity()._getEntity());
+        assertEquals(EntityDifference.Kind.ADDED, differences.get("4").getKind());
+        assertSame(after.getEntry("4"), differences.get("4").getEntity()._getEntity());
+    }
+
+    @Test
+    public void shouldCompareSnapshots() {
+        final SnapshotPublisher publisher = new SnapshotPublisher();
+        final Root root = new Root();
+        final EntityTest1 entity = createEntity(1, "a");
+        root.setObject(entity);
+        final DeviceSnapshot first = publisher.publish(root);
+        entity.setReboot(1);
+        final DeviceSnapshot second = publisher.publish(root);
+
+        assertTrue(SnapshotDiff.compare(first, first).isEmpty());
+        final List<EntityDifference> differences = SnapshotDiff.compare(first, second);
+        assertEquals(1, differences.size());
+        assertArrayEquals(new int[] {6}, differences.get(0).getFieldIds());
+    }
+
+    private static EntityTest1 createEntity(final int configFile, final String macAddress) {
+        final EntityTest1 entity = new EntityTest1();
+        entity.setConfigfile(configFile);
+        entity.setMacaddress(macAddress);
+        return entity;
+    }
+
+    static public class Table extends DeviceEntity implements ITableAccess<EntityTest1> {
+        private static final long serialVersionUID = 1L;
+        private final Map<String, EntityTest1> entries = new HashMap<>();
+
+        @Override
+        public DeviceEntityDescription get_Description() {
+            final DeviceEntityDescription description = new DeviceEntityDescription(new OID("1.3.6.1.2.1.2"));
+            description.addField(new DeviceEntityDescription.FieldDescription(1, "entry", DeviceEntityDescription.FieldType.TABLE, -1));
+            return description;
+        }
+
+        @Override
+        public EntityTest1 getEntry(final String index) {
+            return entries.get(index);
+        }
+
+        @Override
+        public void setEntry(final String index, final EntityTest1 entry) {
+            entries.put(index, entry);
+        }
+
+        @Override
+        public Map<String, EntityTest1> getEntries() {
+            return entries;
+        }
+
+        @Override
+        public EntityTest1 createEntry(final String index) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import com.btisystems.pronx.ems.core.model.EntityEventBusTest.Root;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest.IndexedEntity;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest.KeyedTableEntity;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest.TableEntity;
+import com.btisystems.pronx.ems.core.model.NetworkDeviceTest._Device;
+import com.btisystems.pronx.ems.core.model.testpackage1.sub.EntityTest1;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class SnapshotPublisherTest {
+
+    private SnapshotPublisher publisher;
+    private Root root;
+    private EntityTest1 entity;
+
+    @Before
+    public void setUp() {
+        publisher = new SnapshotPublisher();
+        root = new Root();
+        root.setDeviceAddress("address");
+        entity = new EntityTest1();
+        entity.setMacaddress("mac");
+        entity.setConfigfile(7);
+        root.setObject(entity);
+    }
+
+    @Test
+    public void shouldPublishCopy() {
+        assertNull(publisher.getSnapshot());
+
+        final DeviceSnapshot snapshot = publisher.publish(root);
+
+        assertSame(snapshot, publisher.getSnapshot());
+        assertEquals(1, snapshot.getGeneration());
+        assertEquals("address", snapshot.getDeviceAddress());
+        assertNotSame(root, snapshot.getRootEntity());
+        final EntityView view = snapshot.getRoot(EntityTest1.class);
+        assertEquals(EntityTest1.class, view.getEntityClass());
+        assertNotSame(entity, view._getEntity());
+        assertEquals(entity, view._getEntity());
+        assertEquals(7, view.getInt("configfile"));
+        assertEquals("mac", view.getString(1));
+        assertEquals(Collections.singletonList(view), snapshot.getRoots());
+    }
+
+    @Test
+    public void shouldNotAffectSnapshotWhenLiveEntityChanges() {
+        final DeviceSnapshot snapshot = publisher.publish(root);
+
+        entity.setConfigfile(8);
+
+        assertEquals(7, snapshot.getRoot(EntityTest1.class).getInt("configfile"));
+        assertEquals(8, publisher.publish(root).getRoot(EntityTest1.class).getInt("configfile"));
+    }
+
+    @Test
+    public void shouldShareUnchangedEntities() {
+        final DeviceSnapshot first = publisher.publish(root);
+
+        // Setting the same value is not a change.
+        entity.setConfigfile(7);
+        final DeviceSnapshot second = publisher.publish(root);
+        assertEquals(2, second.getGeneration());
+        assertSame(first.getRootEntity(), second.getRootEntity());
+
+        entity.setConfigfile(8);
+        final DeviceSnapshot third = publisher.publish(root);
+        assertNotSame(second.getRootEntity(), third.getRootEntity());
+        assertNotEquals(second.getRoot(EntityTest1.class), third.getRoot(EntityTest1.class));
+    }
+
+    @Test
+    public void shouldShareUnchangedTableEntries() {
+        final _Device device = new _Device();
+        final TableEntity table = new TableEntity();
+        final IndexedEntity entry1 = new IndexedEntity();
+        table.setEntry("1", entry1);
+        device.setObject(table);
+        final KeyedTableEntity keyedTable = new KeyedTableEntity();
+        keyedTable.setEntry(IndexKey.parse("1.2"), new IndexedEntity());
+        device.setObject(keyedTable);
+
+        final DeviceSnapshot first = publisher.publish(device);
+        final EntityView firstTable = first.getRoot(TableEntity.class);
+        assertNotSame(table, firstTable._getEntity());
+        assertEquals(1, firstTable.getEntryCount());
+        assertNotSame(entry1, firstTable.getEntry("1")._getEntity());
+        assertEquals(Collections.singleton(IndexKey.parse("1.2")), first.getRoot(KeyedTableEntity.class).getEntryKeys());
+
+        table.setEntry("2", new IndexedEntity());
+        final DeviceSnapshot second = publisher.publish(device);
+        final EntityView secondTable = second.getRoot(TableEntity.class);
+        assertNotEquals(firstTable, secondTable);
+        assertEquals(new HashSet<>(Arrays.asList("1", "2")), secondTable.getEntryIndexes());
+        assertEquals(1, firstTable.getEntryCount());
+        assertEquals(firstTable.getEntry("1"), secondTable.getEntry("1"));
+        assertEquals(first.getRoot(KeyedTableEntity.class), second.getRoot(KeyedTableEntity.class));
+    }
+
+    @Test
+    public void shouldNotChangeTablesThroughViews() {
+        final _Device device = new _Device();
+        final TableEntity table = new TableEntity();
+        table.setEntry("1", new IndexedEntity());
+        device.setObject(table);
+
+        final EntityView tableView = publisher.publish(device).getRoot(TableEntity.class);
+        try {
+            tableView.getEntryIndexes().remove("1");
+            fail("Should not reach");
+        } catch (final UnsupportedOperationException e) {
+            // Expected
+        }
+        assertEquals(1, tableView.getEntryCount());
+    }
+}
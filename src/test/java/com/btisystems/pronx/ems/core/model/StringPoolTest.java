@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.model;
+
+import org.junit.Test;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.VariableBinding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StringPoolTest {
+
+    @Test
+    public void shouldShareEqualStrings() {
+        final StringPool pool = new StringPool();
+        final String first = new String("ifDescr");
+        final String second = new String("ifDescr");
+
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(second));
+        assertNull(pool.intern(null));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    public void shouldNotPoolLongStrings() {
+        final StringPool pool = new StringPool(64, 3);
+        final String first = new String("long");
+
+        pool.intern(first);
+        assertNotSame(first, pool.intern(new String("long")));
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedStrings() {
+        final StringPool pool = new StringPool(16, 100);
+        for (int i = 0; i < 1000; i++) {
+            pool.intern("value" + i);
+        }
+        assertTrue(pool.size() <= 16);
+    }
+
+    @Test
+    public void shouldPoolOctetStringBindings() {
+        final StringPool pool = new StringPool();
+        final VariableBinding first = pool.pool(new VariableBinding(new OID("1.2.3"), new OctetString("version")));
+        final VariableBinding second = pool.pool(new VariableBinding(new OID("1.2.4"), new OctetString("version")));
+
+        assertEquals(new OID("1.2.3"), first.getOid());
+        assertEquals(new OctetString("version"), first.getVariable());
+        assertSame(first.getVariable().toString(), second.getVariable().toString());
+    }
+
+    @Test
+    public void shouldNotChangeOtherBindings() {
+        final VariableBinding binding = new VariableBinding(new OID("1.2.3"), new Integer32(5));
+        assertSame(binding, new StringPool().pool(binding));
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.snmp4j.PDU;
+import org.snmp4j.Session;
+import org.snmp4j.Target;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.event.ResponseListener;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.smi.IpAddress;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.isNull;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.same;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncSnmpSessionTest {
+
+    private static final String NE_IP = "9.8.7.6";
+    private static final String DUMMY_OID = "1.3.6";
+
+    private ISnmpConfiguration configuration;
+    private Session snmpInterface;
+    private Target target;
+    private IVariableBindingHandler variableHandler;
+    private ExecutorService executorService;
+    private AsyncSnmpSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        configuration = createMock(ISnmpConfiguration.class);
+        snmpInterface = createMock(Session.class);
+        target = createMock(Target.class);
+        variableHandler = createMock(IVariableBindingHandler.class);
+        executorService = Executors.newCachedThreadPool();
+
+        session = new AsyncSnmpSession(configuration, snmpInterface, target, new IpAddress(NE_IP));
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executorService.shutdown();
+        executorService.awaitTermination(15, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldGetVariable() throws Exception {
+        expect(configuration.createPDU(PDU.GET)).andReturn(new PDU());
+        expectSendAndRespond(createPdu(DUMMY_OID, "Value"));
+        replayAll();
+
+        final CompletableFuture<Variable> future = session.getVariable(new OID(DUMMY_OID));
+        assertEquals("Value", future.get(15, TimeUnit.SECONDS).toString());
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldIdentifyDevice() throws Exception {
+        expect(configuration.createPDU(PDU.GET)).andReturn(new PDU());
+        expectSendAndRespond(createPdu(SnmpSession.SYSTEM_OBJECT_ID_OID, "1.2.555.4"));
+        replayAll();
+
+        assertEquals("1.2.555.4", session.identifyDevice().get(15, TimeUnit.SECONDS));
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldFailOnTimeout() throws Exception {
+        expect(configuration.createPDU(PDU.GET)).andReturn(new PDU());
+        expectSendAndRespond(null);
+        replayAll();
+
+        assertFailsWith(session.getVariable(new OID(DUMMY_OID)), "Timed out");
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldFailIfSendFails() throws Exception {
+        expect(configuration.createPDU(PDU.GET)).andReturn(new PDU());
+        snmpInterface.send(isA(PDU.class), same(target), isNull(), isA(ResponseListener.class));
+        expectLastCall().andThrow(new IOException("Something wrong"));
+        replayAll();
+
+        assertFailsWith(session.getVariable(new OID(DUMMY_OID)), "Something wrong");
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldSetVariables() throws Exception {
+        expect(configuration.createPDU(PDU.SET)).andReturn(new PDU());
+        expectSendAndRespond(new PDU());
+        replayAll();
+
+        session.setVariables(new VariableBinding[]{
+                new VariableBinding(new OID(DUMMY_OID), new OctetString("Value"))}).get(15, TimeUnit.SECONDS);
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldReportErrorStatus() throws Exception {
+        final PDU errorPdu = createPdu(DUMMY_OID, "Bad Value");
+        errorPdu.setErrorStatus(SnmpConstants.SNMP_ERROR_AUTHORIZATION_ERROR);
+        errorPdu.setErrorIndex(1);
+
+        expect(configuration.createPDU(PDU.SET)).andReturn(new PDU());
+        expectSendAndRespond(errorPdu);
+        replayAll();
+
+        assertFailsWith(session.setVariables(new VariableBinding[]{
+                new VariableBinding(new OID(DUMMY_OID), new OctetString("Value"))}), "Authorization error");
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldWalkDevice() throws Exception {
+        expect(configuration.createPDU(PDU.GETBULK)).andReturn(new PDU());
+        expect(target.getVersion()).andReturn(SnmpConstants.version2c);
+        expect(configuration.getWalkTimeout()).andReturn(900000).anyTimes();
+        expect(configuration.getMaxRepetitions()).andReturn(10);
+
+        final PDU response = createPdu("1.3.6.1", "Value");
+        response.add(new VariableBinding(new OID("1.3.7"), new OctetString("Too Far")));
+        expectSendAndRespond(response);
+        expect(variableHandler.addVariable(new VariableBinding(new OID("1.3.6.1"), new OctetString("Value")))).andReturn(true);
+        replayAll();
+
+        final WalkResponse walkResponse = session.walkDevice(variableHandler,
+                Collections.singletonList(new OID(DUMMY_OID))).get(15, TimeUnit.SECONDS);
+        assertTrue(walkResponse.isSuccess());
+        assertEquals(1, walkResponse.getRequestCount());
+        assertEquals(1, walkResponse.getObjectCount());
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldTimeoutWalkDevice() throws Exception {
+        expect(configuration.createPDU(PDU.GETBULK)).andReturn(new PDU());
+        expect(target.getVersion()).andReturn(SnmpConstants.version2c);
+        expect(configuration.getWalkTimeout()).andReturn(1).anyTimes();
+        expect(configuration.getMaxRepetitions()).andReturn(10);
+        snmpInterface.send(isA(PDU.class), same(target), isNull(), isA(ResponseListener.class));
+        expectLastCall();
+        replayAll();
+
+        final WalkResponse walkResponse = session.walkDevice(variableHandler,
+                Collections.singletonList(new OID(DUMMY_OID))).get(15, TimeUnit.SECONDS);
+        assertFalse(walkResponse.isSuccess());
+        assertTrue(walkResponse.toString().contains("Walk timed out"));
+
+        verifyAll();
+    }
+
+    private void expectSendAndRespond(final PDU responsePdu) throws IOException {
+        snmpInterface.send(isA(PDU.class), same(target), isNull(), isA(ResponseListener.class));
+        expectLastCall().andAnswer(new IAnswer<Void>() {
+            @Override
+            public Void answer() throws Throwable {
+                final PDU request = (PDU) EasyMock.getCurrentArguments()[0];
+                final ResponseListener listener = (ResponseListener) EasyMock.getCurrentArguments()[3];
+                executorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onResponse(new ResponseEvent(this, null, request, responsePdu, null));
+                    }
+                });
+                return null;
+            }
+        });
+        snmpInterface.cancel(isA(PDU.class), isA(ResponseListener.class));
+        expectLastCall();
+    }
+
+    private static void assertFailsWith(final CompletableFuture<?> future, final String message) throws Exception {
+        try {
+            future.get(15, TimeUnit.SECONDS);
+            fail("Should not reach");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof SnmpIoException);
+            assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains(message));
+        }
+    }
+
+    private static PDU createPdu(final String oid, final String value) {
+        final PDU pdu = new PDU();
+        pdu.add(new VariableBinding(new OID(oid), new OctetString(value)));
+        return pdu;
+    }
+
+    private void replayAll() {
+        replay(configuration, snmpInterface, target, variableHandler);
+    }
+
+    private void verifyAll() {
+        verify(configuration, snmpInterface, target, variableHandler);
+    }
+}
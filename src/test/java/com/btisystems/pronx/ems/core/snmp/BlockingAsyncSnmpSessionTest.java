@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.Variable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BlockingAsyncSnmpSessionTest {
+
+    private static final OID SYS_UP_TIME = new OID("1.3.6.1.2.1.1.3.0");
+
+    private ISnmpSession session;
+    private ISnmpConfiguration configuration;
+    private ISnmpSessionFactory factory;
+
+    @Before
+    public void setUp() {
+        session = createMock(ISnmpSession.class);
+        configuration = createMock(ISnmpConfiguration.class);
+        factory = new ISnmpSessionFactory() {
+            @Override
+            public ISnmpSession createSession(final ISnmpConfiguration configuration, final String ipAddress) {
+                return session;
+            }
+
+            @Override
+            public ISnmpSession createSession(final String ipAddress, final String community) {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public ISnmpSession createSession(final String ipAddress, final String community, final String factoryName,
+                                              final ISnmpConfigurationFactory.AccessType accessType) {
+                throw new IllegalStateException();
+            }
+        };
+    }
+
+    @Test
+    public void shouldCompleteWithValueFromSynchronousSession() throws Exception {
+        final List<OID> oids = Collections.singletonList(SYS_UP_TIME);
+        final Variable value = new Integer32(42);
+        expect(session.getVariables(oids)).andReturn(Collections.<OID, Variable>singletonMap(SYS_UP_TIME, value));
+        replay(session);
+
+        final CompletableFuture<Variable> future = factory.createAsyncSession(configuration, "localhost").getVariable(SYS_UP_TIME);
+
+        verify(session);
+        assertTrue(future.isDone());
+        assertSame(value, future.get());
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenVariableIsMissing() throws Exception {
+        expect(session.getVariables(Collections.singletonList(SYS_UP_TIME))).andReturn(Collections.<OID, Variable>emptyMap());
+        expect(session.getAddress()).andReturn(InetAddress.getLoopbackAddress());
+        replay(session);
+
+        try {
+            factory.createAsyncSession(configuration, "localhost").getVariable(SYS_UP_TIME).get();
+            fail("Missing variable delivered");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof SnmpIoException);
+        }
+        verify(session);
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenWalkFails() throws Exception {
+        final IOException failure = new IOException("unreachable");
+        expect(session.walkDevice(null, Collections.<OID>emptyList())).andThrow(failure);
+        replay(session);
+
+        try {
+            factory.createAsyncSession(configuration, "localhost").walkDevice(null, Collections.<OID>emptyList()).get();
+            fail("Failed walk delivered");
+        } catch (final ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        verify(session);
+    }
+
+    @Test
+    public void shouldCloseSynchronousSession() throws IOException {
+        session.close();
+        replay(session);
+
+        factory.createAsyncSession(configuration, "localhost").close();
+
+        verify(session);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription;
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldDescription;
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription.FieldType;
+import org.junit.Test;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.VariableBinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnProjectionTest {
+
+    private final DeviceEntityDescription ifEntry = newDescription("1.3.6.1.2.1.2.2.1", "ifIndex", "ifDescr", "ifType", "ifMtu");
+    private final DeviceEntityDescription ifXEntry = newDescription("1.3.6.1.2.1.31.1.1.1", "ifName", "ifInMulticastPkts");
+
+    @Test
+    public void shouldSelectColumnsByIdAndName() {
+        final ColumnProjection projection = new ColumnProjection()
+                .withFieldIds(ifEntry, 4, 1)
+                .withFieldNames(ifEntry, "ifDescr", "ifIndex");
+
+        assertEquals(Arrays.asList(1, 2, 4), getIds(projection, ifEntry));
+    }
+
+    @Test
+    public void shouldSelectAllColumnsOfUnprojectedTable() {
+        final ColumnProjection projection = new ColumnProjection().withFieldNames(ifEntry, "ifMtu");
+
+        assertSame(ifXEntry.getFields(), projection.getFields(ifXEntry));
+        assertEquals(Arrays.asList(4), getIds(projection, ifEntry));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownFieldId() {
+        new ColumnProjection().withFieldIds(ifEntry, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownFieldName() {
+        new ColumnProjection().withFieldNames(ifXEntry, "ifDescr");
+    }
+
+    @Test
+    public void shouldPassOnlySelectedColumnsThroughFilter() {
+        final ColumnProjection projection = new ColumnProjection().withFieldNames(ifEntry, "ifDescr");
+        final List<OID> received = new ArrayList<OID>();
+        final IVariableBindingHandler filter = projection.filter(Arrays.asList(ifEntry, ifXEntry),
+                new IVariableBindingHandler() {
+                    @Override
+                    public boolean addVariable(final VariableBinding binding) {
+                        received.add(binding.getOid());
+                        return true;
+                    }
+                });
+
+        for (final String oid : new String[] {"1.3.6.1.2.1.2.2.1.1.7", "1.3.6.1.2.1.2.2.1.2.7",
+                "1.3.6.1.2.1.31.1.1.1.1.7", "1.3.6.1.2.1.1.5.0"}) {
+            assertTrue(filter.addVariable(new VariableBinding(new OID(oid), new OctetString("x"))));
+        }
+
+        assertEquals(Arrays.asList(new OID("1.3.6.1.2.1.2.2.1.2.7"), new OID("1.3.6.1.2.1.31.1.1.1.1.7"),
+                new OID("1.3.6.1.2.1.1.5.0")), received);
+    }
+
+    private static List<Integer> getIds(final ColumnProjection projection, final DeviceEntityDescription description) {
+        final List<Integer> ids = new ArrayList<Integer>();
+        for (final FieldDescription field : projection.getFields(description)) {
+            ids.add(field.getId());
+        }
+        return ids;
+    }
+
+    // Describe a table with a string column for each name, numbered from 1.
+    static DeviceEntityDescription newDescription(final String oid, final String... names) {
+        final DeviceEntityDescription description = new DeviceEntityDescription(new OID(oid));
+        for (int i = 0; i < names.length; i++) {
+            description.addField(new FieldDescription(i + 1, names[i], FieldType.STRING, 10));
+        }
+        return description;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class MaxRepetitionsControllerTest {
+
+    private static final long SLOW = 500;
+
+    @Test
+    public void shouldStartWithinBounds() {
+        assertEquals(10, new MaxRepetitionsController(10, 1, 100, SLOW).getMaxRepetitions());
+        assertEquals(5, new MaxRepetitionsController(1, 5, 100, SLOW).getMaxRepetitions());
+        assertEquals(20, new MaxRepetitionsController(50, 1, 20, SLOW).getMaxRepetitions());
+    }
+
+    @Test
+    public void shouldGrowOnFastFullResponses() {
+        final MaxRepetitionsController controller = new MaxRepetitionsController(10, 1, 30, SLOW);
+        controller.onResponse(10, 10, 10);
+        assertEquals(12, controller.getMaxRepetitions());
+        for (int i = 0; i < 10; i++) {
+            controller.onResponse(controller.getMaxRepetitions(), controller.getMaxRepetitions(), 10);
+        }
+        assertEquals(30, controller.getMaxRepetitions());
+    }
+
+    @Test
+    public void shouldNotGrowOnStaleRequests() {
+        final MaxRepetitionsController controller = new MaxRepetitionsController(10, 1, 100, SLOW);
+        controller.onResponse(5, 5, 10);
+        assertEquals(10, controller.getMaxRepetitions());
+    }
+
+    @Test
+    public void shouldFollowTruncatedResponses() {
+        final MaxRepetitionsController controller = new MaxRepetitionsController(40, 1, 100, SLOW);
+        controller.onResponse(40, 25, 10);
+        assertEquals(25, controller.getMaxRepetitions());
+    }
+
+    @Test
+    public void shouldHalveOnSlowResponsesTimeoutsAndTooBig() {
+        final MaxRepetitionsController controller = new MaxRepetitionsController(80, 3, 100, SLOW);
+        controller.onResponse(80, 80, SLOW + 1);
+        assertEquals(40, controller.getMaxRepetitions());
+        controller.onLastResponse(SLOW + 1);
+        assertEquals(20, controller.getMaxRepetitions());
+        controller.onLastResponse(SLOW);
+        assertEquals(20, controller.getMaxRepetitions());
+        controller.onTimeout();
+        assertEquals(10, controller.getMaxRepetitions());
+        controller.onTooBig();
+        assertEquals(5, controller.getMaxRepetitions());
+        controller.onTooBig();
+        assertEquals(3, controller.getMaxRepetitions());
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.easymock.IExpectationSetters;
+import org.junit.Before;
+import org.junit.Test;
+import org.snmp4j.PDU;
+import org.snmp4j.Session;
+import org.snmp4j.Target;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.event.ResponseListener;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.smi.Null;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.Variable;
+import org.snmp4j.smi.VariableBinding;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.isA;
+import static org.easymock.EasyMock.isNull;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.same;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PackedGetRequestTest {
+
+    private static final String NE_IP = "9.8.7.6";
+
+    private ISnmpConfiguration configuration;
+    private Session snmpInterface;
+    private Target target;
+    private List<Integer> requestSizes;
+
+    @Before
+    public void setUp() throws Exception {
+        configuration = createMock(ISnmpConfiguration.class);
+        snmpInterface = createMock(Session.class);
+        target = createMock(Target.class);
+        requestSizes = Collections.synchronizedList(new ArrayList<Integer>());
+
+        expect(configuration.createPDU(PDU.GET)).andAnswer(new IAnswer<PDU>() {
+            @Override
+            public PDU answer() throws Throwable {
+                return new PDU();
+            }
+        }).anyTimes();
+        snmpInterface.cancel(isA(PDU.class), isA(ResponseListener.class));
+        expectLastCall().anyTimes();
+    }
+
+    @Test
+    public void shouldPackOidsWithinPduSize() {
+        final List<OID> oids = createOids(40);
+        // Each binding is estimated as an 8 byte OID, the value allowance and a 2 byte header.
+        final int bindingSize = 8 + PackedGetRequest.VALUE_ALLOWANCE + 2;
+
+        assertEquals(1, PackedGetRequest.pack(oids, 65535).size());
+        assertEquals(40, PackedGetRequest.pack(oids, 0).size());
+        assertEquals(4, PackedGetRequest.pack(oids, PackedGetRequest.MESSAGE_OVERHEAD + 10 * bindingSize).size());
+        assertTrue(PackedGetRequest.pack(Collections.<OID>emptyList(), 65535).isEmpty());
+    }
+
+    @Test
+    public void shouldRetrieveVariablesInRequestOrder() throws Exception {
+        expect(configuration.getMaxSizeResponsePDU()).andReturn(65535);
+        expectSend(Integer.MAX_VALUE).anyTimes();
+        replayAll();
+
+        final List<OID> oids = createOids(40);
+        final Map<OID, Variable> result = execute(oids);
+
+        assertEquals(40, result.size());
+        assertEquals(new ArrayList<>(oids), new ArrayList<>(result.keySet()));
+        assertEquals("1.3.6.1.2.1.7", result.get(new OID("1.3.6.1.2.1.7")).toString());
+        assertEquals(Collections.singletonList(40), requestSizes);
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldSplitRequestsThatAreTooBig() throws Exception {
+        expect(configuration.getMaxSizeResponsePDU()).andReturn(65535);
+        expectSend(10).anyTimes();
+        replayAll();
+
+        final Map<OID, Variable> result = execute(createOids(40));
+
+        assertEquals(40, result.size());
+        // 40 -> 20 + 20 -> 4 x 10
+        assertEquals(7, requestSizes.size());
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldOmitMissingInstances() throws Exception {
+        expect(configuration.getMaxSizeResponsePDU()).andReturn(65535);
+        expectSend(Integer.MAX_VALUE).anyTimes();
+        replayAll();
+
+        final List<OID> oids = createOids(3);
+        oids.add(new OID("1.3.6.1.2.1.99"));
+        final Map<OID, Variable> result = execute(oids);
+
+        assertEquals(3, result.size());
+        assertFalse(result.containsKey(new OID("1.3.6.1.2.1.99")));
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldFailOnTimeout() throws Exception {
+        expect(configuration.getMaxSizeResponsePDU()).andReturn(65535);
+        expectSend(-1);
+        replayAll();
+
+        try {
+            execute(createOids(3));
+            fail("Should not reach");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof SnmpIoException);
+        }
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldRetryWithoutInstancesRejectedAsNoSuchName() throws Exception {
+        expect(configuration.getMaxSizeResponsePDU()).andReturn(65535);
+        expectSendRejecting(SnmpConstants.SNMP_ERROR_NO_SUCH_NAME).times(2);
+        replayAll();
+
+        final List<OID> oids = createOids(3);
+        oids.add(1, new OID("1.3.6.1.2.1.99"));
+        final Map<OID, Variable> result = execute(oids);
+
+        assertEquals(3, result.size());
+        assertFalse(result.containsKey(new OID("1.3.6.1.2.1.99")));
+        assertEquals(Arrays.asList(4, 3), requestSizes);
+
+        verifyAll();
+    }
+
+    @Test
+    public void shouldFailOnGenErr() throws Exception {
+        expect(configuration.getMaxSizeResponsePDU()).andReturn(65535);
+        expectSendRejecting(SnmpConstants.SNMP_ERROR_GENERAL_ERROR);
+        replayAll();
+
+        final List<OID> oids = createOids(3);
+        oids.add(1, new OID("1.3.6.1.2.1.99"));
+        try {
+            execute(oids);
+            fail("Should not reach");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof SnmpIoException);
+        }
+        assertEquals(Collections.singletonList(4), requestSizes);
+
+        verifyAll();
+    }
+
+    private Map<OID, Variable> execute(final List<OID> oids) throws Exception {
+        return new PackedGetRequest(configuration, snmpInterface, target, NE_IP, oids)
+                .execute().get(15, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Expects requests to be sent, answering each one with the OID of each binding as its value,
+     * with tooBig if the request has more than <code>maxBindings</code> bindings, or with
+     * a timeout if <code>maxBindings</code> is negative.
+     */
+    private IExpectationSetters<Object> expectSend(final int maxBindings) throws IOException {
+        snmpInterface.send(isA(PDU.class), same(target), isNull(), isA(ResponseListener.class));
+        return expectLastCall().andAnswer(new IAnswer<Object>() {
+            @Override
+            public Object answer() throws Throwable {
+                final PDU request = (PDU) EasyMock.getCurrentArguments()[0];
+                final ResponseListener listener = (ResponseListener) EasyMock.getCurrentArguments()[3];
+                requestSizes.add(request.size());
+
+                PDU response = null;
+                if (maxBindings >= 0) {
+                    response = new PDU();
+                    if (request.size() > maxBindings) {
+                        response.setErrorStatus(SnmpConstants.SNMP_ERROR_TOO_BIG);
+                    } else {
+                        for (final VariableBinding binding : request.getVariableBindings()) {
+                            final OID oid = binding.getOid();
+                            response.add(oid.last() == 99
+                                    ? new VariableBinding(oid, Null.noSuchInstance)
+                                    : new VariableBinding(oid, new OctetString(oid.toString())));
+                        }
+                    }
+                }
+                listener.onResponse(new ResponseEvent(this, null, request, response, null));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Expects requests to be sent, answering each one holding an OID ending in 99 with
+     * <code>errorStatus</code> at the index of that OID, and any other with the OID of
+     * each binding as its value.
+     */
+    private IExpectationSetters<Object> expectSendRejecting(final int errorStatus) throws IOException {
+        snmpInterface.send(isA(PDU.class), same(target), isNull(), isA(ResponseListener.class));
+        return expectLastCall().andAnswer(new IAnswer<Object>() {
+            @Override
+            public Object answer() throws Throwable {
+                final PDU request = (PDU) EasyMock.getCurrentArguments()[0];
+                final ResponseListener listener = (ResponseListener) EasyMock.getCurrentArguments()[3];
+                requestSizes.add(request.size());
+
+                final PDU response = new PDU();
+                for (int i = 0; i < request.size(); i++) {
+                    final OID oid = request.get(i).getOid();
+                    if (oid.last() == 99) {
+                        response.setErrorStatus(errorStatus);
+                        response.setErrorIndex(i + 1);
+                    }
+                    response.add(new VariableBinding(oid, new OctetString(oid.toString())));
+                }
+                listener.onResponse(new ResponseEvent(this, null, request, response, null));
+                return null;
+            }
+        });
+    }
+
+    private static List<OID> createOids(final int count) {
+        final List<OID> oids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            oids.add(new OID("1.3.6.1.2.1." + i));
+        }
+        return oids;
+    }
+
+    private void replayAll() {
+        replay(configuration, snmpInterface, target);
+    }
+
+    private void verifyAll() {
+        verify(configuration, snmpInterface, target);
+    }
+}
@@ -121,6 +121,22 @@ public class SnmpSessionFactoryTest
         assertEquals(161, address.getPort());
     }
 
+    @Test
+    public void shouldCreateAsyncSession() throws IOException {
+        expectSessionInteractions();
+        final Capture<Address> addressCapture = expectCreateTarget();
+
+        replayAll();
+
+        final IAsyncSnmpSession session = factory.createAsyncSession(defaultConfiguration, "localhost/9999");
+        assertEquals("localhost", session.getAddress().getHostName());
+
+        verifyAll();
+
+        final UdpAddress address = (UdpAddress) addressCapture.getValue();
+        assertEquals(9999, address.getPort());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void shouldNotAcceptInvalidProtocol() throws IOException  {
         expect(defaultConfiguration.getPort()).andReturn(161);
@@ -129,6 +145,29 @@ public class SnmpSessionFactoryTest
 
     }
 
+    @Test
+    public void shouldForgetLeastRecentlyUsedRepetitionsControllers() {
+        expect(defaultConfiguration.isAdaptiveRepetitions()).andReturn(true).anyTimes();
+        expect(defaultConfiguration.getMaxRepetitions()).andReturn(10).anyTimes();
+        expect(defaultConfiguration.getRepetitionsLowerBound()).andReturn(1).anyTimes();
+        expect(defaultConfiguration.getRepetitionsUpperBound()).andReturn(100).anyTimes();
+        expect(target.getTimeout()).andReturn(1000L).anyTimes();
+        replayAll();
+
+        factory = new SnmpSessionFactory(defaultConfigurationFactory, 2);
+        final Address first = new UdpAddress("10.0.0.1/161");
+        final Address second = new UdpAddress("10.0.0.2/161");
+        final MaxRepetitionsController firstController = factory.getRepetitionsController(defaultConfiguration, target, first);
+        final MaxRepetitionsController secondController = factory.getRepetitionsController(defaultConfiguration, target, second);
+
+        assertSame(firstController, factory.getRepetitionsController(defaultConfiguration, target, first));
+        factory.getRepetitionsController(defaultConfiguration, target, new UdpAddress("10.0.0.3/161"));
+        assertSame(firstController, factory.getRepetitionsController(defaultConfiguration, target, first));
+        assertNotSame(secondController, factory.getRepetitionsController(defaultConfiguration, target, second));
+
+        verifyAll();
+    }
+
     private void replayAll() {
         replay(defaultConfigurationFactory);
         replay(alternativeConfigurationFactory);
@@ -157,5 +196,6 @@ public class SnmpSessionFactoryTest
         expect(defaultConfigurationFactory.getConfiguration(ISnmpConfigurationFactory.AccessType.READ_WRITE)).andReturn(defaultConfiguration).atLeastOnce();
         expect(defaultConfiguration.createSnmpSession(isA(TransportMapping.class))).andReturn(snmpInterface);
         expect(defaultConfiguration.getPort()).andReturn(161);
+        expect(defaultConfiguration.isAdaptiveRepetitions()).andReturn(false);
     }
 }
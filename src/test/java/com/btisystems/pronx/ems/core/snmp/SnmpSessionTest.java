@@ -485,6 +485,82 @@ public class SnmpSessionTest {
         executorService.awaitTermination(15, TimeUnit.SECONDS);
     }
     
+    @Test
+    public void shouldWalkSubtreesConcurrently() throws IOException, InterruptedException {
+
+        final ExecutorService executorService = Executors.newCachedThreadPool();
+
+        expect(configuration.createPDU(PDU.GETBULK)).andReturn(new PDU());
+        expect(configuration.createPDU(PDU.GETBULK)).andReturn(new PDU());
+        expect(target.getVersion()).andReturn(SnmpConstants.version2c).times(2);
+        expect(configuration.getWalkTimeout()).andReturn(900000).anyTimes();
+        expect(configuration.getMaxRepetitions()).andReturn(100).anyTimes();
+        expect(configuration.getMaximumConcurrentSubtrees()).andReturn(4).anyTimes();
+
+        expectToGetBulkAndSendResponses(executorService, DUMMY_OID1,
+                "1.3.6.1", "Value1",
+                "1.3.7.1", "Too Far");
+        expectToAddVariableBinding("1.3.6.1", "Value1");
+
+        expectToGetBulkAndSendResponses(executorService, "1.3.7",
+                "1.3.7.1", "Value2",
+                "1.3.8", "Too Far");
+        expectToAddVariableBinding("1.3.7.1", "Value2");
+
+        replayAll();
+
+        // The second OID lies within the first subtree, so is not walked again.
+        oidList.add(new OID(DUMMY_OID2));
+        oidList.add(new OID("1.3.7"));
+        final WalkResponse response = session.walkDevice(variableHandler, oidList);
+        assertTrue(response.isSuccess());
+        assertEquals(2, response.getRequestCount());
+        assertEquals(2, response.getObjectCount());
+
+        verifyAll();
+
+        executorService.shutdown();
+        executorService.awaitTermination(15, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldAdaptMaxRepetitions() throws IOException, InterruptedException {
+
+        final ExecutorService executorService = Executors.newCachedThreadPool();
+        session = new SnmpSession(configuration, snmpInterface, target, address,
+                new MaxRepetitionsController(4, 1, 100, 60000));
+
+        expect(configuration.createPDU(PDU.GETBULK)).andReturn(new PDU());
+        expect(target.getVersion()).andReturn(SnmpConstants.version2c);
+        expect(configuration.getWalkTimeout()).andReturn(900000).anyTimes();
+        expect(configuration.getMaxRepetitions()).andReturn(4);
+
+        expectToGetBulkAndSendResponses(executorService, DUMMY_OID1,
+                "1.3.6.1", "Value1",
+                "1.3.6.2", "Value2",
+                "1.3.6.3", "Value3",
+                "1.3.6.4", "Value4");
+        expectToAddVariableBinding("1.3.6.1", "Value1");
+        expectToAddVariableBinding("1.3.6.2", "Value2");
+        expectToAddVariableBinding("1.3.6.3", "Value3");
+        expectToAddVariableBinding("1.3.6.4", "Value4");
+
+        expectToGetBulkAndSendResponses(executorService, "1.3.6.4",
+                "1.3.7", "Too Far");
+
+        replayAll();
+
+        final WalkResponse response = session.walkDevice(variableHandler, oidList);
+        assertTrue(response.isSuccess());
+        assertEquals(4, response.getObjectCount());
+        assertEquals(5, response.getMaxRepetitions());
+
+        verifyAll();
+
+        executorService.shutdown();
+        executorService.awaitTermination(15, TimeUnit.SECONDS);
+    }
+
     @Test
     public void shouldDelegateTableWalk() throws IOException, InterruptedException {
         assertTrue(session.getTableWalker() == session.getTableWalker());
@@ -494,10 +570,15 @@ public class SnmpSessionTest {
                 return mockTableWalker;
             }
         };
+        final ColumnProjection projection = new ColumnProjection();
         expect(mockTableWalker.getTableRows(variableHandler, null)).andReturn(null);
+        expect(mockTableWalker.getTableRows(variableHandler, null, projection)).andReturn(null);
         replayAll();
+        replay(mockTableWalker);
         session.getTableRows(variableHandler, null);
+        session.getTableRows(variableHandler, null, projection);
         verifyAll();
+        verify(mockTableWalker);
     }
 
     /**
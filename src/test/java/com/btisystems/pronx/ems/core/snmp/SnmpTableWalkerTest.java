@@ -35,18 +35,24 @@ import org.snmp4j.event.ResponseEvent;
 import org.snmp4j.event.ResponseListener;
 import org.snmp4j.mp.SnmpConstants;
 import org.snmp4j.smi.IpAddress;
+import org.snmp4j.smi.Null;
 import org.snmp4j.smi.OID;
 import org.snmp4j.smi.OctetString;
 import org.snmp4j.smi.VariableBinding;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -57,6 +63,7 @@ import static org.mockito.Matchers.isA;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -79,6 +86,9 @@ public class SnmpTableWalkerTest {
     private SnmpTableWalker tableWalker;
     private ExecutorService executorService;
 
+    private final List<Integer> requestTypes = Collections.synchronizedList(new ArrayList<Integer>());
+    private final List<Integer> requestRepetitions = Collections.synchronizedList(new ArrayList<Integer>());
+
     private Map<DeviceEntityDescription, List<OID>> currentIndexMap;
     private List<OID> currentIndexList;
 
@@ -98,6 +108,15 @@ public class SnmpTableWalkerTest {
         executorService = Executors.newSingleThreadExecutor();
 
         when(mockConfiguration.createPDU(PDU.GETBULK)).thenReturn(new PDU()).thenReturn(new PDU());
+        when(mockConfiguration.createPDU(PDU.GET)).thenAnswer(new Answer<PDU>() {
+            @Override
+            public PDU answer(final InvocationOnMock invocation) throws Throwable {
+                final PDU request = new PDU();
+                request.setType(PDU.GET);
+                return request;
+            }
+        });
+        when(mockConfiguration.getMaxSizeResponsePDU()).thenReturn(65535);
         when(mockConfiguration.getWalkTimeout()).thenReturn(500);
         when(mockTarget.getVersion()).thenReturn(SnmpConstants.version2c);
         when(mockTarget.getMaxSizeRequestPDU()).thenReturn(4096);
@@ -176,6 +195,9 @@ public class SnmpTableWalkerTest {
 
         assertThat(walkResponse.isSuccess(), is(true));
         assertThat(walkResponse.getObjectCount(), is(6));
+        assertThat(walkResponse.getTableResponses().size(), is(2));
+        assertThat(walkResponse.getTableResponses().get(new OID("1.2.3")).getObjectCount(), is(3));
+        assertThat(walkResponse.getTableResponses().get(new OID("1.2.4")).getObjectCount(), is(3));
     }
 
     /**
@@ -375,6 +397,392 @@ public class SnmpTableWalkerTest {
         assertThat(walkResponse.getObjectCount(), is(3));
     }
 
+    /**
+     * Should adapt the rows per pdu to the responses of the device.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldAdaptRowsPerPdu() throws IOException, InterruptedException {
+
+        tableWalker = new SnmpTableWalker(mockConfiguration, mockSnmpInterface, mockTarget, address,
+                new MaxRepetitionsController(2, 1, 100, 60000));
+
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(newDeviceEntityDescription("1.2.3"))
+                .withRowIndex("1")
+                .withRowIndex("2")
+                .withRowIndex("3")
+                .withRowIndex("4")
+                .withRowIndex("5")
+                .withRowIndex("6")
+                .buildIndexMap();
+
+        configureSnmpInterface().withAgent(newAgentObjects(6, 0));
+
+        final WalkResponse walkResponse = tableWalker.getTableRows(mockVariableHandler, tableIndexes, null,
+                ISnmpTableWalker.Strategy.GETBULK);
+
+        verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.3.6", "C6"));
+        // Each full response grows the rows requested by the next request of the retrieval.
+        assertThat(requestRepetitions.subList(0, 3), is(Arrays.asList(2, 3, 4)));
+        assertThat(walkResponse.getObjectCount(), is(18));
+        assertThat(walkResponse.getMaxRepetitions() > 2, is(true));
+    }
+
+    /**
+     * Should retrieve rows of several indices concurrently.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldRetrieveRowsConcurrently() throws IOException, InterruptedException {
+
+        when(mockConfiguration.getMaximumConcurrentTableRequests()).thenReturn(2);
+
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(newDeviceEntityDescription("1.2.3"))
+                .withRowIndex("1")
+                .withRowIndex("3")
+                .withRowIndex("5")
+                .withTableEntry(newDeviceEntityDescription("1.2.4"))
+                .withRowIndex("1")
+                .withRowIndex("3")
+                .buildIndexMap();
+
+        // Each response is held back until two requests are in progress.
+        final CountDownLatch inProgress = new CountDownLatch(2);
+        final AtomicInteger outstanding = new AtomicInteger();
+        final AtomicInteger maximumOutstanding = new AtomicInteger();
+        configureSnmpInterface().withAgent(inProgress, outstanding, maximumOutstanding, newAgentObjects(6, 4));
+
+        final WalkResponse walkResponse = tableWalker.getTableRows(mockVariableHandler, tableIndexes);
+
+        for (final String row : new String[]{"1", "3", "5"}) {
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.1." + row, "A" + row));
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.2." + row, "B" + row));
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.3." + row, "C" + row));
+        }
+        for (final String row : new String[]{"1", "3"}) {
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.4.1." + row, "D" + row));
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.4.2." + row, "E" + row));
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.4.3." + row, "F" + row));
+        }
+        verify(mockVariableHandler, never()).addVariable(thatDefinesVariable("1.2.3.1.2", "A2"));
+        verify(mockVariableHandler, never()).addVariable(thatDefinesVariable("1.2.4.1.4", "D4"));
+
+        assertThat(inProgress.getCount(), is(0L));
+        assertThat(maximumOutstanding.get(), is(2));
+        assertThat(walkResponse.isSuccess(), is(true));
+        assertThat(walkResponse.getObjectCount(), is(15));
+
+        final WalkResponse firstTable = walkResponse.getTableResponses().get(new OID("1.2.3"));
+        assertThat(firstTable.getObjectCount(), is(9));
+        assertThat(firstTable.getRequestCount(), is(3));
+        final WalkResponse secondTable = walkResponse.getTableResponses().get(new OID("1.2.4"));
+        assertThat(secondTable.getObjectCount(), is(6));
+        assertThat(secondTable.getRequestCount(), is(2));
+    }
+
+    /**
+     * Should retrieve adjacent indices with a single ranged request.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldCoalesceAdjacentIndices() throws IOException, InterruptedException {
+
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(newDeviceEntityDescription("1.2.3"))
+                .withRowIndex("3")
+                .withRowIndex("2")
+                .withRowIndex("4")
+                .buildIndexMap();
+
+        final AtomicInteger requests = new AtomicInteger();
+        configureSnmpInterface().withAgent(new CountDownLatch(0), requests, new AtomicInteger(), newAgentObjects(6, 0));
+
+        final WalkResponse walkResponse = tableWalker.getTableRows(mockVariableHandler, tableIndexes);
+
+        for (final String row : new String[]{"2", "3", "4"}) {
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.1." + row, "A" + row));
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.2." + row, "B" + row));
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.3." + row, "C" + row));
+        }
+        verify(mockSnmpInterface).send(isA(PDU.class), same(mockTarget), anyObject(), isA(ResponseListener.class));
+        assertThat(walkResponse.isSuccess(), is(true));
+        assertThat(walkResponse.getObjectCount(), is(9));
+        assertThat(walkResponse.getTableResponses().get(new OID("1.2.3")).getRequestCount(), is(1));
+    }
+
+    /**
+     * Should not deliver rows lying in the gaps of a ranged request.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldFilterRowsInIndexGaps() throws IOException, InterruptedException {
+
+        when(mockConfiguration.getMaximumTableIndexGap()).thenReturn(2);
+
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(newDeviceEntityDescription("1.2.3"))
+                .withRowIndex("1")
+                .withRowIndex("3")
+                .withRowIndex("6")
+                .buildIndexMap();
+
+        configureSnmpInterface().withAgent(new CountDownLatch(0), new AtomicInteger(), new AtomicInteger(), newAgentObjects(6, 0));
+
+        final WalkResponse walkResponse = tableWalker.getTableRows(mockVariableHandler, tableIndexes);
+
+        for (final String row : new String[]{"1", "3", "6"}) {
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.1." + row, "A" + row));
+        }
+        for (final String row : new String[]{"2", "4", "5"}) {
+            verify(mockVariableHandler, never()).addVariable(thatDefinesVariable("1.2.3.1." + row, "A" + row));
+        }
+        verify(mockSnmpInterface).send(isA(PDU.class), same(mockTarget), anyObject(), isA(ResponseListener.class));
+        assertThat(walkResponse.isSuccess(), is(true));
+        assertThat(walkResponse.getObjectCount(), is(9));
+    }
+
+    /**
+     * Should retrieve the first row of a run whose index ends in zero.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldRetrieveRowWithIndexEndingInZero() throws IOException, InterruptedException {
+
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(newDeviceEntityDescription("1.2.3"))
+                .withRowIndex("10.0.0.0")
+                .withRowIndex("10.0.0.1")
+                .buildIndexMap();
+
+        configureSnmpInterface().withAgent(newAddressAgentObjects());
+
+        final WalkResponse walkResponse = tableWalker.getTableRows(mockVariableHandler, tableIndexes, null,
+                ISnmpTableWalker.Strategy.GETBULK);
+
+        verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.1.10.0.0.0", "A10.0.0.0"));
+        verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.3.10.0.0.1", "C10.0.0.1"));
+        verify(mockVariableHandler, never()).addVariable(thatDefinesVariable("1.2.3.1.10.0.0.2", "A10.0.0.2"));
+        assertThat(requestTypes, is(Arrays.asList(PDU.GETBULK)));
+        assertThat(walkResponse.getObjectCount(), is(6));
+        assertThat(tableIndexes.values().iterator().next().get(0), is(new OID("10.0.0.0")));
+    }
+
+    /**
+     * Should get the instances of a row whose index ends in zero.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldGetRowWithIndexEndingInZero() throws IOException, InterruptedException {
+
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(newDeviceEntityDescription("1.2.3"))
+                .withRowIndex("10.0.0.0")
+                .withRowIndex("10.0.0.2")
+                .buildIndexMap();
+
+        configureSnmpInterface().withAgent(newAddressAgentObjects());
+
+        final WalkResponse walkResponse = tableWalker.getTableRows(mockVariableHandler, tableIndexes, null,
+                ISnmpTableWalker.Strategy.GET);
+
+        verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.1.10.0.0.0", "A10.0.0.0"));
+        verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.3.10.0.0.2", "C10.0.0.2"));
+        verify(mockVariableHandler, never()).addVariable(thatDefinesVariable("1.2.3.1.10.0.0.1", "A10.0.0.1"));
+        assertThat(requestTypes, is(Arrays.asList(PDU.GET, PDU.GET)));
+        assertThat(walkResponse.getObjectCount(), is(6));
+        assertThat(tableIndexes.values().iterator().next().get(0), is(new OID("10.0.0.0")));
+    }
+
+    /**
+     * Should get the instances of sparse rows.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldGetSparseRows() throws IOException, InterruptedException {
+
+        when(mockConfiguration.getMaximumSparseRows()).thenReturn(10);
+
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(newDeviceEntityDescription("1.2.3"))
+                .withRowIndex("2")
+                .withRowIndex("5")
+                .withTableEntry(newDeviceEntityDescription("1.2.4"))
+                .withRowIndex("2")
+                .buildIndexMap();
+
+        configureSnmpInterface().withAgent(newAgentObjects(6, 4));
+
+        final WalkResponse walkResponse = tableWalker.getTableRows(mockVariableHandler, tableIndexes);
+
+        verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.1.2", "A2"));
+        verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.3.5", "C5"));
+        verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.4.3.2", "F2"));
+        verify(mockVariableHandler, never()).addVariable(thatDefinesVariable("1.2.3.1.3", "A3"));
+        assertThat(requestTypes, is(Arrays.asList(PDU.GET, PDU.GET)));
+        assertThat(walkResponse.isSuccess(), is(true));
+        assertThat(walkResponse.getObjectCount(), is(9));
+        assertThat(walkResponse.getTableResponses().get(new OID("1.2.4")).getObjectCount(), is(3));
+    }
+
+    /**
+     * Should walk rows which are not sparse.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldWalkRowsWhichAreNotSparse() throws IOException, InterruptedException {
+
+        when(mockConfiguration.getMaximumSparseRows()).thenReturn(2);
+
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(newDeviceEntityDescription("1.2.3"))
+                .withRowIndex("1")
+                .withRowIndex("2")
+                .withRowIndex("3")
+                .buildIndexMap();
+
+        configureSnmpInterface().withAgent(newAgentObjects(6, 0));
+
+        final WalkResponse walkResponse = tableWalker.getTableRows(mockVariableHandler, tableIndexes);
+
+        verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.3.3", "C3"));
+        assertThat(requestTypes, is(Arrays.asList(PDU.GETBULK)));
+        assertThat(walkResponse.getObjectCount(), is(9));
+    }
+
+    /**
+     * Should retrieve rows with the requested strategy.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldRetrieveRowsWithRequestedStrategy() throws IOException, InterruptedException {
+
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(newDeviceEntityDescription("1.2.3"))
+                .withRowIndex("1")
+                .withRowIndex("2")
+                .buildIndexMap();
+
+        configureSnmpInterface().withAgent(newAgentObjects(6, 0));
+
+        tableWalker.getTableRows(mockVariableHandler, tableIndexes, null, ISnmpTableWalker.Strategy.GET);
+        assertThat(requestTypes, is(Arrays.asList(PDU.GET)));
+
+        when(mockConfiguration.getMaximumSparseRows()).thenReturn(10);
+        requestTypes.clear();
+        tableWalker.getTableRows(mockVariableHandler, tableIndexes, null, ISnmpTableWalker.Strategy.GETBULK);
+        assertThat(requestTypes, is(Arrays.asList(PDU.GETBULK)));
+    }
+
+    /**
+     * Should retrieve only the projected columns.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldRetrieveProjectedColumns() throws IOException, InterruptedException {
+
+        final DeviceEntityDescription firstTable = newDeviceEntityDescription("1.2.3");
+        final DeviceEntityDescription secondTable = newDeviceEntityDescription("1.2.4");
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(firstTable)
+                .withRowIndex("1")
+                .withRowIndex("2")
+                .withTableEntry(secondTable)
+                .withRowIndex("1")
+                .withRowIndex("2")
+                .buildIndexMap();
+
+        configureSnmpInterface().withAgent(newAgentObjects(4, 4));
+
+        final WalkResponse walkResponse = tableWalker.getTableRows(mockVariableHandler, tableIndexes,
+                new ColumnProjection().withFieldNames(firstTable, "field2").withFieldIds(secondTable, 1, 3));
+
+        for (final String row : new String[]{"1", "2"}) {
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.3.2." + row, "B" + row));
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.4.1." + row, "D" + row));
+            verify(mockVariableHandler).addVariable(thatDefinesVariable("1.2.4.3." + row, "F" + row));
+            verify(mockVariableHandler, never()).addVariable(thatDefinesVariable("1.2.3.1." + row, "A" + row));
+            verify(mockVariableHandler, never()).addVariable(thatDefinesVariable("1.2.3.3." + row, "C" + row));
+            verify(mockVariableHandler, never()).addVariable(thatDefinesVariable("1.2.4.2." + row, "E" + row));
+        }
+        assertThat(walkResponse.isSuccess(), is(true));
+        assertThat(walkResponse.getObjectCount(), is(6));
+        assertThat(walkResponse.getTableResponses().get(new OID("1.2.3")).getObjectCount(), is(2));
+    }
+
+    /**
+     * Should abort concurrent retrieval if snmp throws an exception.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldAbortConcurrentRetrievalIfSnmpThrowsAnException() throws IOException, InterruptedException {
+
+        when(mockConfiguration.getMaximumConcurrentTableRequests()).thenReturn(2);
+
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(newDeviceEntityDescription("1.2.3"))
+                .withRowIndex("1")
+                .withRowIndex("2")
+                .withRowIndex("3")
+                .buildIndexMap();
+
+        configureSnmpInterface().withSnmpException("Bad Stuff Happens");
+
+        final WalkResponse walkResponse = tableWalker.getTableRows(mockVariableHandler, tableIndexes);
+
+        assertThat(walkResponse.isSuccess(), is(false));
+        assertTrue(walkResponse.getThrowable().getMessage().contains("Bad Stuff Happens"));
+        verify(mockSnmpInterface).send(isA(PDU.class), same(mockTarget), anyObject(), isA(ResponseListener.class));
+    }
+
+    /**
+     * Should time out concurrent retrieval if no request finishes.
+     *
+     * @throws IOException          the io exception
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void shouldAbortConcurrentRetrievalIfSnmpTimesOut() throws IOException, InterruptedException {
+
+        when(mockConfiguration.getMaximumConcurrentTableRequests()).thenReturn(2);
+
+        final Map<DeviceEntityDescription, List<OID>> tableIndexes = newIndexMap()
+                .withTableEntry(newDeviceEntityDescription("1.2.3"))
+                .withRowIndex("1")
+                .withRowIndex("2")
+                .buildIndexMap();
+
+        configureSnmpInterface().withNoResponseInTimeoutPeriod();
+
+        final WalkResponse walkResponse = tableWalker.getTableRows(mockVariableHandler, tableIndexes);
+
+        assertThat(walkResponse.isSuccess(), is(false));
+        assertTrue(walkResponse.getThrowable().getMessage().contains("Walk timed out"));
+    }
+
     private SnmpTableWalkerTest configureSnmpInterface() {
         return this;
     }
@@ -434,6 +842,108 @@ public class SnmpTableWalkerTest {
         return this;
     }
 
+    private SnmpTableWalkerTest withAgent(final String... objects) throws IOException {
+        return withAgent(new CountDownLatch(0), new AtomicInteger(), new AtomicInteger(), objects);
+    }
+
+    // Answer each GET or GETBULK request from the given objects, once the latch is released.
+    private SnmpTableWalkerTest withAgent(final CountDownLatch latch,
+                                          final AtomicInteger outstanding,
+                                          final AtomicInteger maximumOutstanding,
+                                          final String... objects) throws IOException {
+        final TreeMap<OID, String> agent = new TreeMap<OID, String>();
+        for (int i = 0; i < objects.length; i += 2) {
+            agent.put(new OID(objects[i]), objects[i + 1]);
+        }
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                final Object[] args = invocation.getArguments();
+                final ResponseListener listener = (ResponseListener) args[3];
+                final Object userObject = args[2];
+                final PDU requestPdu = (PDU) args[0];
+                requestTypes.add(requestPdu.getType());
+                requestRepetitions.add(requestPdu.getMaxRepetitions());
+                final int current = outstanding.incrementAndGet();
+                if (current > maximumOutstanding.get()) {
+                    maximumOutstanding.set(current);
+                }
+                latch.countDown();
+
+                executorService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            latch.await(5, TimeUnit.SECONDS);
+                        } catch (final InterruptedException ex) {
+                            Assert.fail();
+                        }
+                        final PDU responsePdu = new PDU();
+                        if (requestPdu.getType() == PDU.GET) {
+                            for (final VariableBinding binding : requestPdu.getVariableBindings()) {
+                                final String value = agent.get(binding.getOid());
+                                responsePdu.add((value == null) ? new VariableBinding(binding.getOid(), Null.noSuchInstance)
+                                        : new VariableBinding(binding.getOid(), new OctetString(value)));
+                            }
+                            outstanding.decrementAndGet();
+                            listener.onResponse(new ResponseEvent(this, address, requestPdu, responsePdu, userObject));
+                            return;
+                        }
+                        final OID[] next = new OID[requestPdu.size()];
+                        for (int c = 0; c < next.length; c++) {
+                            next[c] = requestPdu.get(c).getOid();
+                        }
+                        for (int r = 0; r < Math.max(1, requestPdu.getMaxRepetitions()); r++) {
+                            for (int c = 0; c < next.length; c++) {
+                                final Map.Entry<OID, String> entry = agent.higherEntry(next[c]);
+                                if (entry == null) {
+                                    responsePdu.add(new VariableBinding(next[c], Null.endOfMibView));
+                                } else {
+                                    next[c] = entry.getKey();
+                                    responsePdu.add(new VariableBinding(entry.getKey(), new OctetString(entry.getValue())));
+                                }
+                            }
+                        }
+                        outstanding.decrementAndGet();
+                        listener.onResponse(new ResponseEvent(this, address, requestPdu, responsePdu, userObject));
+                    }
+                });
+                return null;
+            }
+        }).when(mockSnmpInterface).send(isA(PDU.class), same(mockTarget), anyObject(), isA(ResponseListener.class));
+        return this;
+    }
+
+    // Columns 1 to 3 of table 1.2.3, valued A to C, and of table 1.2.4, valued D to F, with the given number of rows.
+    private String[] newAgentObjects(final int firstTableRows, final int secondTableRows) {
+        final List<String> objects = new ArrayList<String>();
+        for (int column = 1; column <= 3; column++) {
+            for (int row = 1; row <= firstTableRows; row++) {
+                objects.add("1.2.3." + column + "." + row);
+                objects.add(String.valueOf((char) ('A' + column - 1)) + row);
+            }
+        }
+        for (int column = 1; column <= 3; column++) {
+            for (int row = 1; row <= secondTableRows; row++) {
+                objects.add("1.2.4." + column + "." + row);
+                objects.add(String.valueOf((char) ('D' + column - 1)) + row);
+            }
+        }
+        return objects.toArray(new String[objects.size()]);
+    }
+
+    // Columns 1 to 3 of table 1.2.3, valued A to C, with rows indexed by the addresses 10.0.0.0 to 10.0.0.2.
+    private String[] newAddressAgentObjects() {
+        final List<String> objects = new ArrayList<String>();
+        for (int column = 1; column <= 3; column++) {
+            for (int row = 0; row <= 2; row++) {
+                objects.add("1.2.3." + column + ".10.0.0." + row);
+                objects.add(String.valueOf((char) ('A' + column - 1)) + "10.0.0." + row);
+            }
+        }
+        return objects.toArray(new String[objects.size()]);
+    }
+
     private SnmpTableWalkerTest withNoResponseInTimeoutPeriod() throws IOException {
         doAnswer(new Answer<Void>() {
             @Override
@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import org.junit.Test;
+import org.snmp4j.smi.OID;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TableIndexPlannerTest {
+
+    @Test
+    public void shouldJoinAdjacentIndices() {
+        final List<List<OID>> runs = TableIndexPlanner.getRuns(oids("3", "1", "2", "5", "2"), 0);
+
+        assertEquals(Arrays.asList(oids("1", "2", "3"), oids("5")), runs);
+    }
+
+    @Test
+    public void shouldJoinIndicesWithinGap() {
+        assertEquals(Arrays.asList(oids("1", "3", "6"), oids("10")),
+                TableIndexPlanner.getRuns(oids("1", "3", "6", "10"), 2));
+    }
+
+    @Test
+    public void shouldJoinOnlyIndicesDifferingInLastSubIdentifier() {
+        final List<List<OID>> runs = TableIndexPlanner.getRuns(
+                oids("10.11.12", "10.11.13", "10.12.1", "10.12", "55.66.0", "55.66.1"), 0);
+
+        assertEquals(Arrays.asList(oids("10.11.12", "10.11.13"), oids("10.12"), oids("10.12.1"), oids("55.66.0", "55.66.1")),
+                runs);
+    }
+
+    @Test
+    public void shouldCompareLastSubIdentifierUnsigned() {
+        assertEquals(Arrays.asList(oids("1.2147483647", "1.2147483648"), oids("1.4294967295")),
+                TableIndexPlanner.getRuns(oids("1.2147483648", "1.4294967295", "1.2147483647"), 0));
+    }
+
+    @Test
+    public void shouldDeliverNoRunsForNoIndices() {
+        assertTrue(TableIndexPlanner.getRuns(new ArrayList<OID>(), 5).isEmpty());
+    }
+
+    private static List<OID> oids(final String... indices) {
+        final List<OID> result = new ArrayList<OID>();
+        for (final String index : indices) {
+            result.add(new OID(index));
+        }
+        return result;
+    }
+}
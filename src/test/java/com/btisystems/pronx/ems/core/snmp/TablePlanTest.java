@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.btisystems.pronx.ems.core.snmp;
+
+import com.btisystems.pronx.ems.core.model.DeviceEntityDescription;
+import org.junit.Test;
+import org.snmp4j.smi.OID;
+
+import static com.btisystems.pronx.ems.core.snmp.ColumnProjectionTest.newDescription;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TablePlanTest {
+
+    private final DeviceEntityDescription ifEntry = newDescription("1.3.6.1.2.1.2.2.1", "ifIndex", "ifDescr", "ifType", "ifMtu");
+    private final DeviceEntityDescription ifXEntry = newDescription("1.3.6.1.2.1.31.1.1.1", "ifName", "ifInMulticastPkts");
+
+    @Test
+    public void shouldPlanColumnsInOidOrder() {
+        final TablePlan plan = TablePlan.get(ifEntry, null, 3);
+
+        assertEquals(ifEntry.getOid(), plan.getTableOid());
+        assertArrayEquals(new OID[]{new OID("1.3.6.1.2.1.2.2.1.1"), new OID("1.3.6.1.2.1.2.2.1.2"),
+                new OID("1.3.6.1.2.1.2.2.1.3"), new OID("1.3.6.1.2.1.2.2.1.4")}, plan.getColumnOids());
+        assertArrayEquals(new OID[]{ifEntry.getOid(), ifEntry.getOid(), ifEntry.getOid(), ifEntry.getOid()},
+                plan.getColumnTables());
+        assertEquals(2, plan.getColumnChunks());
+    }
+
+    @Test
+    public void shouldPlanProjectedColumns() {
+        final TablePlan plan = TablePlan.get(ifEntry, new ColumnProjection().withFieldNames(ifEntry, "ifMtu", "ifDescr"), 10);
+
+        assertArrayEquals(new OID[]{new OID("1.3.6.1.2.1.2.2.1.2"), new OID("1.3.6.1.2.1.2.2.1.4")}, plan.getColumnOids());
+        assertEquals(1, plan.getColumnChunks());
+    }
+
+    @Test
+    public void shouldShareCachedPlans() {
+        final ColumnProjection projection = new ColumnProjection().withFieldIds(ifEntry, 2);
+        final TablePlan allColumns = TablePlan.get(ifEntry, null, 10);
+        final TablePlan projected = TablePlan.get(ifEntry, projection, 10);
+
+        assertSame(allColumns, TablePlan.get(ifEntry, null, 10));
+        assertSame(projected, TablePlan.get(ifEntry, projection, 10));
+        assertSame(TablePlan.get(ifXEntry, null, 10), TablePlan.get(ifXEntry, projection, 10));
+    }
+
+    @Test
+    public void shouldReplanWhenSelectionOrColumnsPerPduChange() {
+        final ColumnProjection projection = new ColumnProjection().withFieldIds(ifEntry, 2);
+        final TablePlan projected = TablePlan.get(ifEntry, projection, 10);
+
+        projection.withFieldNames(ifEntry, "ifMtu");
+        final TablePlan reprojected = TablePlan.get(ifEntry, projection, 10);
+        assertNotSame(projected, reprojected);
+        assertArrayEquals(new OID[]{new OID("1.3.6.1.2.1.2.2.1.2"), new OID("1.3.6.1.2.1.2.2.1.4")}, reprojected.getColumnOids());
+
+        final TablePlan allColumns = TablePlan.get(ifEntry, null, 10);
+        assertNotSame(allColumns, TablePlan.get(ifEntry, null, 2));
+        assertEquals(2, TablePlan.get(ifEntry, null, 2).getColumnChunks());
+    }
+
+    @Test
+    public void shouldCachePlanForEachColumnsPerPdu() {
+        final TablePlan wide = TablePlan.get(ifEntry, null, 10);
+        final TablePlan narrow = TablePlan.get(ifEntry, null, 2);
+
+        assertSame(wide, TablePlan.get(ifEntry, null, 10));
+        assertSame(narrow, TablePlan.get(ifEntry, null, 2));
+
+        final ColumnProjection projection = new ColumnProjection().withFieldIds(ifEntry, 2, 4);
+        final TablePlan projectedWide = TablePlan.get(ifEntry, projection, 10);
+        final TablePlan projectedNarrow = TablePlan.get(ifEntry, projection, 1);
+        assertSame(projectedWide, TablePlan.get(ifEntry, projection, 10));
+        assertSame(projectedNarrow, TablePlan.get(ifEntry, projection, 1));
+    }
+
+    @Test
+    public void shouldPlanNoColumnsOfTableWithoutFields() {
+        assertTrue(TablePlan.get(new DeviceEntityDescription(new OID("1.3.6.1.2.1.4.20.1")), null, 10).isEmpty());
+    }
+}